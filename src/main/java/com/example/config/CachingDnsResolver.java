@@ -0,0 +1,49 @@
+package com.example.config;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+
+import org.apache.hc.client5.http.DnsResolver;
+import org.apache.hc.client5.http.SystemDefaultDnsResolver;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * 名前解決結果を一定時間キャッシュする DnsResolver
+ * - 同じホストへの取得が続くとき、接続ごとの DNS 問い合わせを省く
+ * - 解決に失敗した結果はキャッシュしない（次回はそのまま再問い合わせ）
+ */
+public class CachingDnsResolver implements DnsResolver {
+
+    private final DnsResolver delegate;
+    private final Cache<String, InetAddress[]> cache;
+
+    public CachingDnsResolver(Duration ttl, long maxHosts) {
+        this(SystemDefaultDnsResolver.INSTANCE, ttl, maxHosts);
+    }
+
+    CachingDnsResolver(DnsResolver delegate, Duration ttl, long maxHosts) {
+        this.delegate = delegate;
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maxHosts)
+                .build();
+    }
+
+    @Override
+    public InetAddress[] resolve(String host) throws UnknownHostException {
+        InetAddress[] cached = cache.getIfPresent(host);
+        if (cached == null) {
+            cached = delegate.resolve(host);
+            cache.put(host, cached);
+        }
+        return cached.clone(); // 呼び出し側で並べ替えられても共有分を汚さない
+    }
+
+    @Override
+    public String resolveCanonicalHostname(String host) throws UnknownHostException {
+        return delegate.resolveCanonicalHostname(host);
+    }
+}
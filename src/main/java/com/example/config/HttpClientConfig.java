@@ -0,0 +1,127 @@
+package com.example.config;
+
+import java.time.Duration;
+
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.DefaultConnectionKeepAliveStrategy;
+import org.apache.hc.client5.http.impl.DefaultHttpRequestRetryStrategy;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClientBuilder;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.RestClient;
+
+/**
+ * 外部HTTP取得用の共有クライアント
+ * - 接続はプールして keep-alive で再利用（毎回の TCP/TLS ハンドシェイクを省く）
+ * - 同一ホストへの同時接続数は max-per-route まで（超えた分はプールの空きを待つ）
+ * - 名前解決は CachingDnsResolver で dns-cache-ttl の間キャッシュ
+ * - 接続確立・読み取り・プール待ちのタイムアウトを個別に設定
+ * ★追加: 楽天Books API 用のクライアントもここで1つだけ作って使い回す
+ * HTTP/2 は使わない（classic クライアントは HTTP/1.1 のみ）。切り替えるには JDK の HttpClient か HC5 の async 版が要るが、
+ * JDK 版はホスト別の接続数上限と DNS キャッシュを差し込めず、async 版は本文をストリームで渡すためにパイプが要る。
+ * プレビューは宛先ホストがばらばらで多重化の効果が小さいため、ホスト別上限と DNS キャッシュを保てる classic 版を選んでいる
+ */
+@Configuration
+public class HttpClientConfig {
+
+    static final String USER_AGENT = "Mozilla/5.0 (Windows NT 10.0; Win64; x64) "
+            + "AppleWebKit/537.36 (KHTML, like Gecko) "
+            + "Chrome/120.0.0.0 Safari/537.36 JsoupReviewBoard/1.0";
+
+    /** URLメタ情報（OGP）取得用。アプリ終了時に close される */
+    @Bean
+    public CloseableHttpClient contentMetaHttpClient(
+            @Value("${contentmeta.http.connect-timeout:3s}") Duration connectTimeout,
+            @Value("${contentmeta.http.read-timeout:10s}") Duration readTimeout,
+            @Value("${contentmeta.http.pool-timeout:5s}") Duration poolTimeout,
+            @Value("${contentmeta.http.keep-alive:30s}") Duration keepAlive,
+            @Value("${contentmeta.http.max-total:64}") int maxTotal,
+            @Value("${contentmeta.http.max-per-route:4}") int maxPerRoute,
+            @Value("${contentmeta.http.dns-cache-ttl:5m}") Duration dnsCacheTtl) {
+
+        return pooledClient(connectTimeout, readTimeout, poolTimeout, keepAlive, maxTotal, maxPerRoute, dnsCacheTtl)
+                .setUserAgent(USER_AGENT)
+                .build();
+    }
+
+    /**
+     * ★追加: 楽天Books API 用（宛先は1ホストなので接続数上限 = ホスト別上限）
+     * ステータスによる再試行（503 など）は RakutenBooksService#executeWithRetry に一本化し、
+     * クライアント側では「再利用した接続が相手に切られていた」等の I/O 失敗だけ 1回やり直す
+     */
+    @Bean
+    public CloseableHttpClient rakutenHttpClient(
+            @Value("${rakuten.http.connect-timeout:3s}") Duration connectTimeout,
+            @Value("${rakuten.http.read-timeout:10s}") Duration readTimeout,
+            @Value("${rakuten.http.pool-timeout:3s}") Duration poolTimeout,
+            @Value("${rakuten.http.keep-alive:30s}") Duration keepAlive,
+            @Value("${rakuten.http.max-connections:20}") int maxConnections) {
+
+        return pooledClient(connectTimeout, readTimeout, poolTimeout, keepAlive, maxConnections, maxConnections,
+                Duration.ofMinutes(5))
+                .setRetryStrategy(new DefaultHttpRequestRetryStrategy(1, TimeValue.ZERO_MILLISECONDS) {
+                    @Override
+                    public boolean retryRequest(HttpResponse response, int execCount, HttpContext context) {
+                        return false;
+                    }
+                })
+                .build();
+    }
+
+    /** ★追加: 楽天Books API 用の共有 RestClient（メッセージコンバータもここで1回だけ組み立てる） */
+    @Bean
+    public RestClient rakutenRestClient(
+            RestClient.Builder builder,
+            @Qualifier("rakutenHttpClient") CloseableHttpClient httpClient,
+            @Value("${rakuten.api.endpoint:https://app.rakuten.co.jp/services/api/BooksBook/Search/20170404}") String endpoint) {
+        return builder
+                .requestFactory(new HttpComponentsClientHttpRequestFactory(httpClient))
+                .baseUrl(endpoint)
+                .build();
+    }
+
+    // 共通: コネクションプール・タイムアウト・keep-alive・DNSキャッシュを設定したビルダー
+    private static HttpClientBuilder pooledClient(Duration connectTimeout, Duration readTimeout,
+            Duration poolTimeout, Duration keepAlive, int maxTotal, int maxPerRoute, Duration dnsCacheTtl) {
+
+        PoolingHttpClientConnectionManager pool = PoolingHttpClientConnectionManagerBuilder.create()
+                .setDnsResolver(new CachingDnsResolver(dnsCacheTtl, 1_000))
+                .setMaxConnTotal(maxTotal)
+                .setMaxConnPerRoute(maxPerRoute)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.of(connectTimeout))
+                        .setSocketTimeout(Timeout.of(readTimeout))
+                        // 相手側に切られている接続を掴まないよう、しばらく使っていないものは再検証
+                        .setValidateAfterInactivity(TimeValue.ofSeconds(2))
+                        .build())
+                .build();
+
+        return HttpClients.custom()
+                .setConnectionManager(pool)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.of(poolTimeout))
+                        .setResponseTimeout(Timeout.of(readTimeout))
+                        .setRedirectsEnabled(true)
+                        .build())
+                // サーバが Keep-Alive ヘッダで短く指定していればそちらを優先
+                .setKeepAliveStrategy((response, context) -> {
+                    TimeValue fromServer = DefaultConnectionKeepAliveStrategy.INSTANCE
+                            .getKeepAliveDuration(response, context);
+                    TimeValue max = TimeValue.of(keepAlive);
+                    return TimeValue.isPositive(fromServer) && fromServer.compareTo(max) < 0 ? fromServer : max;
+                })
+                .evictIdleConnections(TimeValue.of(keepAlive));
+    }
+}
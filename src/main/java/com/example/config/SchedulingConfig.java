@@ -0,0 +1,13 @@
+package com.example.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * 定期ジョブ（@Scheduled）を有効にする
+ * - CategoryReviewCountService.reconcile: カテゴリ別レビュー件数の突き合わせ
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
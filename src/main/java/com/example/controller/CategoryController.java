@@ -3,16 +3,22 @@ package com.example.controller;
 import java.util.List;
 import java.util.Optional;
 
-import org.springframework.data.domain.Sort;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
 
-import com.example.entity.Category;
-import com.example.entity.Review;
-import com.example.repository.CategoryRepository;
+import com.example.dto.KeysetPage;
+import com.example.dto.ReviewCard;
+import com.example.dto.ReviewCard.CategoryTag;
 import com.example.repository.ReviewRepository;
+import com.example.service.CategoryBitmapIndex;
+import com.example.service.CategoryFilterService;
+import com.example.service.CategoryReviewCountService;
+import com.example.service.CategorySnapshotService;
+import com.example.service.ReviewCardService;
 
 import lombok.RequiredArgsConstructor;
 
@@ -20,35 +26,74 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 public class CategoryController {
 
-    private final CategoryRepository categoryRepository;
+    // ★変更: カテゴリはスナップショットから（DB 参照なし）
+    private final CategorySnapshotService categorySnapshotService;
+    // ★追加: カテゴリ別の公開レビュー件数（事前集計を読むだけ）
+    private final CategoryReviewCountService categoryReviewCountService;
+    // ★追加: 複数カテゴリの絞り込み（ビットマップ。構築完了前は DB）
+    private final CategoryFilterService categoryFilterService;
     private final ReviewRepository reviewRepository;
+    private final ReviewCardService reviewCardService;
+
+    // 絞り込み結果の1ページの表示件数（トップ一覧と同じ）
+    @Value("${reviewboard.feed.page-size:20}")
+    private int pageSize;
 
     // カテゴリ一覧
     @GetMapping("/categories")
     public String categories(Model model) {
-        List<Category> categories = categoryRepository.findAll(
-                Sort.by(Sort.Direction.ASC, "categoryName"));
-        model.addAttribute("categories", categories);
+        model.addAttribute("categories", categorySnapshotService.findAllSorted());
+        model.addAttribute("categoryCounts", categoryReviewCountService.findAll());
         return "categories_index";
     }
 
+    // ★追加: 複数カテゴリでの絞り込み（すべて含む / いずれかを含む / 含まない）
+    //   条件の評価はビットマップ演算のみ。DB はページ分のカード組み立てだけ
+    //   ★変更: 起動直後でビットマップの構築が終わっていない間は、条件も DB で評価する（CategoryFilterService）
+    //   cursor（前ページ最後の review_id）によるキーセットページング
+    @GetMapping("/categories/filter")
+    public String filter(@RequestParam(name = "all", required = false) List<Integer> all,
+            @RequestParam(name = "any", required = false) List<Integer> any,
+            @RequestParam(name = "none", required = false) List<Integer> none,
+            @RequestParam(name = "cursor", required = false) Integer cursor,
+            Model model) {
+        CategoryBitmapIndex.Filter filter = new CategoryBitmapIndex.Filter(all, any, none);
+        model.addAttribute("categories", categorySnapshotService.findAllSorted());
+        model.addAttribute("all", filter.all());
+        model.addAttribute("any", filter.any());
+        model.addAttribute("none", filter.none());
+        model.addAttribute("cursor", cursor);
+
+        if (filter.isEmpty()) {
+            model.addAttribute("reviews", List.of());
+            return "category_filter";
+        }
+        CategoryFilterService.Result result = categoryFilterService.filter(filter, cursor, pageSize);
+        KeysetPage<Integer> page = result.page();
+        model.addAttribute("total", result.total());
+        model.addAttribute("reviews", reviewCardService.findCardsByIds(page.getItems()));
+        model.addAttribute("nextCursor", page.getNextCursor());
+        return "category_filter";
+    }
+
     // 各カテゴリのレビュー一覧（active=1 のみ）
     @GetMapping("/categories/{id}")
     public String categoryShow(@PathVariable("id") Integer id, Model model) {
-        Optional<Category> catOpt = categoryRepository.findById(id);
+        Optional<CategoryTag> catOpt = categorySnapshotService.find(id);
         if (catOpt.isEmpty()) {
             model.addAttribute("error", "カテゴリが見つかりませんでした。");
             return "categories_index";
         }
 
-        Category category = catOpt.get();
+        CategoryTag category = catOpt.get();
 
         // ★変更ポイント：
         // 以前: 単一カテゴリ外部キー
         //   findByCategory_CategoryIdAndActiveFlagTrueOrderByReviewIdDesc(id);
         // 今回: 多対多（review_category 経由）用メソッドを使用
-        List<Review> reviews =
-                reviewRepository.findActiveByCategoryOrderByReviewIdDesc(id);
+        // ★一覧表示用カードに変換（カードの列だけの射影。本文は抜粋のみ、カテゴリは一括取得）
+        List<ReviewCard> reviews = reviewCardService.toCards(
+                reviewRepository.findActiveCardRowsByCategory(id));
 
         model.addAttribute("category", category);
         model.addAttribute("reviews", reviews);
@@ -1,10 +1,18 @@
 package com.example.controller;
 
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 
+import com.example.dto.KeysetPage;
+import com.example.dto.ReviewCardRow;
 import com.example.repository.ReviewRepository;
+import com.example.service.ReviewCardService;
 
 import lombok.RequiredArgsConstructor;
 
@@ -13,12 +21,27 @@ import lombok.RequiredArgsConstructor;
 public class HomeController {
 
     private final ReviewRepository reviewRepository;
+    private final ReviewCardService reviewCardService;
+
+    // 1ページの表示件数（テーブル件数に関係なく / のコストを一定にする）
+    @Value("${reviewboard.feed.page-size:20}")
+    private int pageSize;
 
     // トップページ = レビュー一覧（active=1 のみ表示）
+    // ★変更: cursor（前ページ最後の review_id）によるキーセットページング
     @GetMapping("/")
-    public String top(Model model) {
-        model.addAttribute("reviews",
-                reviewRepository.findByActiveFlagTrueOrderByReviewIdDesc());
+    public String top(@RequestParam(name = "cursor", required = false) Integer cursor, Model model) {
+        // 次ページ有無の判定用に1件多く取得
+        Limit limit = Limit.of(pageSize + 1);
+        List<ReviewCardRow> fetched = (cursor == null)
+                ? reviewRepository.findActiveCardRows(limit)
+                : reviewRepository.findActiveCardRowsBefore(cursor, limit);
+
+        KeysetPage<ReviewCardRow> page = KeysetPage.of(fetched, pageSize, ReviewCardRow::getReviewId);
+        // ★一覧表示用カードに変換（カードの列だけの射影。本文は抜粋のみ、カテゴリは一括取得）
+        model.addAttribute("reviews", reviewCardService.toCards(page.getItems()));
+        model.addAttribute("cursor", cursor);
+        model.addAttribute("nextCursor", page.getNextCursor());
         return "index";
     }
 }
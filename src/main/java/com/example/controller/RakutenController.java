@@ -1,8 +1,9 @@
 package com.example.controller;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
-import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
@@ -12,17 +13,16 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.SessionAttribute;
 
-import com.example.entity.Category;
+import com.example.dto.ReviewCard.CategoryTag;
 import com.example.entity.Contents;
 import com.example.entity.Review;
 import com.example.entity.User;
 import com.example.form.RakutenReviewForm;
-import com.example.repository.CategoryRepository;
 import com.example.repository.ContentsRepository;
-import com.example.repository.ReviewRepository;
 import com.example.repository.UserRepository;
+import com.example.service.CategorySnapshotService;
 import com.example.service.RakutenBooksService;
-import com.example.service.RakutenBooksService.BookItem;
+import com.example.service.ReviewWriteService;
 import com.example.service.RakutenBooksService.ExternalApiUnavailableException;
 
 import jakarta.servlet.http.HttpSession;
@@ -39,10 +39,10 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 public class RakutenController {
 
-	private final CategoryRepository categoryRepository;
+	private final CategorySnapshotService categorySnapshotService;
 	private final RakutenBooksService rakutenBooksService;
 	private final ContentsRepository contentsRepository;
-	private final ReviewRepository reviewRepository;
+	private final ReviewWriteService reviewWriteService;
 	private final UserRepository userRepository;
 
 	// ==============================
@@ -50,13 +50,15 @@ public class RakutenController {
 	// ==============================
 
 	// カテゴリは常に供給
+	// ★変更: スナップショットから返す（リクエストごとの DB 参照なし）
 	@ModelAttribute("categories")
-	public List<Category> categories() {
-		return categoryRepository.findAll(Sort.by(Sort.Direction.ASC, "categoryName"));
+	public List<CategoryTag> categories() {
+		return categorySnapshotService.findAllSorted();
 	}
 
+	// ★変更: 検索は非同期。外部APIの待ち・再試行の間、リクエストスレッドを占有しない
 	@GetMapping("/review/book")
-	public String reviewBookGet(
+	public CompletableFuture<String> reviewBookGet(
 			@ModelAttribute("form") RakutenReviewForm form,
 			@RequestParam(name = "title", required = false) String titleParam,
 			Model model,
@@ -71,41 +73,61 @@ public class RakutenController {
 				? titleParam
 				: (form.getTitle() != null ? form.getTitle() : null);
 
-		if (title != null && !title.isBlank()) {
-			try {
-				List<BookItem> results = rakutenBooksService.searchByTitle(title, 10);
+		if (title == null || title.isBlank()) {
+			return CompletableFuture.completedFuture("review_compose_book");
+		}
+
+		return rakutenBooksService.searchByTitle(title, 10).handle((results, ex) -> {
+			if (ex == null) {
 				if (!results.isEmpty()) {
 					model.addAttribute("results", results);
 					model.addAttribute("message", "検索結果を表示しました。対象の本を1件選択してください。");
 				} else {
 					model.addAttribute("error", "該当する書籍が見つかりませんでした。");
 				}
-			} catch (ExternalApiUnavailableException e) { // 503等をユーザ向けメッセージに
+			} else {
+				rethrowUnlessUnavailable(ex);
+				// 503等をユーザ向けメッセージに
 				model.addAttribute("error", "現在、外部検索サービスが不安定です。時間をおいて再実行してください。");
 			}
-		}
-
-		return "review_compose_book";
+			return "review_compose_book";
+		});
 	}
 
 	@PostMapping("/review/book/pick")
-	public String pickBook(@ModelAttribute("form") RakutenReviewForm form, Model model) {
+	public CompletableFuture<String> pickBook(@ModelAttribute("form") RakutenReviewForm form, Model model) {
+
+		model.addAttribute("message", "選択した本をプレビューに反映しました。");
+		return showWithSearchResults(form.getTitle(), model);
+	}
 
-		if (form.getTitle() != null && !form.getTitle().isBlank()) {
-			try {
-				List<BookItem> results = rakutenBooksService.searchByTitle(form.getTitle(), 10);
+	// ★追加: 検索結果を付けて入力画面を再表示（入力エラー時など）。同じリクエスト内・TTL内はキャッシュ済みの結果を使う
+	// ★変更: 非同期。結果が揃った時点で画面を返す
+	private CompletableFuture<String> showWithSearchResults(String title, Model model) {
+		if (title == null || title.isBlank()) {
+			return CompletableFuture.completedFuture("review_compose_book");
+		}
+		return rakutenBooksService.searchByTitle(title, 10).handle((results, ex) -> {
+			if (ex == null) {
 				model.addAttribute("results", results);
-			} catch (ExternalApiUnavailableException e) {
+			} else {
+				rethrowUnlessUnavailable(ex);
 				model.addAttribute("error", "現在、外部検索サービスが不安定です。時間をおいて再実行してください。");
 			}
-		}
+			return "review_compose_book";
+		});
+	}
 
-		model.addAttribute("message", "選択した本をプレビューに反映しました。");
-		return "review_compose_book";
+	// 外部APIの一時障害以外（4xx 等）は従来どおりエラーとして上位へ
+	private static void rethrowUnlessUnavailable(Throwable ex) {
+		Throwable cause = RakutenBooksService.unwrap(ex);
+		if (!(cause instanceof ExternalApiUnavailableException)) {
+			throw cause instanceof RuntimeException re ? re : new CompletionException(cause);
+		}
 	}
 
 	@PostMapping("/review/book")
-	public String reviewBookPost(
+	public CompletableFuture<String> reviewBookPost(
 			@Valid @ModelAttribute("form") RakutenReviewForm form,
 			BindingResult binding,
 			@SessionAttribute(name = "userId", required = false) Integer userId,
@@ -116,77 +138,29 @@ public class RakutenController {
 				|| (form.getIsbn() != null && !form.getIsbn().isBlank());
 		if (!selected) {
 			model.addAttribute("error", "本が未選択です。検索結果から対象の本を1件選択してください。");
-			if (form.getTitle() != null && !form.getTitle().isBlank()) {
-				try {
-					List<BookItem> results = rakutenBooksService.searchByTitle(form.getTitle(), 10);
-					model.addAttribute("results", results);
-				} catch (ExternalApiUnavailableException e) {
-					model.addAttribute("error", "現在、外部検索サービスが不安定です。時間をおいて再実行してください。");
-				}
-			}
-			return "review_compose_book";
+			return showWithSearchResults(form.getTitle(), model);
 		}
 
 		if (binding.hasErrors()) {
 			model.addAttribute("error", "未入力の項目があります。");
-			if (form.getTitle() != null && !form.getTitle().isBlank()) {
-				try {
-					List<BookItem> results = rakutenBooksService.searchByTitle(form.getTitle(), 10);
-					model.addAttribute("results", results);
-				} catch (ExternalApiUnavailableException e) {
-					model.addAttribute("error", "現在、外部検索サービスが不安定です。時間をおいて再実行してください。");
-				}
-			}
-			return "review_compose_book";
+			return showWithSearchResults(form.getTitle(), model);
 		}
 		if (form.getRate() == null || form.getRate() < 1 || form.getRate() > 5) {
 			model.addAttribute("error", "評価は1〜5で入力してください。");
-			if (form.getTitle() != null && !form.getTitle().isBlank()) {
-				try {
-					List<BookItem> results = rakutenBooksService.searchByTitle(form.getTitle(), 10);
-					model.addAttribute("results", results);
-				} catch (ExternalApiUnavailableException e) {
-					model.addAttribute("error", "現在、外部検索サービスが不安定です。時間をおいて再実行してください。");
-				}
-			}
-			return "review_compose_book";
+			return showWithSearchResults(form.getTitle(), model);
 		}
 		if (form.getReviewTitle() == null || form.getReviewTitle().isBlank()) {
 			model.addAttribute("error", "レビュータイトルを入力してください。");
-			if (form.getTitle() != null && !form.getTitle().isBlank()) {
-				try {
-					List<BookItem> results = rakutenBooksService.searchByTitle(form.getTitle(), 10);
-					model.addAttribute("results", results);
-				} catch (ExternalApiUnavailableException e) {
-					model.addAttribute("error", "現在、外部検索サービスが不安定です。時間をおいて再実行してください。");
-				}
-			}
-			return "review_compose_book";
+			return showWithSearchResults(form.getTitle(), model);
 		}
 		if (form.getReviewText() == null || form.getReviewText().isBlank()) {
 			model.addAttribute("error", "レビュー本文を入力してください。");
-			if (form.getTitle() != null && !form.getTitle().isBlank()) {
-				try {
-					List<BookItem> results = rakutenBooksService.searchByTitle(form.getTitle(), 10);
-					model.addAttribute("results", results);
-				} catch (ExternalApiUnavailableException e) {
-					model.addAttribute("error", "現在、外部検索サービスが不安定です。時間をおいて再実行してください。");
-				}
-			}
-			return "review_compose_book";
+			return showWithSearchResults(form.getTitle(), model);
 		}
 		if (form.getCategoryIds() == null || form.getCategoryIds().isEmpty()) {
 			model.addAttribute("error", "カテゴリを1つ以上選択してください。");
 			// タイトルで再検索して結果を再表示
-			if (form.getTitle() != null && !form.getTitle().isBlank()) {
-				try {
-					List<BookItem> results = rakutenBooksService.searchByTitle(form.getTitle(), 10);
-					model.addAttribute("results", results);
-				} catch (ExternalApiUnavailableException e) {
-					model.addAttribute("error", "現在、外部検索サービスが不安定です。時間をおいて再実行してください。");
-				}
-			}
-			return "review_compose_book";
+			return showWithSearchResults(form.getTitle(), model);
 		}
 
 		// ユーザー解決
@@ -199,21 +173,13 @@ public class RakutenController {
 		}
 		if (user == null) {
 			model.addAttribute("error", "ログインが必要です。");
-			if (form.getTitle() != null && !form.getTitle().isBlank()) {
-				try {
-					List<BookItem> results = rakutenBooksService.searchByTitle(form.getTitle(), 10);
-					model.addAttribute("results", results);
-				} catch (ExternalApiUnavailableException e) {
-					model.addAttribute("error", "現在、外部検索サービスが不安定です。時間をおいて再実行してください。");
-				}
-			}
-			return "review_compose_book";
+			return showWithSearchResults(form.getTitle(), model);
 		}
 
 		// contents upsert
 		Contents contents = null;
 		if (form.getIsbn() != null && !form.getIsbn().isBlank()) {
-			contents = contentsRepository.findByBookIsbn(form.getIsbn());
+			contents = contentsRepository.findByIsbn(form.getIsbn()).orElse(null);
 		}
 		if (contents == null && form.getUrl() != null && !form.getUrl().isBlank()) {
 			contents = contentsRepository.findByContentsUrl(form.getUrl()).orElse(null);
@@ -228,7 +194,7 @@ public class RakutenController {
 			contents.setBookIsbn(form.getIsbn());
 			contents.setContentsUrl(form.getUrl());
 			contents.setContentsType(1); // 1=書籍
-			contents = contentsRepository.save(contents);
+			// ★変更: 保存はレビューと同じトランザクションでまとめて（ReviewWriteService.create）
 		}
 
 		// Review保存（複数カテゴリ対応）
@@ -244,27 +210,18 @@ public class RakutenController {
 		if (categoryIds == null || categoryIds.isEmpty()) {
 			model.addAttribute("error", "カテゴリを1つ以上選択してください。");
 			// 検索結果の再表示（今のコードでやっている処理）もここで呼び直す
-			if (form.getTitle() != null && !form.getTitle().isBlank()) {
-				try {
-					List<BookItem> results = rakutenBooksService.searchByTitle(form.getTitle(), 10);
-					model.addAttribute("results", results);
-				} catch (ExternalApiUnavailableException e) {
-					model.addAttribute("error", "現在、外部検索サービスが不安定です。時間をおいて再実行してください。");
-				}
-			}
-			return "review_compose_book";
+			return showWithSearchResults(form.getTitle(), model);
 		}
 
 		// ID → Categoryエンティティのセットに変換
-		var categories = new java.util.HashSet<Category>(
-				categoryRepository.findAllById(categoryIds));
-		r.setCategories(categories);
+		// ★変更: 存在チェックはスナップショットで行い、関連付けは参照（SELECT なし）で
+		r.setCategories(categorySnapshotService.references(categoryIds));
 		// --- ここまで ---
 
 		r.setActiveFlag(true);
-		reviewRepository.save(r);
+		reviewWriteService.create(r); // ★保存＋検索インデックス等へ通知
 
-		return "redirect:/mypage";
+		return CompletableFuture.completedFuture("redirect:/mypage");
 
 	}
 }
@@ -1,8 +1,9 @@
 package com.example.controller;
 
 import java.util.Optional;
+import java.util.stream.Collectors;
 
-import org.springframework.data.domain.Sort;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -10,10 +11,15 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 
+import com.example.entity.Category;
 import com.example.entity.Review;
 import com.example.entity.User;
-import com.example.repository.CategoryRepository;
 import com.example.repository.ReviewRepository;
+import com.example.service.CategorySnapshotService;
+import com.example.service.ContentsRatingService;
+import com.example.service.ReviewCardService;
+import com.example.service.ReviewSnapshot;
+import com.example.service.ReviewWriteService;
 
 import jakarta.servlet.http.HttpSession;
 import lombok.RequiredArgsConstructor;
@@ -22,9 +28,19 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 public class ReviewController {
 
+	// ★追加: 楽観ロックで競合したときの表示
+	private static final String CONFLICT_MESSAGE = "このレビューは他の画面で更新されました。最新の内容を確認してから編集し直してください。";
+
 	private final ReviewRepository reviewRepository;
 	// ★追加: 編集画面でカテゴリのプルダウンを出すために注入
-	private final CategoryRepository categoryRepository;
+	// ★変更: リポジトリではなくスナップショット（DB 参照なし）から
+	private final CategorySnapshotService categorySnapshotService;
+	// ★追加: 保存は ReviewWriteService 経由（検索インデックス等へ変更を通知）
+	private final ReviewWriteService reviewWriteService;
+	// ★追加: コンテンツ単位の評価集計（平均・分布）の参照
+	private final ContentsRatingService contentsRatingService;
+	// ★追加: 同じコンテンツの他レビューをカード（射影）で組み立てる
+	private final ReviewCardService reviewCardService;
 
 	// ★追加: 新規レビューの作成方式を選ぶ画面（本 or 本以外）
 	// 画面: review_new.html（本 or 本以外の2ボタンで /review/book と /review/others へ遷移）
@@ -61,12 +77,17 @@ public class ReviewController {
 		// ・active=1 のみ
 		// ・自身のレビューIDと自身のユーザーIDは除外
 		// ===============================================
-		var otherReviews = reviewRepository.findActiveBySameContentsOtherUsers(
+		// ★変更: id だけ取り、一覧カードと同じく射影でまとめて組み立てる（他レビューの本文は読まない）
+		var otherReviewIds = reviewRepository.findActiveIdsBySameContentsOtherUsers(
 				review.getContents().getContentsId(),
 				review.getReviewId(),
 				review.getUser() != null ? review.getUser().getId() : -1 // null安全
 		);
-		model.addAttribute("otherReviews", otherReviews);
+		model.addAttribute("otherReviews", reviewCardService.findCardsByIds(otherReviewIds));
+
+		// ★追加: このコンテンツの評価集計（平均・評価分布）。集計済みの1行を読むだけ
+		model.addAttribute("ratingSummary",
+				contentsRatingService.find(review.getContents().getContentsId()));
 
 		return "review_show";
 	}
@@ -75,7 +96,10 @@ public class ReviewController {
 	// レビュー編集（GET）
 	// ==============================
 	@GetMapping("/reviews/{id}/edit")
-	public String editForm(@PathVariable("id") Integer id, HttpSession session, Model model) {
+	public String editForm(@PathVariable("id") Integer id,
+			// ★追加: 保存時に楽観ロックで競合したときのリダイレクト元表示用
+			@RequestParam(name = "conflict", defaultValue = "false") boolean conflict,
+			HttpSession session, Model model) {
 		User loginUser = (User) session.getAttribute("loginUser");
 		if (loginUser == null) {
 			// 未ログインガード
@@ -95,14 +119,11 @@ public class ReviewController {
 			return "index";
 		}
 
-		// 編集フォーム用にそのままエンティティを渡す（簡易）
-		model.addAttribute("review", review);
-
-		// カテゴリ一覧
-		model.addAttribute("categories",
-				categoryRepository.findAll(Sort.by(Sort.Direction.ASC, "categoryName")));
-
-		return "review_edit";
+		if (conflict) {
+			model.addAttribute("error", CONFLICT_MESSAGE);
+		}
+		// 編集フォーム用にそのままエンティティを渡す（簡易）＋カテゴリ一覧
+		return editForm(review, model);
 	}
 
 	// ==============================
@@ -115,6 +136,8 @@ public class ReviewController {
 			@RequestParam("reviewText") String reviewText,
 			// ★ここを単体 category → 複数 categoryIds に変更
 			@RequestParam(name = "categoryIds", required = false) java.util.List<Integer> categoryIds,
+			// ★追加: 編集画面を開いた時点のバージョン（楽観ロック）
+			@RequestParam(name = "version", required = false) Integer version,
 			HttpSession session,
 			Model model) {
 
@@ -136,57 +159,65 @@ public class ReviewController {
 			return "index";
 		}
 
+		// ★追加: 編集画面を開いた後に他の画面で更新されていたら、上書きせず最新の内容で編集画面を出し直す
+		if (version != null && !version.equals(review.getVersion())) {
+			model.addAttribute("error", CONFLICT_MESSAGE);
+			return editForm(review, model);
+		}
+
 		// ===== 入力バリデーション =====
 		if (rate == null || rate < 1 || rate > 5) {
 			model.addAttribute("error", "評価は1〜5で入力してください。");
-			model.addAttribute("review", review);
-			model.addAttribute("categories",
-					categoryRepository.findAll(Sort.by(Sort.Direction.ASC, "categoryName")));
-			return "review_edit";
+			return editForm(review, model);
 		}
 
 		if (reviewTitle == null || reviewTitle.isBlank()) {
 			model.addAttribute("error", "レビュータイトルを入力してください。");
-			model.addAttribute("review", review);
-			model.addAttribute("categories",
-					categoryRepository.findAll(Sort.by(Sort.Direction.ASC, "categoryName")));
-			return "review_edit";
+			return editForm(review, model);
 		}
 
 		if (reviewText == null || reviewText.isBlank()) {
 			model.addAttribute("error", "レビュー本文を入力してください。");
-			model.addAttribute("review", review);
-			model.addAttribute("categories",
-					categoryRepository.findAll(Sort.by(Sort.Direction.ASC, "categoryName")));
-			return "review_edit";
+			return editForm(review, model);
 		}
 
 		// ★カテゴリ：複数必須にするならここでチェック
 		if (categoryIds == null || categoryIds.isEmpty()) {
 			model.addAttribute("error", "カテゴリを1つ以上選択してください。");
-			model.addAttribute("review", review);
-			model.addAttribute("categories",
-					categoryRepository.findAll(Sort.by(Sort.Direction.ASC, "categoryName")));
-			return "review_edit";
+			return editForm(review, model);
 		}
 
 		// ===== 更新処理 =====
+		ReviewSnapshot before = ReviewSnapshot.of(review); // 変更前の状態を控えておく
 		review.setRate(rate);
 		review.setReviewTitle(reviewTitle);
 		review.setReviewText(reviewText);
 
-		// いったん全部クリアしてから付け直す
-		review.getCategories().clear();
-		if (categoryIds != null && !categoryIds.isEmpty()) {
-			var selectedCategories = categoryRepository.findAllById(categoryIds);
-			review.getCategories().addAll(selectedCategories);
-		}
+		// ★変更: 全部クリアして付け直すのをやめ、付け外しの差分だけを書く
+		// 存在チェックはスナップショットで行い、関連付けは参照（SELECT なし）で
+		review.replaceCategories(categorySnapshotService.references(categoryIds));
 
-		reviewRepository.save(review);
+		try {
+			reviewWriteService.update(review, before);
+		} catch (ObjectOptimisticLockingFailureException e) {
+			// 上のバージョン確認と保存の間に他の画面で更新された
+			return "redirect:/reviews/" + id + "/edit?conflict=true";
+		}
 
 		return "redirect:/reviews/" + id;
 	}
 
+	// 編集画面の表示（初期表示・入力エラー時の再表示で共通）
+	// カテゴリ一覧はスナップショットから、選択状態は id の集合で渡す
+	private String editForm(Review review, Model model) {
+		model.addAttribute("review", review);
+		model.addAttribute("categories", categorySnapshotService.findAllSorted());
+		model.addAttribute("selectedCategoryIds", review.getCategories().stream()
+				.map(Category::getCategoryId)
+				.collect(Collectors.toSet()));
+		return "review_edit";
+	}
+
 	// ==============================
 	// レビュー論理削除（POST）
 	// 本人のみ可。active_flag = 0 に更新。
@@ -209,8 +240,9 @@ public class ReviewController {
 		}
 
 		// 論理削除
+		ReviewSnapshot before = ReviewSnapshot.of(review);
 		review.setActiveFlag(false);
-		reviewRepository.save(review);
+		reviewWriteService.update(review, before);
 
 		return "redirect:/mypage";
 	}
@@ -3,13 +3,16 @@ package com.example.controller;
 import java.util.Collections;
 import java.util.List;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 
-import com.example.entity.Review;
-import com.example.repository.ReviewRepository;
+import com.example.dto.ReviewCard;
+import com.example.service.ReviewCardService;
+import com.example.service.ReviewSearchIndex;
+import com.example.service.ReviewSearchService;
 
 import lombok.RequiredArgsConstructor;
 
@@ -17,24 +20,45 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 public class SearchController {
 
-    private final ReviewRepository reviewRepository;
+    private final ReviewSearchService reviewSearchService;
+    private final ReviewCardService reviewCardService;
+
+    // ページ番号リンクを現在ページの前後何ページまで出すか
+    private static final int PAGE_LINK_RADIUS = 4;
+
+    // 検索結果の1ページ表示件数
+    @Value("${reviewboard.search.page-size:20}")
+    private int pageSize;
 
     // 呼び出し先を searchByKeywordActive(...) に変更（active=1 限定）
+    // ★変更: ReviewSearchService 経由（転置インデックス / LIKE を設定で切替）＋ページング
     @GetMapping("/search")
-    public String search(@RequestParam(name = "keyword", required = false) String keyword, Model model) {
+    public String search(@RequestParam(name = "keyword", required = false) String keyword,
+            @RequestParam(name = "page", defaultValue = "1") int page,
+            Model model) {
         if (keyword == null || keyword.isBlank()) {
             // 空検索時もテンプレートが期待する属性を必ず供給
             model.addAttribute("keyword", ""); //
             model.addAttribute("reviews", Collections.emptyList()); // null回避
             model.addAttribute("totalCount", 0); // 集計行で使用
+            model.addAttribute("currentPage", 1);
+            model.addAttribute("totalPages", 0);
             model.addAttribute("error", "キーワードを入力してください。");
             return "search_results";
         }
-        // active=1 のみ対象
-        List<Review> reviews = reviewRepository.searchByKeywordActive(keyword);
+        // active=1 のみ対象（ランキング順の review_id 1ページ分 → カードに変換）
+        int currentPage = Math.max(page, 1);
+        ReviewSearchIndex.Hits hits = reviewSearchService.search(keyword, currentPage, pageSize);
+        List<ReviewCard> reviews = reviewCardService.findCardsByIds(hits.reviewIds);
         model.addAttribute("keyword", keyword);
         model.addAttribute("reviews", reviews);
-        model.addAttribute("totalCount", reviews.size()); // テンプレの集計表示向け
+        model.addAttribute("totalCount", hits.total); // テンプレの集計表示向け
+        model.addAttribute("currentPage", currentPage);
+        int totalPages = (hits.total + pageSize - 1) / pageSize;
+        model.addAttribute("totalPages", totalPages);
+        // ページ番号リンクは現在ページの前後だけ出す
+        model.addAttribute("startPage", Math.max(1, currentPage - PAGE_LINK_RADIUS));
+        model.addAttribute("endPage", Math.max(1, Math.min(totalPages, currentPage + PAGE_LINK_RADIUS)));
         return "search_results";
     }
 }
@@ -1,8 +1,12 @@
 package com.example.controller;
 
+import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
-import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.annotation.Validated;
@@ -10,16 +14,20 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import com.example.entity.Category;
+import com.example.dto.LinkPreview;
+import com.example.dto.ReviewCard.CategoryTag;
 import com.example.entity.Contents;
 import com.example.entity.Review;
 import com.example.entity.User;
 import com.example.form.OthersReviewForm;
-import com.example.repository.CategoryRepository;
 import com.example.repository.ContentsRepository;
-import com.example.repository.ReviewRepository;
+import com.example.service.CategorySnapshotService;
 import com.example.service.ContentMetaService;
+import com.example.service.LinkPreviewService;
+import com.example.service.ReviewWriteService;
 
 import jakarta.servlet.http.HttpSession;
 
@@ -29,22 +37,26 @@ public class TitleController {
 
 	private final ContentsRepository contentsRepository;
 	private final ContentMetaService contentMetaService;
-	private final ReviewRepository reviewRepository;
-	private final CategoryRepository categoryRepository;
+	private final ReviewWriteService reviewWriteService;
+	private final CategorySnapshotService categorySnapshotService;
+	private final LinkPreviewService linkPreviewService;
 
 	public TitleController(ContentsRepository contentsRepository,
 			ContentMetaService contentMetaService,
-			ReviewRepository reviewRepository,
-			CategoryRepository categoryRepository) {
+			ReviewWriteService reviewWriteService,
+			CategorySnapshotService categorySnapshotService,
+			LinkPreviewService linkPreviewService) {
 		this.contentsRepository = contentsRepository;
 		this.contentMetaService = contentMetaService;
-		this.reviewRepository = reviewRepository;
-		this.categoryRepository = categoryRepository;
+		this.reviewWriteService = reviewWriteService;
+		this.categorySnapshotService = categorySnapshotService;
+		this.linkPreviewService = linkPreviewService;
 	}
 
+	// ★変更: カテゴリはスナップショットから供給（リクエストごとの DB 参照なし）
 	@ModelAttribute("categories")
-	public List<Category> categories() {
-		return categoryRepository.findAll(Sort.by(Sort.Direction.ASC, "categoryName"));
+	public List<CategoryTag> categories() {
+		return categorySnapshotService.findAllSorted();
 	}
 
 	@GetMapping("/review")
@@ -80,6 +92,40 @@ public class TitleController {
 		return "review_compose_others";
 	}
 
+	// ★追加: 複数URLのまとめてプレビュー（Server-Sent Events）
+	// 取得が終わった順に "preview" イベント（LinkPreview の JSON）を送り、全件終わったら "done" を送る
+	@GetMapping(value = "/review/others/previews", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	@ResponseBody
+	public ResponseEntity<SseEmitter> othersPreviews(
+			@RequestParam(value = "url", required = false) List<String> urls,
+			HttpSession session) {
+
+		if (session == null || session.getAttribute("loginUser") == null) {
+			return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+		}
+
+		SseEmitter emitter = new SseEmitter(60_000L);
+		List<CompletableFuture<LinkPreview>> futures = linkPreviewService.fetchAll(urls == null ? List.of() : urls);
+		// "done" が最後の "preview" より先に出ないよう、送信完了を待ち合わせる
+		CompletableFuture<?>[] sent = futures.stream()
+				.map(f -> f.thenAccept(p -> send(emitter, "preview", p)))
+				.toArray(CompletableFuture[]::new);
+		CompletableFuture.allOf(sent)
+				.whenComplete((v, ex) -> {
+					send(emitter, "done", futures.size());
+					emitter.complete();
+				});
+		return ResponseEntity.ok(emitter);
+	}
+
+	private static void send(SseEmitter emitter, String name, Object data) {
+		try {
+			emitter.send(SseEmitter.event().name(name).data(data, MediaType.APPLICATION_JSON));
+		} catch (IOException | IllegalStateException e) {
+			// 画面を閉じられた等。残りの取得結果は捨てる
+		}
+	}
+
 	// POST: 保存（contents再利用 or 新規作成 → review作成）
 	@PostMapping("/review/others")
 	public String othersPost(@ModelAttribute("form") OthersReviewForm form, Model model, HttpSession session) {
@@ -94,6 +140,7 @@ public class TitleController {
 			ContentMetaService.Meta m = contentMetaService.fetch(form.url);
 
 			// contentsはURL一意で再利用
+			// ★変更: 新規のときはここでは保存せず、レビューと同じトランザクションでまとめて INSERT（ReviewWriteService）
 			Contents contents = contentsRepository.findByContentsUrl(m.url)
 					.orElseGet(() -> {
 						Contents c = new Contents();
@@ -102,7 +149,7 @@ public class TitleController {
 						c.setThumbnail(m.imageUrl); // フィールド流用
 						c.setBookIsbn(null);
 						c.setContentsType(2); // 2=Web記事/動画
-						return contentsRepository.save(c);
+						return c;
 					});
 
 			// review作成
@@ -118,27 +165,21 @@ public class TitleController {
 			List<Integer> categoryIds = form.getCategoryIds();
 			if (categoryIds == null || categoryIds.isEmpty()) {
 				model.addAttribute("error", "カテゴリを1つ以上選択してください。");
-				// カテゴリ一覧を再セット（エラー時は必要）
-				model.addAttribute("categories",
-						categoryRepository.findAll(Sort.by(Sort.Direction.ASC, "categoryName")));
-				return "review_compose_others";
+				return "review_compose_others"; // カテゴリ一覧は @ModelAttribute で供給済み
 			}
 
-			var categories = new java.util.HashSet<Category>(
-					categoryRepository.findAllById(categoryIds));
-			r.setCategories(categories);
+			// ★変更: 存在チェックはスナップショットで行い、関連付けは参照（SELECT なし）で
+			r.setCategories(categorySnapshotService.references(categoryIds));
 			// --- ここまで ---
 
-			reviewRepository.save(r);
+			reviewWriteService.create(r); // ★保存＋検索インデックス等へ通知
 
 			return "redirect:/mypage";
 
 		} catch (Exception e) {
 			model.addAttribute("error", "保存に失敗したよ… 入力内容とURLを確認してね");
 		}
-		// 再表示用にカテゴリ一覧を毎回入れておく（エラー時のみ到達）
-		model.addAttribute("categories",
-				categoryRepository.findAll(Sort.by(Sort.Direction.ASC, "categoryName")));
+		// 再表示用のカテゴリ一覧は @ModelAttribute で供給済み（エラー時のみ到達）
 		return "review_compose_others";
 	}
 }
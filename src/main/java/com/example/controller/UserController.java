@@ -3,7 +3,8 @@ package com.example.controller;
 import java.util.List;
 import java.util.Optional;
 
-import org.springframework.data.domain.Sort;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -11,9 +12,11 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 
-import com.example.entity.Review;
+import com.example.dto.KeysetPage;
+import com.example.dto.ReviewCardRow;
 import com.example.entity.User;
 import com.example.repository.ReviewRepository;
+import com.example.service.ReviewCardService;
 import com.example.service.UserService;
 
 import jakarta.servlet.http.HttpSession;
@@ -25,23 +28,24 @@ public class UserController {
 
 	private final ReviewRepository reviewRepository;
 	private final UserService userService; // プロフィール更新などで使用
+	private final ReviewCardService reviewCardService;
+
+	// ユーザー別レビュー一覧の1ページ表示件数
+	@Value("${reviewboard.profile.page-size:20}")
+	private int pageSize;
 
 	@GetMapping("/mypage")
-	public String mypage(HttpSession session, Model model) {
+	public String mypage(@RequestParam(name = "cursor", required = false) Integer cursor,
+			HttpSession session, Model model) {
 		User user = (User) session.getAttribute("loginUser");
 		if (user == null) {
 			return "redirect:/login"; // 未ログインならログイン画面へ
 		}
 
 		// 自分のレビューかつ active=1 のみ表示
-		List<Review> all = reviewRepository.findAll(Sort.by(Sort.Direction.DESC, "reviewId"));
-		List<Review> mine = all.stream()
-				.filter(r -> r.getUser() != null && r.getUser().getId().equals(user.getId()))
-				.filter(r -> Boolean.TRUE.equals(r.getActiveFlag()))
-				.toList();
-
+		// ★変更: 全件ロード＋Java側フィルタをやめ、ユーザー別インデックスでキーセットページング
 		model.addAttribute("user", user);
-		model.addAttribute("reviews", mine);
+		addUserReviews(user.getId(), cursor, model);
 		return "mypage";
 	}
 
@@ -49,7 +53,9 @@ public class UserController {
 	// ユーザー詳細（公開ページ）
 	// ============================
 	@GetMapping("/user/{id}")
-	public String userShow(@PathVariable("id") Integer id, HttpSession session, Model model) {
+	public String userShow(@PathVariable("id") Integer id,
+			@RequestParam(name = "cursor", required = false) Integer cursor,
+			HttpSession session, Model model) {
 		// 本人ならマイページへリダイレクト
 		User loginUser = (User) session.getAttribute("loginUser");
 		if (loginUser != null && loginUser.getId().equals(id)) {
@@ -63,18 +69,25 @@ public class UserController {
 		}
 		User target = opt.get();
 
-		// 該当ユーザーの active=1 レビュー一覧
-		List<Review> all = reviewRepository.findAll(Sort.by(Sort.Direction.DESC, "reviewId"));
-		List<Review> theirs = all.stream()
-				.filter(r -> r.getUser() != null && r.getUser().getId().equals(target.getId()))
-				.filter(r -> Boolean.TRUE.equals(r.getActiveFlag()))
-				.toList();
-
+		// 該当ユーザーの active=1 レビュー一覧（★キーセットページング）
 		model.addAttribute("target", target);
-		model.addAttribute("reviews", theirs);
+		addUserReviews(target.getId(), cursor, model);
 		return "user_show";
 	}
 
+	// ユーザー別 active=1 レビューを review_id 降順で1ページ分カードにして詰める
+	private void addUserReviews(Integer userId, Integer cursor, Model model) {
+		Limit limit = Limit.of(pageSize + 1); // 次ページ有無の判定用に1件多く取得
+		List<ReviewCardRow> fetched = (cursor == null)
+				? reviewRepository.findActiveCardRowsByUser(userId, limit)
+				: reviewRepository.findActiveCardRowsByUserBefore(userId, cursor, limit);
+
+		KeysetPage<ReviewCardRow> page = KeysetPage.of(fetched, pageSize, ReviewCardRow::getReviewId);
+		model.addAttribute("reviews", reviewCardService.toCards(page.getItems()));
+		model.addAttribute("cursor", cursor);
+		model.addAttribute("nextCursor", page.getNextCursor());
+	}
+
 	// ==========================================
 	// プロフィール編集（GET）
 	// /user/edit/{id}  自分以外は /mypage に戻す
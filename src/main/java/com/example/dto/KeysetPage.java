@@ -0,0 +1,44 @@
+package com.example.dto;
+
+import java.util.List;
+import java.util.function.Function;
+
+import lombok.Getter;
+
+/**
+ * キーセット（カーソル）方式の1ページ分の結果
+ * - items      : 表示する行（最大 pageSize 件）
+ * - nextCursor : 次ページの起点となるキー（この値「未満」を次に取得する）。次ページが無ければ null
+ *
+ * リポジトリからは pageSize + 1 件取得し、余分な1件の有無で次ページ判定する。
+ * OFFSET を使わないため、何ページ目でもコストは一定。
+ */
+@Getter
+public class KeysetPage<T> {
+
+    private final List<T> items;
+    private final Integer nextCursor;
+
+    private KeysetPage(List<T> items, Integer nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+
+    /**
+     * pageSize + 1 件で取得した結果から1ページを組み立てる
+     * @param fetched  キー降順で最大 pageSize + 1 件
+     * @param pageSize 1ページの表示件数
+     * @param keyOf    行からキー（review_id 等）を取り出す関数
+     */
+    public static <T> KeysetPage<T> of(List<T> fetched, int pageSize, Function<T, Integer> keyOf) {
+        if (fetched.size() <= pageSize) {
+            return new KeysetPage<>(fetched, null);
+        }
+        List<T> page = fetched.subList(0, pageSize);
+        return new KeysetPage<>(page, keyOf.apply(page.get(pageSize - 1)));
+    }
+}
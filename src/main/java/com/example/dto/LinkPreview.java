@@ -0,0 +1,40 @@
+package com.example.dto;
+
+import lombok.Getter;
+
+/**
+ * まとめてプレビュー（/review/others/previews）で1件ずつ返す結果
+ * - index は送信された URL の並び順（結果は取得が終わった順に届くため）
+ * - 失敗時は error に理由が入り、url は入力値のまま
+ */
+@Getter
+public class LinkPreview {
+
+    private final int index;
+    private final String input;
+    private final String url;
+    private final String title;
+    private final String imageUrl;
+    private final String error;
+
+    private LinkPreview(int index, String input, String url, String title, String imageUrl, String error) {
+        this.index = index;
+        this.input = input;
+        this.url = url;
+        this.title = title;
+        this.imageUrl = imageUrl;
+        this.error = error;
+    }
+
+    public static LinkPreview success(int index, String input, String url, String title, String imageUrl) {
+        return new LinkPreview(index, input, url, title, imageUrl, null);
+    }
+
+    public static LinkPreview failure(int index, String input, String error) {
+        return new LinkPreview(index, input, input, null, null, error);
+    }
+
+    public boolean isOk() {
+        return error == null;
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * 一覧画面（トップ / カテゴリ別 / 検索結果 / ユーザー別）用のレビューカード
+ * - テンプレートから LAZY 関連（r.user / r.contents / r.categories）を辿らせないための読み取り専用モデル
+ * - 必要な値はすべて ReviewCardService が固定回数のクエリで詰める
+ */
+@Getter
+@Setter
+public class ReviewCard {
+
+    private Integer reviewId;
+    private String reviewTitle;
+    private Integer rate;
+    // ★変更: 本文全体ではなく保存時に作った抜粋（review_excerpt）
+    private String reviewExcerpt;
+
+    // 投稿者
+    private Integer userId;
+    private String username;
+
+    // 対象コンテンツ
+    private Integer contentsId;
+    private String contentsTitle;
+    private String thumbnail;
+
+    // 対象コンテンツの評価集計（contents_rating_summary。レビューが無ければ 0件）
+    private double contentsAverageRate;
+    private int contentsReviewCount;
+
+    // 複数カテゴリ
+    private List<CategoryTag> categories = new ArrayList<>();
+
+    /** カード上のカテゴリ表示用（id と名前だけ） */
+    @Getter
+    public static class CategoryTag {
+        private final Integer categoryId;
+        private final String categoryName;
+
+        public CategoryTag(Integer categoryId, String categoryName) {
+            this.categoryId = categoryId;
+            this.categoryName = categoryName;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.dto;
+
+import lombok.Getter;
+
+/**
+ * 一覧カード用の1行（review + users + contents からカードに出す列だけ）
+ * - リポジトリの JPQL コンストラクタ式（SELECT new ...）で直接作る。Review エンティティは作らない
+ * - 本文は LONGTEXT の review_text ではなく抜粋（review_excerpt）だけを持つ
+ */
+@Getter
+public class ReviewCardRow {
+
+    private final Integer reviewId;
+    private final String reviewTitle;
+    private final Integer rate;
+    private final String reviewExcerpt;
+    private final Integer userId;
+    private final String username;
+    private final Integer contentsId;
+    private final String contentsTitle;
+    private final String thumbnail;
+
+    public ReviewCardRow(Integer reviewId, String reviewTitle, Integer rate, String reviewExcerpt,
+            Integer userId, String username, Integer contentsId, String contentsTitle, String thumbnail) {
+        this.reviewId = reviewId;
+        this.reviewTitle = reviewTitle;
+        this.rate = rate;
+        this.reviewExcerpt = reviewExcerpt;
+        this.userId = userId;
+        this.username = username;
+        this.contentsId = contentsId;
+        this.contentsTitle = contentsTitle;
+        this.thumbnail = thumbnail;
+    }
+}
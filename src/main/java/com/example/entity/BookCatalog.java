@@ -0,0 +1,43 @@
+package com.example.entity;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * 楽天Books API から取得した書籍のローカル写し（ISBN-13 単位）
+ * - 書き込みは BookCatalogRepository#upsert のみ（検索用の title_ngrams 列もそこで設定する）
+ * - fetched_at は楽天から最後に取得した時刻。古いものはローカル検索の対象にしない
+ */
+@Entity
+@Table(name = "book_catalog")
+@Getter
+@Setter
+public class BookCatalog {
+
+    // 正規化済み ISBN-13（IsbnNormalizer）
+    @Id
+    @Column(name = "isbn13", length = 13)
+    private String isbn13;
+
+    @Column(name = "title", nullable = false, length = 512)
+    private String title;
+
+    // 前方一致用の正規化タイトル（NgramTokenizer.normalize）
+    @Column(name = "title_norm", nullable = false, length = 512)
+    private String titleNorm;
+
+    @Column(name = "item_url", length = 2048)
+    private String itemUrl;
+
+    @Column(name = "thumbnail", length = 4096)
+    private String thumbnail;
+
+    @Column(name = "fetched_at", nullable = false)
+    private LocalDateTime fetchedAt;
+}
@@ -0,0 +1,32 @@
+package com.example.entity;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * 楽天で実際に検索したクエリと、その結果の並び（ISBN-13 のカンマ区切り）
+ * - 同じ検索が来たら、楽天の結果をそのままの順序でローカルから返せる
+ */
+@Entity
+@Table(name = "book_catalog_query")
+@Getter
+@Setter
+public class BookCatalogQuery {
+
+    // 正規化タイトル + "#" + 件数（RakutenBooksService のキャッシュキーと同じ）
+    @Id
+    @Column(name = "query_key", length = 600)
+    private String queryKey;
+
+    @Column(name = "isbn_list", nullable = false, length = 1024)
+    private String isbnList;
+
+    @Column(name = "fetched_at", nullable = false)
+    private LocalDateTime fetchedAt;
+}
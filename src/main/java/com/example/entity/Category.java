@@ -3,18 +3,30 @@ package com.example.entity;
 import java.util.HashSet;
 import java.util.Set;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
+import com.example.service.CategoryChangeListener;
+
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
 
 @Entity
 @Table(name = "category")
+// ★追加: 変更時にカテゴリのスナップショット（CategorySnapshotService）を捨てる
+@EntityListeners(CategoryChangeListener.class)
+// ★追加: 2次キャッシュ（領域の件数上限・有効期限は application.conf）
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Getter
 @Setter
 public class Category {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // ★変更: IDENTITY → シーケンス採番（採番の考え方は Review の id を参照）
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "category_seq")
+    @SequenceGenerator(name = "category_seq", sequenceName = "category_seq", allocationSize = 50)
     @Column(name = "category_id")
     private Integer categoryId;
 
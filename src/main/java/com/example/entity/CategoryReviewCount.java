@@ -0,0 +1,27 @@
+package com.example.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * カテゴリ単位の公開レビュー件数（active=1 のレビューのみ）
+ * - レビューの作成・編集・カテゴリ変更・論理削除と同じトランザクションで差分更新する（CategoryReviewCountService）
+ * - カテゴリ一覧は集計クエリを投げず、この表を読むだけ
+ */
+@Entity
+@Table(name = "category_review_count")
+@Getter
+@Setter
+public class CategoryReviewCount {
+
+    @Id
+    @Column(name = "category_id")
+    private Integer categoryId;
+
+    @Column(name = "review_count", nullable = false)
+    private int reviewCount;
+}
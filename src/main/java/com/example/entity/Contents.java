@@ -1,28 +1,47 @@
 package com.example.entity;
 
+import com.example.util.IsbnNormalizer;
+import com.example.util.UrlCanonicalizer;
+
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import jakarta.persistence.UniqueConstraint;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 
 @Entity
-// タイトルのユニーク制約は撤廃済み。URLのみユニークを維持。
+// タイトルのユニーク制約は撤廃済み。
+// ★変更: URL は正規化した URL のハッシュ（固定長32バイト）でユニークにする（VARCHAR(2048) の索引は廃止）
+// ★追加: 正規化した ISBN-13 もユニーク（ISBN-10 / ハイフン付きの同じ本を1行にまとめる）
 @Table(name = "contents", uniqueConstraints = {
-        @UniqueConstraint(name = "uk_contents_url", columnNames = "contents_url")
+        @UniqueConstraint(name = "uk_contents_url_hash", columnNames = "contents_url_hash"),
+        @UniqueConstraint(name = "uk_contents_book_isbn13", columnNames = "book_isbn13")
 })
+// ★追加: 2次キャッシュ（レビュー詳細・編集で r.contents を辿るたびに DB を読まない）
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Getter
 @Setter
 public class Contents {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // ★変更: IDENTITY → シーケンス採番（採番の考え方は Review の id を参照）
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "contents_seq")
+    @SequenceGenerator(name = "contents_seq", sequenceName = "contents_seq", allocationSize = 50)
     @Column(name = "contents_id")
     private Integer contentsId;
 
@@ -32,6 +51,11 @@ public class Contents {
     @Column(name = "contents_url", nullable = false, length = 2048)
     private String contentsUrl;
 
+    // ★追加: UrlCanonicalizer で正規化した contentsUrl の SHA-256。保存時に自動設定する（直接は設定しない）
+    @Setter(AccessLevel.NONE)
+    @Column(name = "contents_url_hash", length = 32)
+    private byte[] contentsUrlHash;
+
     @NotBlank
     @Size(min = 1, max = 512)
     // @Lob
@@ -48,6 +72,19 @@ public class Contents {
     @Column(name = "book_isbn", length = 128)
     private String bookIsbn;
 
+    // ★追加: 検索キー用の ISBN-13（数値）。bookIsbn から保存時に自動設定する（直接は設定しない）
+    @Setter(AccessLevel.NONE)
+    @Column(name = "book_isbn13")
+    private Long bookIsbn13;
+
     @Column(name = "contents_type") //1=book,2=それ以外
     private Integer contentsType;
+
+    // ★追加: 書き込み経路で必ず検索キーを作る（ISBN として不正なら null = キー無し）
+    @PrePersist
+    @PreUpdate
+    void normalizeKeys() {
+        contentsUrlHash = UrlCanonicalizer.hash(contentsUrl);
+        bookIsbn13 = IsbnNormalizer.toIsbn13Number(bookIsbn);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,79 @@
+package com.example.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * コンテンツ単位の評価集計（active=1 のレビューのみ）
+ * - レビューの作成・編集・論理削除と同じトランザクションで差分更新する（ContentsRatingService）
+ * - 表示側は集計クエリを投げず、この1行を読むだけ
+ */
+@Entity
+@Table(name = "contents_rating_summary")
+@Getter
+@Setter
+public class ContentsRatingSummary {
+
+    @Id
+    @Column(name = "contents_id")
+    private Integer contentsId;
+
+    @Column(name = "review_count", nullable = false)
+    private int reviewCount;
+
+    @Column(name = "rate_sum", nullable = false)
+    private int rateSum;
+
+    // 評価ごとの件数（ヒストグラム）
+    @Column(name = "rate_1", nullable = false)
+    private int rate1;
+
+    @Column(name = "rate_2", nullable = false)
+    private int rate2;
+
+    @Column(name = "rate_3", nullable = false)
+    private int rate3;
+
+    @Column(name = "rate_4", nullable = false)
+    private int rate4;
+
+    @Column(name = "rate_5", nullable = false)
+    private int rate5;
+
+    /** レビューが1件も無いコンテンツ用の空集計 */
+    public static ContentsRatingSummary empty(Integer contentsId) {
+        ContentsRatingSummary s = new ContentsRatingSummary();
+        s.setContentsId(contentsId);
+        return s;
+    }
+
+    /** 平均評価（0件なら 0） */
+    @Transient
+    public double getAverage() {
+        return reviewCount == 0 ? 0.0 : (double) rateSum / reviewCount;
+    }
+
+    /** 評価 star（1〜5）の件数 */
+    @Transient
+    public int countOf(int star) {
+        return switch (star) {
+            case 1 -> rate1;
+            case 2 -> rate2;
+            case 3 -> rate3;
+            case 4 -> rate4;
+            case 5 -> rate5;
+            default -> 0;
+        };
+    }
+
+    /** 評価 star（1〜5）の割合（%） */
+    @Transient
+    public int percentOf(int star) {
+        return reviewCount == 0 ? 0 : Math.round(countOf(star) * 100f / reviewCount);
+    }
+}
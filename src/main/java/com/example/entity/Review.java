@@ -1,9 +1,17 @@
 package com.example.entity;
 
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
+import com.example.util.ReviewExcerpt;
 
 import jakarta.persistence.*;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -14,7 +22,13 @@ import lombok.Setter;
 public class Review {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // ★変更: IDENTITY → シーケンス採番
+    //   IDENTITY は INSERT を実行しないと id が決まらないため、Hibernate は INSERT を1件ずつ即時に送る（バッチ不可）。
+    //   シーケンスなら persist 時に id が決まり、INSERT は flush 時に JDBC バッチでまとめて送れる。
+    //   allocationSize 件ずつ払い出すので、シーケンスへの問い合わせも allocationSize 件に1回
+    //   （pooled-lo: シーケンスの値がその回の先頭 id。application.properties の hibernate.id.optimizer.pooled.preferred）
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "review_seq")
+    @SequenceGenerator(name = "review_seq", sequenceName = "review_seq", allocationSize = 50)
     @Column(name = "review_id")
     private Integer reviewId;
 
@@ -36,13 +50,34 @@ public class Review {
     @Column(name = "review_text", nullable = false)
     private String reviewText;
 
+    /**
+     * ★追加: 一覧カード用の本文の抜粋（ReviewExcerpt）
+     * 一覧は LONGTEXT の review_text を読まずにこの列だけを select する。
+     * 保存時に review_text から作り直すので直接は設定しない
+     */
+    @Setter(AccessLevel.NONE)
+    @Column(name = "review_excerpt", length = ReviewExcerpt.COLUMN_LENGTH)
+    private String reviewExcerpt;
+
     @Column(name = "active_flag", nullable = false)
     private Boolean activeFlag = Boolean.TRUE;
 
+    /**
+     * ★追加: 楽観ロック用のバージョン
+     * 編集画面の hidden で持ち回り、他の画面で先に更新されていたら上書きせずに編集画面へ戻す。
+     * カテゴリの付け外しでも増える（review_category は review 側が所有する関連のため）
+     */
+    @Version
+    @Setter(AccessLevel.NONE)
+    @Column(name = "version", nullable = false)
+    private Integer version;
+
     /**
      * カテゴリとの多対多関係
      * review_category テーブルでマッピング
+     * ★追加: 2次キャッシュ（category_id の並びだけを持ち、Category 本体は Category の領域から引く）
      */
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     @ManyToMany
     @JoinTable(
         name = "review_category",
@@ -51,6 +86,30 @@ public class Review {
     )
     private Set<Category> categories = new HashSet<>();
 
+    // ★追加: どの経路（ReviewWriteService の作成・編集）で保存しても抜粋を本文に追従させる
+    @PrePersist
+    @PreUpdate
+    void updateExcerpt() {
+        this.reviewExcerpt = ReviewExcerpt.of(reviewText);
+    }
+
+    /**
+     * ★追加: カテゴリを next と同じ集合にする（差分だけ変更）
+     * clear() → addAll() だと Hibernate は review_category をレビュー単位で全削除して入れ直すため、
+     * 外れたカテゴリだけ remove、増えたカテゴリだけ add する（変わらなければ SQL は出ない）。
+     * 比較は category_id で行うので、next は getReferenceById の参照（プロキシ）でよい
+     */
+    public void replaceCategories(Collection<Category> next) {
+        Set<Integer> nextIds = next.stream().map(Category::getCategoryId).collect(Collectors.toSet());
+        categories.removeIf(c -> !nextIds.contains(c.getCategoryId()));
+        Set<Integer> currentIds = categories.stream().map(Category::getCategoryId).collect(Collectors.toSet());
+        for (Category c : next) {
+            if (currentIds.add(c.getCategoryId())) {
+                categories.add(c);
+            }
+        }
+    }
+
     // ===============================
     // 互換用の「単一カテゴリ」アクセサ
     // 既存コードの getCategory()/setCategory(...) を殺さないため
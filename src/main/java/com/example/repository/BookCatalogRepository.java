@@ -0,0 +1,72 @@
+package com.example.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.example.entity.BookCatalog;
+
+import jakarta.persistence.QueryHint;
+
+@Repository
+public interface BookCatalogRepository extends JpaRepository<BookCatalog, String> {
+
+    // ==========================================
+    // 楽天から取得した1件を登録 or 更新（ISBN-13 で一意）
+    // ==========================================
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "book_catalog"))
+    @Query(value = """
+        INSERT INTO book_catalog (isbn13, title, title_norm, title_ngrams, item_url, thumbnail, fetched_at)
+        VALUES (:isbn13, :title, :titleNorm, :titleNgrams, :itemUrl, :thumbnail, :fetchedAt)
+        ON DUPLICATE KEY UPDATE
+               title        = VALUES(title),
+               title_norm   = VALUES(title_norm),
+               title_ngrams = VALUES(title_ngrams),
+               item_url     = VALUES(item_url),
+               thumbnail    = VALUES(thumbnail),
+               fetched_at   = VALUES(fetched_at)
+        """, nativeQuery = true)
+    int upsert(@Param("isbn13") String isbn13,
+            @Param("title") String title,
+            @Param("titleNorm") String titleNorm,
+            @Param("titleNgrams") String titleNgrams,
+            @Param("itemUrl") String itemUrl,
+            @Param("thumbnail") String thumbnail,
+            @Param("fetchedAt") LocalDateTime fetchedAt);
+
+    // ==========================================
+    // ローカル検索: 正規化タイトルの前方一致（idx_book_catalog_title_norm を使う）
+    // prefix は LIKE のワイルドカード（% _ !）を '!' でエスケープ済みで渡す
+    // ==========================================
+    @Query("""
+        SELECT b FROM BookCatalog b
+         WHERE b.titleNorm LIKE CONCAT(:prefix, '%') ESCAPE '!'
+           AND b.fetchedAt >= :notBefore
+         ORDER BY b.titleNorm
+        """)
+    List<BookCatalog> findByTitlePrefix(@Param("prefix") String prefix,
+            @Param("notBefore") LocalDateTime notBefore, Limit limit);
+
+    // ==========================================
+    // ローカル検索: タイトル途中の語も拾う bi-gram 一致（FULLTEXT ft_book_catalog_title_ngrams）
+    // query は ReviewFulltextService#toBooleanQuery と同じ形式
+    // ==========================================
+    @Query(value = """
+        SELECT b.* FROM book_catalog b
+         WHERE MATCH(b.title_ngrams) AGAINST (:query IN BOOLEAN MODE)
+           AND b.fetched_at >= :notBefore
+         ORDER BY MATCH(b.title_ngrams) AGAINST (:query IN BOOLEAN MODE) DESC, b.isbn13
+         LIMIT :limit
+        """, nativeQuery = true)
+    List<BookCatalog> searchByTitleNgrams(@Param("query") String query,
+            @Param("notBefore") LocalDateTime notBefore, @Param("limit") int limit);
+}
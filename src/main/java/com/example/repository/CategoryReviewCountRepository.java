@@ -0,0 +1,65 @@
+package com.example.repository;
+
+import java.util.List;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.example.entity.CategoryReviewCount;
+
+import jakarta.persistence.QueryHint;
+
+@Repository
+public interface CategoryReviewCountRepository extends JpaRepository<CategoryReviewCount, Integer> {
+
+    // ==========================================
+    // 件数に差分を加算（行が無ければ作成）
+    // - DB 側で加算するので、同時更新でも取りこぼさない
+    // ==========================================
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "category_review_count"))
+    @Query(value = """
+        INSERT INTO category_review_count (category_id, review_count)
+        VALUES (:categoryId, :delta)
+        ON DUPLICATE KEY UPDATE review_count = review_count + VALUES(review_count)
+        """, nativeQuery = true)
+    int addDelta(@Param("categoryId") Integer categoryId, @Param("delta") int delta);
+
+    // ==========================================
+    // 突き合わせ用: 件数の行をすべてロックする（行の間も含むので、無い行の INSERT も待たされる）
+    //   addDelta 済みで未コミットの保存があればそのコミットを待ち、以降の addDelta は突き合わせの終わりまで待たせる
+    // ==========================================
+    @Query(value = "SELECT category_id FROM category_review_count FOR UPDATE", nativeQuery = true)
+    List<Integer> lockAll();
+
+    // ==========================================
+    // 突き合わせ用: 保持している件数と実際の件数が食い違うカテゴリ
+    //   [category_id, 保持している件数（行が無ければ 0）, 実際の件数]
+    // ==========================================
+    @Query(value = """
+        SELECT c.category_id, COALESCE(crc.review_count, 0), COALESCE(actual.cnt, 0)
+          FROM category c
+          LEFT JOIN category_review_count crc ON crc.category_id = c.category_id
+          LEFT JOIN (SELECT rc.category_id, COUNT(*) AS cnt
+                       FROM review_category rc
+                       JOIN review r ON r.review_id = rc.review_id
+                      WHERE r.active_flag = 1
+                      GROUP BY rc.category_id) actual ON actual.category_id = c.category_id
+         WHERE COALESCE(crc.review_count, 0) <> COALESCE(actual.cnt, 0)
+        """, nativeQuery = true)
+    List<Object[]> findDrift();
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "category_review_count"))
+    @Query(value = """
+        INSERT INTO category_review_count (category_id, review_count)
+        VALUES (:categoryId, :count)
+        ON DUPLICATE KEY UPDATE review_count = VALUES(review_count)
+        """, nativeQuery = true)
+    int setCount(@Param("categoryId") Integer categoryId, @Param("count") int count);
+}
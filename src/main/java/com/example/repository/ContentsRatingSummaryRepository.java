@@ -0,0 +1,46 @@
+package com.example.repository;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.example.entity.ContentsRatingSummary;
+
+import jakarta.persistence.QueryHint;
+
+@Repository
+public interface ContentsRatingSummaryRepository extends JpaRepository<ContentsRatingSummary, Integer> {
+
+    // ==========================================
+    // 集計行に差分を加算（行が無ければ作成）
+    // - 読んでから書くのではなく DB 側で加算するので、同時更新でも取りこぼさない
+    // - 引数はすべて差分（+1 / -1 / 0）
+    // ==========================================
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "contents_rating_summary"))
+    @Query(value = """
+        INSERT INTO contents_rating_summary
+               (contents_id, review_count, rate_sum, rate_1, rate_2, rate_3, rate_4, rate_5)
+        VALUES (:contentsId, :count, :sum, :r1, :r2, :r3, :r4, :r5)
+        ON DUPLICATE KEY UPDATE
+               review_count = review_count + VALUES(review_count),
+               rate_sum     = rate_sum     + VALUES(rate_sum),
+               rate_1       = rate_1       + VALUES(rate_1),
+               rate_2       = rate_2       + VALUES(rate_2),
+               rate_3       = rate_3       + VALUES(rate_3),
+               rate_4       = rate_4       + VALUES(rate_4),
+               rate_5       = rate_5       + VALUES(rate_5)
+        """, nativeQuery = true)
+    int addDelta(@Param("contentsId") Integer contentsId,
+            @Param("count") int count,
+            @Param("sum") int sum,
+            @Param("r1") int r1,
+            @Param("r2") int r2,
+            @Param("r3") int r3,
+            @Param("r4") int r4,
+            @Param("r5") int r5);
+}
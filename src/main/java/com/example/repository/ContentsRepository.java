@@ -1,24 +1,80 @@
 package com.example.repository;
 
+import java.util.List;
 import java.util.Optional;
 
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.example.entity.Contents;
+import com.example.util.IsbnNormalizer;
+import com.example.util.UrlCanonicalizer;
+
+import jakarta.persistence.QueryHint;
 
 @Repository
 public interface ContentsRepository extends JpaRepository<Contents, Integer> {
 
-    Optional<Contents> findByContentsUrl(String contentsUrl);
+    // ★変更: URL での特定は正規化した URL のハッシュ（固定長のユニークインデックス）で引く
+    //   トラッキング用パラメータ・末尾の / ・ホストの大文字小文字・フラグメントの違いは同じコンテンツになる
+    Optional<Contents> findByContentsUrlHash(byte[] contentsUrlHash);
+
+    default Optional<Contents> findByContentsUrl(String contentsUrl) {
+        return findByContentsUrlHash(UrlCanonicalizer.hash(contentsUrl));
+    }
 
     //Optional<Contents> findByContentsTitle(String contentsTitle);		//呼び出し０なので削除
 
-    // 楽天APIから取得したISBNで既存レコードを特定するためのクエリ
-    // Contents エンティティのフィールド名が「bookIsbn」であることが前提です。
-    // （DB列名はマッピングにより異なっていてもOK）
-    Contents findByBookIsbn(String bookIsbn);
+    // ★変更: ISBN での特定は正規化済みの book_isbn13（ユニークインデックス）で引く
+    //   book_isbn（入力そのまま）での検索は索引が無く全件走査になるため廃止
+    Optional<Contents> findByBookIsbn13(Long bookIsbn13);
+
+    // 楽天APIから取得したISBN（ISBN-10 / ハイフン付きでも可）で既存レコードを特定する
+    default Optional<Contents> findByIsbn(String isbn) {
+        Long isbn13 = IsbnNormalizer.toIsbn13Number(isbn);
+        return isbn13 == null ? Optional.empty() : findByBookIsbn13(isbn13);
+    }
+
+    // ==========================================
+    // ★追加: 検索キーの埋め戻し用（ContentsKeyBackfillService）
+    // ==========================================
+
+    // contents_url_hash が未設定の行 [contents_id, contents_url]（contents_id 順のキーセット）
+    @Query(value = """
+        SELECT c.contents_id, c.contents_url
+          FROM contents c
+         WHERE c.contents_url_hash IS NULL
+           AND c.contents_id > :afterId
+         ORDER BY c.contents_id
+        """,
+        nativeQuery = true)
+    List<Object[]> findMissingUrlHash(@Param("afterId") int afterId, Limit limit);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "contents"))
+    @Query(value = "UPDATE contents SET contents_url_hash = :hash WHERE contents_id = :contentsId", nativeQuery = true)
+    int updateUrlHash(@Param("contentsId") Integer contentsId, @Param("hash") byte[] hash);
+
+    // book_isbn があるのに book_isbn13 が未設定の行 [contents_id, book_isbn]（contents_id 順のキーセット）
+    @Query(value = """
+        SELECT c.contents_id, c.book_isbn
+          FROM contents c
+         WHERE c.book_isbn IS NOT NULL
+           AND c.book_isbn13 IS NULL
+           AND c.contents_id > :afterId
+         ORDER BY c.contents_id
+        """,
+        nativeQuery = true)
+    List<Object[]> findMissingBookIsbn13(@Param("afterId") int afterId, Limit limit);
 
-    // （任意利用）: 存在チェック用。重複登録の抑止や分岐に使えます。
-    boolean existsByBookIsbn(String bookIsbn);
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "contents"))
+    @Query(value = "UPDATE contents SET book_isbn13 = :isbn13 WHERE contents_id = :contentsId", nativeQuery = true)
+    int updateBookIsbn13(@Param("contentsId") Integer contentsId, @Param("isbn13") Long isbn13);
 }
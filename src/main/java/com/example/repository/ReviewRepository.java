@@ -1,20 +1,31 @@
 package com.example.repository;
 
+import java.util.Collection;
 import java.util.List;
 
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.example.dto.ReviewCardRow;
 import com.example.entity.Review;
 
+import jakarta.persistence.QueryHint;
+
 @Repository
 public interface ReviewRepository extends JpaRepository<Review, Integer> {
 
     // ★既存: キーワード全文検索（タイトル/本文）＋ active=1
+    // ★変更: 一覧は ReviewCardService でまとめて組み立てるため review_id のみ返す
     @Query(value = """
-        SELECT *
+        SELECT r.review_id
           FROM review r
          WHERE r.active_flag = 1
            AND (LOWER(r.review_title) LIKE LOWER(CONCAT('%', :keyword, '%'))
@@ -22,10 +33,222 @@ public interface ReviewRepository extends JpaRepository<Review, Integer> {
          ORDER BY r.review_id DESC
         """,
         nativeQuery = true)
-    List<Review> searchByKeywordActive(@Param("keyword") String keyword);
+    List<Integer> searchByKeywordActive(@Param("keyword") String keyword);
+
+    // ==================================================
+    // ★追加: MariaDB FULLTEXT 検索（search.mode=fulltext）
+    //   - search_ngrams は ReviewFulltextService が符号化した bi-gram
+    //   - 関連度順 → review_id 降順。件数は別クエリ（countQuery）
+    // ==================================================
+    @Query(value = """
+        SELECT r.review_id
+          FROM review r
+         WHERE r.active_flag = 1
+           AND MATCH(r.search_ngrams) AGAINST (:query IN BOOLEAN MODE)
+         ORDER BY MATCH(r.search_ngrams) AGAINST (:query IN BOOLEAN MODE) DESC, r.review_id DESC
+        """,
+        countQuery = """
+        SELECT COUNT(*)
+          FROM review r
+         WHERE r.active_flag = 1
+           AND MATCH(r.search_ngrams) AGAINST (:query IN BOOLEAN MODE)
+        """,
+        nativeQuery = true)
+    Page<Integer> searchByFulltextActive(@Param("query") String query, Pageable pageable);
+
+    // ★変更: ネイティブ更新が触る表を宣言する（宣言が無いと Hibernate は2次キャッシュの全領域を捨てる）
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "review"))
+    @Query(value = "UPDATE review SET search_ngrams = :ngrams WHERE review_id = :reviewId", nativeQuery = true)
+    int updateSearchNgrams(@Param("reviewId") Integer reviewId, @Param("ngrams") String ngrams);
+
+    // ★追加: 重複コンテンツの統合用（ContentsKeyBackfillService）。レビューの付け先をまとめて付け替える
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "review"))
+    @Query(value = "UPDATE review SET contents_id = :toId WHERE contents_id = :fromId", nativeQuery = true)
+    int moveToContents(@Param("fromId") Integer fromId, @Param("toId") Integer toId);
+
+    // search_ngrams 未設定行の埋め戻し用 [review_id, review_title, review_text]
+    // ★変更: review_id のキーセットで続きから読む（チャンクごとにコミットするため）
+    @Query(value = """
+        SELECT r.review_id, r.review_title, r.review_text
+          FROM review r
+         WHERE r.search_ngrams IS NULL
+           AND r.review_id > :afterId
+         ORDER BY r.review_id
+        """,
+        nativeQuery = true)
+    List<Object[]> findMissingSearchNgrams(@Param("afterId") Integer afterId, Limit limit);
+
+    // ★追加: review_excerpt 未設定行（列追加前からある行・シード）の埋め戻し用 [review_id, review_text]
+    @Query("""
+        SELECT r.reviewId, r.reviewText
+          FROM Review r
+         WHERE r.reviewExcerpt IS NULL
+         ORDER BY r.reviewId
+    """)
+    List<Object[]> findMissingExcerpt(Limit limit);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "review"))
+    @Query(value = "UPDATE review SET review_excerpt = :excerpt WHERE review_id = :reviewId", nativeQuery = true)
+    int updateExcerpt(@Param("reviewId") Integer reviewId, @Param("excerpt") String excerpt);
+
+    // ==================================================
+    // ★変更: 一覧カード用の射影（ReviewCardService が ReviewCard に変換する）
+    //   - Review エンティティではなくカードに出す列だけを select（LONGTEXT の review_text は読まない）
+    //   - 本文は保存時に作る抜粋 review_excerpt を使う
+    //   - users / contents は inner join（どちらも NOT NULL の外部キー）
+    // ==================================================
+    String CARD_ROW_SELECT = """
+        SELECT new com.example.dto.ReviewCardRow(
+                 r.reviewId, r.reviewTitle, r.rate, r.reviewExcerpt,
+                 u.id, u.username, c.contentsId, c.contentsTitle, c.thumbnail)
+          FROM Review r
+          JOIN r.user u
+          JOIN r.contents c
+        """;
+
+    // ==================================================
+    // ★変更: トップ一覧用（active=1 のみ）をキーセットページングに
+    //   - 全件ロードをやめ、review_id 降順で limit 件だけ取得
+    //   - idx_review_active_id (active_flag, review_id) の範囲スキャンで完結
+    //   - cursor（前ページ最後の review_id）未満を次ページとして取得
+    // ==================================================
+    @Query(CARD_ROW_SELECT + """
+         WHERE r.activeFlag = true
+         ORDER BY r.reviewId DESC
+        """)
+    List<ReviewCardRow> findActiveCardRows(Limit limit);
+
+    @Query(CARD_ROW_SELECT + """
+         WHERE r.activeFlag = true
+           AND r.reviewId < :cursor
+         ORDER BY r.reviewId DESC
+        """)
+    List<ReviewCardRow> findActiveCardRowsBefore(@Param("cursor") Integer cursor, Limit limit);
+
+    // ==================================================
+    // ★追加: ユーザー別一覧（/mypage, /user/{id}）のキーセットページング
+    //   - idx_review_user_active_id (user_id, active_flag, review_id) の範囲スキャン
+    //   - サイト全体ではなく、そのユーザーのレビュー件数だけに比例するコスト
+    // ==================================================
+    @Query(CARD_ROW_SELECT + """
+         WHERE u.id = :userId
+           AND r.activeFlag = true
+         ORDER BY r.reviewId DESC
+        """)
+    List<ReviewCardRow> findActiveCardRowsByUser(@Param("userId") Integer userId, Limit limit);
 
-    // ★既存: トップ一覧用（active=1 のみ）
-    List<Review> findByActiveFlagTrueOrderByReviewIdDesc();
+    @Query(CARD_ROW_SELECT + """
+         WHERE u.id = :userId
+           AND r.activeFlag = true
+           AND r.reviewId < :cursor
+         ORDER BY r.reviewId DESC
+        """)
+    List<ReviewCardRow> findActiveCardRowsByUserBefore(@Param("userId") Integer userId,
+            @Param("cursor") Integer cursor, Limit limit);
+
+    // ==================================================
+    // ★追加: 一覧カード用（ReviewCardService から呼ばれる）
+    //   - id 指定でカードの列だけを取得（並びは呼び出し側で復元）
+    //     ★変更: 論理削除されたものは除く（プロセス内インデックスが古い id を返しても表示しない）
+    //   - カテゴリは review_id の IN でまとめて取得（[review_id, category_id, category_name]）
+    // ==================================================
+    @Query(CARD_ROW_SELECT + """
+         WHERE r.reviewId IN :reviewIds
+           AND r.activeFlag = true
+        """)
+    List<ReviewCardRow> findActiveCardRowsByReviewIdIn(@Param("reviewIds") Collection<Integer> reviewIds);
+
+    @Query("""
+        SELECT r.reviewId, c.categoryId, c.categoryName
+          FROM Review r
+          JOIN r.categories c
+         WHERE r.reviewId IN :reviewIds
+         ORDER BY c.categoryName
+    """)
+    List<Object[]> findCategoryTagsByReviewIds(@Param("reviewIds") Collection<Integer> reviewIds);
+
+    // ==================================================
+    // ★追加: 検索インデックス構築用（ReviewSearchIndex から呼ばれる）
+    //   - active=1 のレビューを review_id 昇順で limit 件ずつ
+    //   - [review_id, review_title, review_text]
+    // ==================================================
+    @Query("""
+        SELECT r.reviewId, r.reviewTitle, r.reviewText
+          FROM Review r
+         WHERE r.activeFlag = true
+           AND r.reviewId > :afterId
+         ORDER BY r.reviewId
+    """)
+    List<Object[]> findSearchSourcesAfter(@Param("afterId") Integer afterId, Limit limit);
+
+    // ==================================================
+    // ★追加: カテゴリ絞り込み用ビットマップ（CategoryBitmapIndex）の起動時構築
+    // ==================================================
+
+    // 公開レビューの id（review_id 順のキーセット）
+    @Query("""
+        SELECT r.reviewId
+          FROM Review r
+         WHERE r.activeFlag = true
+           AND r.reviewId > :afterId
+         ORDER BY r.reviewId
+    """)
+    List<Integer> findActiveIdsAfter(@Param("afterId") Integer afterId, Limit limit);
+
+    // 公開レビューの [review_id, category_id]（(review_id, category_id) 順のキーセット）
+    @Query("""
+        SELECT r.reviewId, c.categoryId
+          FROM Review r
+          JOIN r.categories c
+         WHERE r.activeFlag = true
+           AND (r.reviewId > :afterReviewId
+                OR (r.reviewId = :afterReviewId AND c.categoryId > :afterCategoryId))
+         ORDER BY r.reviewId, c.categoryId
+    """)
+    List<Object[]> findActiveCategoryPairsAfter(@Param("afterReviewId") Integer afterReviewId,
+            @Param("afterCategoryId") Integer afterCategoryId, Limit limit);
+
+    // ==================================================
+    // ★追加: 複数カテゴリの絞り込みを DB で評価する（CategoryBitmapIndex の構築が終わるまでの代わり）
+    //   - all: すべて含む / any: いずれかを含む / none: 含まない（ビットマップ側と同じ意味）
+    //   - 空の条件は IN () にできないため、呼び出し側が存在しない id だけのリストと件数・フラグで渡す
+    //   - review_id 降順、cursor 未満（先頭ページは Integer.MAX_VALUE）
+    // ==================================================
+    String CATEGORY_FILTER_WHERE = """
+         WHERE r.activeFlag = true
+           AND (:allCount = 0 OR r.reviewId IN (
+                 SELECT ra.reviewId FROM Review ra JOIN ra.categories ca
+                  WHERE ca.categoryId IN :all
+                  GROUP BY ra.reviewId
+                 HAVING COUNT(DISTINCT ca.categoryId) = :allCount))
+           AND (:anyEmpty = true OR EXISTS (
+                 SELECT 1 FROM Review ro JOIN ro.categories co
+                  WHERE ro.reviewId = r.reviewId AND co.categoryId IN :any))
+           AND NOT EXISTS (
+                 SELECT 1 FROM Review rn JOIN rn.categories cn
+                  WHERE rn.reviewId = r.reviewId AND cn.categoryId IN :none)
+        """;
+
+    @Query("SELECT r.reviewId FROM Review r" + CATEGORY_FILTER_WHERE + """
+           AND r.reviewId < :cursor
+         ORDER BY r.reviewId DESC
+        """)
+    List<Integer> findActiveIdsByCategoryFilter(@Param("all") Collection<Integer> all,
+            @Param("allCount") long allCount,
+            @Param("any") Collection<Integer> any,
+            @Param("anyEmpty") boolean anyEmpty,
+            @Param("none") Collection<Integer> none,
+            @Param("cursor") Integer cursor, Limit limit);
+
+    @Query("SELECT COUNT(r) FROM Review r" + CATEGORY_FILTER_WHERE)
+    long countActiveByCategoryFilter(@Param("all") Collection<Integer> all,
+            @Param("allCount") long allCount,
+            @Param("any") Collection<Integer> any,
+            @Param("anyEmpty") boolean anyEmpty,
+            @Param("none") Collection<Integer> none);
 
     // ==================================================
     // ★修正ポイント：カテゴリ別のレビュー取得（多対多対応版）
@@ -33,17 +256,15 @@ public interface ReviewRepository extends JpaRepository<Review, Integer> {
     //   - r.activeFlag = true のみ
     //   - reviewId 降順
     //   - CategoryController から呼ばれる
+    //   - ★変更: カードの列だけを射影で取得（本文は抜粋のみ）
     // ==================================================
-    @Query("""
-        SELECT r
-          FROM Review r
-          JOIN r.categories c
-         WHERE c.categoryId = :categoryId
+    @Query(CARD_ROW_SELECT + """
+          JOIN r.categories cat
+         WHERE cat.categoryId = :categoryId
            AND r.activeFlag = true
          ORDER BY r.reviewId DESC
-    """)
-    List<Review> findActiveByCategoryOrderByReviewIdDesc(
-            @Param("categoryId") Integer categoryId);
+        """)
+    List<ReviewCardRow> findActiveCardRowsByCategory(@Param("categoryId") Integer categoryId);
 
     // ==========================================
     // 同じコンテンツの他ユーザーのアクティブレビュー取得
@@ -52,8 +273,9 @@ public interface ReviewRepository extends JpaRepository<Review, Integer> {
     // - 自分の review_id を除外
     // - 自分の user_id を除外
     // ==========================================
+    // ★変更: id だけ返し、カードは ReviewCardService でまとめて組み立てる
     @Query("""
-        SELECT r
+        SELECT r.reviewId
           FROM Review r
          WHERE r.contents.contentsId = :contentsId
            AND r.activeFlag = true
@@ -61,7 +283,7 @@ public interface ReviewRepository extends JpaRepository<Review, Integer> {
            AND r.user.id <> :excludeUserId
          ORDER BY r.reviewId DESC
     """)
-    List<Review> findActiveBySameContentsOtherUsers(
+    List<Integer> findActiveIdsBySameContentsOtherUsers(
             @Param("contentsId") Integer contentsId,
             @Param("excludeReviewId") Integer excludeReviewId,
             @Param("excludeUserId") Integer excludeUserId);
@@ -0,0 +1,152 @@
+package com.example.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.StringJoiner;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.entity.BookCatalog;
+import com.example.entity.BookCatalogQuery;
+import com.example.repository.BookCatalogQueryRepository;
+import com.example.repository.BookCatalogRepository;
+import com.example.service.RakutenBooksService.BookItem;
+import com.example.util.IsbnNormalizer;
+import com.example.util.NgramTokenizer;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * 楽天Books の検索結果をローカルの書籍カタログ（book_catalog）に写し、ローカル優先検索に使う
+ * - 楽天で検索できた書籍は ISBN-13 単位で upsert し、検索クエリと結果の並びも book_catalog_query に残す
+ * - ローカル検索は「同じクエリの記録 → タイトル前方一致 → タイトル bi-gram 一致」の順に見る
+ * - rakuten.catalog.ttl より古い記録は使わない（楽天に取りに行く）
+ * - 0件の結果は記録しない（「見つからない」を ttl の間返し続けないように、次の検索でも楽天に聞く）
+ */
+@Service
+@RequiredArgsConstructor
+public class BookCatalogService {
+
+    // 鮮度を問わないときの下限（DATETIME に渡せる値にしておく）
+    private static final LocalDateTime ANY_TIME = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final int QUERY_KEY_MAX = 600;
+
+    private final BookCatalogRepository bookCatalogRepository;
+    private final BookCatalogQueryRepository bookCatalogQueryRepository;
+
+    @Value("${rakuten.catalog.ttl:7d}")
+    private Duration ttl;
+
+    /**
+     * 鮮度内の記録だけで検索結果を組み立てる
+     * - 同じクエリを楽天で検索済みなら、その結果を同じ順序で返す
+     * - そうでなければ前方一致 / bi-gram 一致で hits 件そろったときだけ返す（足りなければ楽天に任せる）
+     */
+    @Transactional(readOnly = true)
+    public Optional<List<BookItem>> findFresh(String queryKey, String title, int hits) {
+        return lookup(queryKey, title, hits, LocalDateTime.now().minus(ttl));
+    }
+
+    /** 楽天が使えないとき用: 鮮度を問わず、ローカルにあるもので組み立てる */
+    @Transactional(readOnly = true)
+    public Optional<List<BookItem>> findAny(String queryKey, String title, int hits) {
+        return lookup(queryKey, title, hits, ANY_TIME);
+    }
+
+    private Optional<List<BookItem>> lookup(String queryKey, String title, int hits, LocalDateTime notBefore) {
+        // 1) 同じクエリの記録
+        Optional<BookCatalogQuery> logged = bookCatalogQueryRepository.findById(truncate(queryKey, QUERY_KEY_MAX))
+                .filter(q -> !q.getFetchedAt().isBefore(notBefore));
+        if (logged.isPresent()) {
+            List<String> isbns = logged.get().getIsbnList().isEmpty()
+                    ? List.of()
+                    : List.of(logged.get().getIsbnList().split(","));
+            Map<String, BookCatalog> byIsbn = new LinkedHashMap<>();
+            bookCatalogRepository.findAllById(isbns).forEach(b -> byIsbn.put(b.getIsbn13(), b));
+            List<BookItem> items = new ArrayList<>(isbns.size());
+            for (String isbn : isbns) {
+                BookCatalog b = byIsbn.get(isbn);
+                if (b != null) {
+                    items.add(toItem(b));
+                }
+            }
+            // ★変更: 1件も引けない記録（0件の記録・カタログから消えた書籍だけ）はヒット扱いにしない
+            if (!items.isEmpty()) {
+                return Optional.of(items);
+            }
+        }
+
+        // 2) 前方一致 → 3) bi-gram 一致（重複は除いて hits 件まで）
+        String normalized = NgramTokenizer.normalize(title).trim();
+        if (normalized.isEmpty()) {
+            return Optional.empty();
+        }
+        Map<String, BookCatalog> found = new LinkedHashMap<>();
+        for (BookCatalog b : bookCatalogRepository.findByTitlePrefix(escapeLike(normalized), notBefore, Limit.of(hits))) {
+            found.putIfAbsent(b.getIsbn13(), b);
+        }
+        if (found.size() < hits) {
+            String query = ReviewFulltextService.toBooleanQuery(title);
+            if (!query.isEmpty()) {
+                for (BookCatalog b : bookCatalogRepository.searchByTitleNgrams(query, notBefore, hits)) {
+                    found.putIfAbsent(b.getIsbn13(), b);
+                }
+            }
+        }
+        if (found.size() < hits) {
+            return Optional.empty();
+        }
+        return Optional.of(found.values().stream().limit(hits).map(BookCatalogService::toItem).toList());
+    }
+
+    /** 楽天の検索結果を記録する（ISBN が無い・不正な書籍はカタログに載せない。載せるものが無ければ何もしない） */
+    @Transactional
+    public void record(String queryKey, List<BookItem> items) {
+        LocalDateTime now = LocalDateTime.now();
+        StringJoiner isbns = new StringJoiner(",");
+        for (BookItem it : items) {
+            String isbn13 = IsbnNormalizer.toIsbn13(it.isbn);
+            if (isbn13 == null || it.title == null || it.title.isBlank()) {
+                continue;
+            }
+            String title = truncate(it.title, 512);
+            bookCatalogRepository.upsert(isbn13, title, truncate(NgramTokenizer.normalize(title), 512),
+                    NgramTokenizer.toFulltextDocument(title), it.itemUrl, it.thumbnail, now);
+            isbns.add(isbn13);
+        }
+        // ★変更: 0件（ISBN の有効な書籍が無い）はクエリの記録を残さない
+        if (isbns.length() == 0) {
+            return;
+        }
+        BookCatalogQuery q = new BookCatalogQuery();
+        q.setQueryKey(truncate(queryKey, QUERY_KEY_MAX));
+        q.setIsbnList(isbns.toString());
+        q.setFetchedAt(now);
+        bookCatalogQueryRepository.save(q);
+    }
+
+    private static BookItem toItem(BookCatalog b) {
+        BookItem it = new BookItem();
+        it.title = b.getTitle();
+        it.isbn = b.getIsbn13();
+        it.itemUrl = b.getItemUrl();
+        it.thumbnail = b.getThumbnail();
+        return it;
+    }
+
+    private static String escapeLike(String s) {
+        return s.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+    }
+
+    private static String truncate(String s, int maxChars) {
+        return s.length() <= maxChars ? s : s.substring(0, maxChars);
+    }
+}
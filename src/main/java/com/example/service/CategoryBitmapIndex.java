@@ -0,0 +1,246 @@
+package com.example.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.roaringbitmap.FastAggregation;
+import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.example.dto.KeysetPage;
+import com.example.repository.ReviewRepository;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * カテゴリ → 公開レビューID の圧縮ビットマップ（RoaringBitmap）によるプロセス内インデックス
+ * - 起動時に review_category（active=1 のレビューのみ）からチャンク単位で構築
+ * - 以降は ReviewChangedEvent（コミット後）で差分更新（作成・編集・カテゴリ変更・論理削除）
+ *   構築中に変更されたレビューは構築側のチャンクでは足さない（変更前に読んだチャンクで古い状態に戻さない）
+ * - 「A かつ B、C は除く」のような複数カテゴリの絞り込みをビット演算だけで行う（DB は読まない）
+ *
+ * 1ノード内のメモリ上にしか無いため、複数ノード構成では各ノードが自分で構築する。
+ */
+@Service
+@RequiredArgsConstructor
+public class CategoryBitmapIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(CategoryBitmapIndex.class);
+
+    private final ReviewRepository reviewRepository;
+
+    // 起動時構築で1回に読む件数
+    @Value("${reviewboard.categories.bitmap.build-chunk-size:5000}")
+    private int buildChunkSize;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // category_id → そのカテゴリの公開レビューID
+    private final Map<Integer, RoaringBitmap> byCategory = new HashMap<>();
+    // 公開レビューID 全体（「除く」だけの絞り込みの母集団）
+    private final RoaringBitmap active = new RoaringBitmap();
+
+    // 構築中にイベントで反映した review_id（構築中以外は null。lock で保護）
+    private Set<Integer> touchedDuringBuild;
+
+    private volatile boolean ready = false;
+
+    /** 絞り込み条件。all = すべて含む（AND） / any = いずれかを含む（OR） / none = 含まない（NOT） */
+    public record Filter(Collection<Integer> all, Collection<Integer> any, Collection<Integer> none) {
+
+        public Filter {
+            all = all == null ? List.of() : List.copyOf(all);
+            any = any == null ? List.of() : List.copyOf(any);
+            none = none == null ? List.of() : List.copyOf(none);
+        }
+
+        public boolean isEmpty() {
+            return all.isEmpty() && any.isEmpty() && none.isEmpty();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    // ===== 構築 =====
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        long started = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            touchedDuringBuild = new HashSet<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        int reviews = 0;
+        Integer after = 0;
+        List<Integer> ids;
+        while (!(ids = reviewRepository.findActiveIdsAfter(after, Limit.of(buildChunkSize))).isEmpty()) {
+            lock.writeLock().lock();
+            try {
+                for (Integer id : ids) {
+                    if (!touchedDuringBuild.contains(id)) {
+                        active.add(id);
+                    }
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            after = ids.get(ids.size() - 1);
+            reviews += ids.size();
+        }
+
+        Integer afterReview = 0;
+        Integer afterCategory = 0;
+        List<Object[]> pairs;
+        while (!(pairs = reviewRepository.findActiveCategoryPairsAfter(afterReview, afterCategory,
+                Limit.of(buildChunkSize))).isEmpty()) {
+            lock.writeLock().lock();
+            try {
+                for (Object[] row : pairs) {
+                    if (!touchedDuringBuild.contains((Integer) row[0])) {
+                        byCategory.computeIfAbsent((Integer) row[1], k -> new RoaringBitmap()).add((Integer) row[0]);
+                    }
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            Object[] last = pairs.get(pairs.size() - 1);
+            afterReview = (Integer) last[0];
+            afterCategory = (Integer) last[1];
+        }
+
+        lock.writeLock().lock();
+        try {
+            byCategory.values().forEach(RoaringBitmap::runOptimize);
+            active.runOptimize();
+            touchedDuringBuild = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        ready = true;
+        log.info("[CategoryBitmapIndex] {} 件のレビュー・{} カテゴリでビットマップを構築しました（{} ms）",
+                reviews, byCategory.size(), System.currentTimeMillis() - started);
+    }
+
+    // ===== 差分更新 =====
+
+    // コミットされた変更だけを反映する（ロールバックされた保存は反映しない）
+    // 構築中に届いたものもその場で反映し、そのレビューは以降のチャンクから足さない
+    //   （チャンクはこのコミットより前に読んだものかもしれないので、イベントの状態を新しいとみなす）
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReviewChanged(ReviewChangedEvent event) {
+        ReviewSnapshot before = event.getBefore();
+        ReviewSnapshot after = event.getAfter();
+        int reviewId = after.getReviewId();
+        lock.writeLock().lock();
+        try {
+            if (touchedDuringBuild != null) {
+                touchedDuringBuild.add(reviewId);
+            }
+            if (before != null) {
+                for (Integer categoryId : before.getCategoryIds()) {
+                    RoaringBitmap bm = byCategory.get(categoryId);
+                    if (bm != null) {
+                        bm.remove(reviewId);
+                        if (bm.isEmpty()) {
+                            byCategory.remove(categoryId);
+                        }
+                    }
+                }
+            }
+            if (after.isActive()) {
+                active.add(reviewId);
+                for (Integer categoryId : after.getCategoryIds()) {
+                    byCategory.computeIfAbsent(categoryId, k -> new RoaringBitmap()).add(reviewId);
+                }
+            } else {
+                active.remove(reviewId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ===== 絞り込み =====
+
+    /**
+     * 条件に合う公開レビューID（呼び出し側が自由に使えるコピー）
+     * - all があれば all の AND、無ければ公開レビュー全体から始める
+     * - any があればその OR と AND を取り、none の OR を除く
+     */
+    public RoaringBitmap select(Filter filter) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap result;
+            if (!filter.all().isEmpty()) {
+                List<RoaringBitmap> required = new ArrayList<>();
+                for (Integer id : filter.all()) {
+                    RoaringBitmap bm = byCategory.get(id);
+                    if (bm == null) {
+                        return new RoaringBitmap(); // 1件も無いカテゴリを必須にした
+                    }
+                    required.add(bm);
+                }
+                result = FastAggregation.and(required.iterator());
+            } else {
+                result = active.clone();
+            }
+            if (!filter.any().isEmpty()) {
+                result.and(FastAggregation.or(bitmapsOf(filter.any()).iterator()));
+            }
+            if (!filter.none().isEmpty()) {
+                result.andNot(FastAggregation.or(bitmapsOf(filter.none()).iterator()));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<RoaringBitmap> bitmapsOf(Collection<Integer> categoryIds) {
+        List<RoaringBitmap> out = new ArrayList<>();
+        for (Integer id : categoryIds) {
+            RoaringBitmap bm = byCategory.get(id);
+            if (bm != null) {
+                out.add(bm);
+            }
+        }
+        return out;
+    }
+
+    /**
+     * review_id 降順のキーセットページング（トップ一覧と同じ並び）
+     * @param ids      select の結果
+     * @param cursor   前ページ最後の review_id（この値未満を返す）。先頭ページは null
+     * @param pageSize 1ページの件数
+     */
+    public static KeysetPage<Integer> page(RoaringBitmap ids, Integer cursor, int pageSize) {
+        RoaringBitmap window = ids;
+        if (cursor != null) {
+            window = ids.clone();
+            window.remove(Math.max(cursor, 0), 0x1_0000_0000L);
+        }
+        List<Integer> fetched = new ArrayList<>(pageSize + 1);
+        IntIterator it = window.getReverseIntIterator();
+        while (it.hasNext() && fetched.size() <= pageSize) {
+            fetched.add(it.next());
+        }
+        return KeysetPage.of(fetched, pageSize, id -> id);
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.service;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.example.entity.Category;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+/**
+ * Category の追加・変更・削除で CategorySnapshotService のスナップショットを捨てる（JPA エンティティリスナー）
+ * - flush 時点ですぐ捨て、トランザクション終了後にもう一度捨てる
+ *   （コミット前に別スレッドが古い内容を読み直してしまっても、トランザクション終了後に必ず読み直させる）
+ * - Hibernate が Spring の Bean として生成する。スナップショットが無い構成（テスト等）では何もしない
+ */
+@Component
+public class CategoryChangeListener {
+
+    private final ObjectProvider<CategorySnapshotService> snapshotService;
+
+    public CategoryChangeListener(ObjectProvider<CategorySnapshotService> snapshotService) {
+        this.snapshotService = snapshotService;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    void onChanged(Category category) {
+        snapshotService.ifAvailable(CategorySnapshotService::invalidate);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    snapshotService.ifAvailable(CategorySnapshotService::invalidate);
+                }
+            });
+        }
+    }
+}
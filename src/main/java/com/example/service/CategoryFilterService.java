@@ -0,0 +1,59 @@
+package com.example.service;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.dto.KeysetPage;
+import com.example.repository.ReviewRepository;
+import com.example.service.CategoryBitmapIndex.Filter;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * 複数カテゴリの絞り込みの窓口（CategoryController から呼ばれる）
+ * - 通常はメモリ上のビットマップ（CategoryBitmapIndex）で評価する
+ * - 起動直後でビットマップの構築が終わっていない間は、同じ条件を DB で評価する（検索の like 代替と同じ扱い）
+ */
+@Service
+@RequiredArgsConstructor
+public class CategoryFilterService {
+
+    // IN () は書けないので、空の条件はどのカテゴリにも当たらない id だけのリストで渡す
+    private static final List<Integer> NO_CATEGORY = List.of(-1);
+
+    private final CategoryBitmapIndex categoryBitmapIndex;
+    private final ReviewRepository reviewRepository;
+
+    /** 1ページ分の review_id（降順）と、条件に合う公開レビューの件数 */
+    public record Result(KeysetPage<Integer> page, long total) {
+    }
+
+    /**
+     * @param cursor   前ページ最後の review_id（この値未満を返す）。先頭ページは null
+     * @param pageSize 1ページの件数
+     */
+    @Transactional(readOnly = true)
+    public Result filter(Filter filter, Integer cursor, int pageSize) {
+        if (categoryBitmapIndex.isReady()) {
+            RoaringBitmap ids = categoryBitmapIndex.select(filter);
+            return new Result(CategoryBitmapIndex.page(ids, cursor, pageSize), ids.getCardinality());
+        }
+
+        Collection<Integer> all = filter.all().isEmpty() ? NO_CATEGORY : filter.all();
+        long allCount = new HashSet<>(filter.all()).size();
+        Collection<Integer> any = filter.any().isEmpty() ? NO_CATEGORY : filter.any();
+        Collection<Integer> none = filter.none().isEmpty() ? NO_CATEGORY : filter.none();
+
+        // 次ページ有無の判定用に1件多く取得
+        List<Integer> fetched = reviewRepository.findActiveIdsByCategoryFilter(all, allCount, any,
+                filter.any().isEmpty(), none, cursor == null ? Integer.MAX_VALUE : cursor, Limit.of(pageSize + 1));
+        long total = reviewRepository.countActiveByCategoryFilter(all, allCount, any, filter.any().isEmpty(), none);
+        return new Result(KeysetPage.of(fetched, pageSize, id -> id), total);
+    }
+}
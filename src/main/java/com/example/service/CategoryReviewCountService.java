@@ -0,0 +1,81 @@
+package com.example.service;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.entity.CategoryReviewCount;
+import com.example.repository.CategoryReviewCountRepository;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * カテゴリ単位の公開レビュー件数（category_review_count）の維持と参照
+ * - ReviewChangedEvent を保存と同じトランザクション内で受け、変更前後の差分だけ加算する
+ *   （変更前が active なら変更前のカテゴリに -1、変更後が active なら変更後のカテゴリに +1）
+ * - 差分更新が漏れた場合（SQL の直接実行など）に備え、定期的に実際の件数と突き合わせて直す
+ */
+@Service
+@RequiredArgsConstructor
+public class CategoryReviewCountService {
+
+    private static final Logger log = LoggerFactory.getLogger(CategoryReviewCountService.class);
+
+    private final CategoryReviewCountRepository countRepository;
+
+    @EventListener
+    public void onReviewChanged(ReviewChangedEvent event) {
+        // category_id → 差分
+        Map<Integer, Integer> deltas = new HashMap<>();
+        ReviewSnapshot before = event.getBefore();
+        ReviewSnapshot after = event.getAfter();
+        if (before != null && before.isActive()) {
+            before.getCategoryIds().forEach(id -> deltas.merge(id, -1, Integer::sum));
+        }
+        if (after.isActive()) {
+            after.getCategoryIds().forEach(id -> deltas.merge(id, +1, Integer::sum));
+        }
+        deltas.forEach((categoryId, delta) -> {
+            if (delta != 0) {
+                countRepository.addDelta(categoryId, delta);
+            }
+        });
+    }
+
+    /** category_id → 公開レビュー件数（行が無いカテゴリは含まれない = 0件） */
+    @Transactional(readOnly = true)
+    public Map<Integer, Integer> findAll() {
+        Map<Integer, Integer> out = new HashMap<>();
+        for (CategoryReviewCount c : countRepository.findAll()) {
+            out.put(c.getCategoryId(), c.getReviewCount());
+        }
+        return out;
+    }
+
+    /** 実際の件数と突き合わせ、食い違うカテゴリだけ直す。直した件数を返す */
+    @Scheduled(cron = "${reviewboard.categories.count-reconcile-cron:0 30 3 * * *}")
+    @Transactional
+    public int reconcile() {
+        // ★変更: 先に件数の行をロックしてから実際の件数を数える
+        //   ロックせずに「数える → 書く」とすると、その間にコミットした保存の addDelta を絶対値で上書きしてしまう
+        //   （ロック後の最初の読み取りでスナップショットが決まるので、待たされた保存のレビューも数に入る）
+        countRepository.lockAll();
+        int fixed = 0;
+        for (Object[] row : countRepository.findDrift()) {
+            Integer categoryId = ((Number) row[0]).intValue();
+            int stored = ((Number) row[1]).intValue();
+            int actual = ((Number) row[2]).intValue();
+            countRepository.setCount(categoryId, actual);
+            log.warn("[CategoryReviewCountService] 件数のずれを修正しました: category_id={} {} -> {}",
+                    categoryId, stored, actual);
+            fixed++;
+        }
+        return fixed;
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.service;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+
+import com.example.dto.ReviewCard.CategoryTag;
+import com.example.entity.Category;
+import com.example.repository.CategoryRepository;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * カテゴリ（参照データ）の読み取り専用スナップショット
+ * - 名前順の一覧と id → カテゴリの Map を不変オブジェクトで保持し、画面表示・入力チェックは DB を見ずに行う
+ * - カテゴリが変わったとき（CategoryChangeListener）だけ捨て、次の参照時に1回だけ読み直す
+ * - レビューへの関連付けは getReferenceById のプロキシで行う（SELECT なしで review_category に id を書ける）
+ *
+ * 変更の検知は JPA 経由の更新のみ。SQL を直接流した場合や複数ノード構成では invalidate() を呼ぶこと。
+ */
+@Service
+@RequiredArgsConstructor
+public class CategorySnapshotService {
+
+    private final CategoryRepository categoryRepository;
+
+    // 変更のたびに進める世代番号。読み込み中に変更が入ったら、その読み込み結果は保持しない
+    private final AtomicLong generation = new AtomicLong();
+    private volatile Snapshot snapshot;
+
+    /** ある時点のカテゴリ一覧（不変） */
+    @Getter
+    public static final class Snapshot {
+        private final long version;
+        private final List<CategoryTag> categories; // 名前順
+        private final Map<Integer, CategoryTag> byId;
+
+        Snapshot(long version, List<CategoryTag> categories) {
+            this.version = version;
+            this.categories = List.copyOf(categories);
+            Map<Integer, CategoryTag> m = new LinkedHashMap<>();
+            categories.forEach(c -> m.put(c.getCategoryId(), c));
+            this.byId = Collections.unmodifiableMap(m);
+        }
+
+        public Optional<CategoryTag> find(Integer categoryId) {
+            return Optional.ofNullable(categoryId == null ? null : byId.get(categoryId));
+        }
+    }
+
+    public Snapshot current() {
+        Snapshot s = snapshot;
+        if (s != null) {
+            return s;
+        }
+        synchronized (this) {
+            if (snapshot != null) {
+                return snapshot;
+            }
+            long gen = generation.get();
+            Snapshot loaded = new Snapshot(gen, categoryRepository.findAll(Sort.by(Sort.Direction.ASC, "categoryName"))
+                    .stream()
+                    .map(c -> new CategoryTag(c.getCategoryId(), c.getCategoryName()))
+                    .toList());
+            if (generation.get() == gen) {
+                snapshot = loaded;
+            }
+            return loaded;
+        }
+    }
+
+    /** 名前順のカテゴリ一覧（画面の選択肢用） */
+    public List<CategoryTag> findAllSorted() {
+        return current().getCategories();
+    }
+
+    public Optional<CategoryTag> find(Integer categoryId) {
+        return current().find(categoryId);
+    }
+
+    /**
+     * 選択された id のうち存在するものを、関連付け用の参照（プロキシ）にして返す（DB は読まない）
+     * 存在しない id は無視する（従来の findAllById と同じ扱い）
+     */
+    public Set<Category> references(Collection<Integer> categoryIds) {
+        Set<Category> out = new HashSet<>();
+        if (categoryIds == null) {
+            return out;
+        }
+        Snapshot s = current();
+        for (Integer id : categoryIds) {
+            if (s.getById().containsKey(id)) {
+                out.add(categoryRepository.getReferenceById(id));
+            }
+        }
+        return out;
+    }
+
+    /** スナップショットを捨てる（次の参照で読み直す） */
+    public void invalidate() {
+        generation.incrementAndGet();
+        snapshot = null;
+    }
+}
@@ -3,20 +3,136 @@ package com.example.service;
 import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.net.URL;
+import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.text.Normalizer;
+import java.time.Duration;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
-import org.jsoup.Connection;
+import org.apache.hc.client5.http.classic.methods.HttpGet;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.apache.hc.client5.http.protocol.RedirectLocations;
+import org.apache.hc.core5.http.ClassicHttpResponse;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.http.HttpHeaders;
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import com.example.util.BoundedInputStream;
+import com.example.util.HtmlHeadInputStream;
+import com.example.util.UrlCanonicalizer;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * URL からメタ情報（最終URL / タイトル / サムネイル）を取得するサービス
+ * ★追加: 正規化URL（UrlCanonicalizer）をキーにした取得結果キャッシュ
+ * - 表記違い（トラッキング用パラメータ・末尾の / ・大文字小文字・フラグメント）は同じエントリを共有する
+ * - 成功は contentmeta.cache.ttl、失敗は contentmeta.cache.negative-ttl だけ保持（負のキャッシュ）
+ * - 同じURLへの同時リクエストは1回の取得を共有する（single-flight）
+ * - 件数上限 contentmeta.cache.max-entries を超えたら古いものから追い出す
+ * - ヒット/ミスは /actuator/metrics/contentmeta.cache.requests で確認できる
+ * ★追加: contentmeta.fetch.mode=head（既定）では &lt;/head&gt; までしか読まずに解析する
+ * - 本文を丸ごとバッファ・DOM化しないので、重い記事/動画ページでも割り当てが小さい
+ * - 文字コード判定（Content-Type → BOM → meta charset → UTF-8）は Jsoup に任せる
+ * - &lt;/head&gt; が見つからないページも contentmeta.fetch.head-max-bytes で打ち切る
+ * - full にすると従来どおり文書全体を取得・解析する
+ * ★変更: 取得は共有の HTTP クライアント（HttpClientConfig#contentMetaHttpClient）で行う
+ * - keep-alive で接続を再利用し、ホスト別の同時接続数上限・DNSキャッシュ・個別タイムアウトを持つ
+ */
 @Service
 public class ContentMetaService {
 
+    private static final Logger log = LoggerFactory.getLogger(ContentMetaService.class);
+
+    // 取得結果（成功 or 失敗）。失敗も短時間キャッシュして同じURLへの連打を防ぐ
+    private static final class CachedMeta {
+        final Meta meta;        // 成功時
+        final String failure;   // 失敗時の理由（例外のクラス名とメッセージ）
+
+        private CachedMeta(Meta meta, String failure) {
+            this.meta = meta;
+            this.failure = failure;
+        }
+    }
+
+    private final CloseableHttpClient httpClient;
+    private final boolean headOnly;
+    private final int headMaxBytes;
+    private final int fullMaxBytes;
+    private final AsyncCache<String, CachedMeta> cache;
+    private final Counter hits;
+    private final Counter negativeHits;
+    private final Counter misses;
+    private final Counter coalesced;
+
+    public ContentMetaService(
+            @Qualifier("contentMetaHttpClient") CloseableHttpClient httpClient,
+            MeterRegistry meterRegistry,
+            @Value("${contentmeta.cache.ttl:30m}") Duration ttl,
+            @Value("${contentmeta.cache.negative-ttl:1m}") Duration negativeTtl,
+            @Value("${contentmeta.cache.max-entries:10000}") long maxEntries,
+            @Value("${contentmeta.fetch.mode:head}") String fetchMode,
+            @Value("${contentmeta.fetch.head-max-bytes:262144}") int headMaxBytes,
+            @Value("${contentmeta.fetch.full-max-bytes:2097152}") int fullMaxBytes) {
+        this.httpClient = httpClient;
+        this.headOnly = !"full".equalsIgnoreCase(fetchMode.trim());
+        this.headMaxBytes = headMaxBytes;
+        this.fullMaxBytes = fullMaxBytes;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfter(new Expiry<String, CachedMeta>() {
+                    @Override
+                    public long expireAfterCreate(String key, CachedMeta value, long currentTime) {
+                        return (value.meta != null ? ttl : negativeTtl).toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, CachedMeta value, long currentTime,
+                            long currentDuration) {
+                        return expireAfterCreate(key, value, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, CachedMeta value, long currentTime,
+                            long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .buildAsync();
+
+        this.hits = requestCounter(meterRegistry, "hit");
+        this.negativeHits = requestCounter(meterRegistry, "negative_hit");
+        this.misses = requestCounter(meterRegistry, "miss");
+        this.coalesced = requestCounter(meterRegistry, "coalesced");
+        Gauge.builder("contentmeta.cache.size", cache, c -> c.synchronous().estimatedSize())
+                .description("URLメタ情報キャッシュの件数")
+                .register(meterRegistry);
+    }
+
+    private static Counter requestCounter(MeterRegistry registry, String result) {
+        return Counter.builder("contentmeta.cache.requests")
+                .description("URLメタ情報キャッシュの参照結果")
+                .tag("result", result)
+                .register(registry);
+    }
+
     public static class Meta {
         public final String url;       // 最終到達URL（リダイレクト後）
         public final String title;     // OGP or <title>（512文字に安全トリム）
@@ -30,23 +146,83 @@ public class ContentMetaService {
     }
 
     public Meta fetch(String rawUrl) throws IOException, URISyntaxException {
-        String normalizedInput = normalizeUrl(rawUrl); // 入力の最低限正規化（スキーム補完など）
+        // ★変更: キャッシュのキーは正規化した URL、取得しに行くのは入力どおりの URL（スキーム補完・IDN だけ）
+        //   正規化で並べ替え・削除したパラメータや末尾の / に意味があるページ（署名付き URL など）を壊さない
+        String requestUrl = UrlCanonicalizer.toRequestUrl(rawUrl);
+        String cacheKey = UrlCanonicalizer.canonicalize(rawUrl);
 
-        Connection conn = Jsoup.connect(normalizedInput)
-                .userAgent("Mozilla/5.0 (Windows NT 10.0; Win64; x64) "
-                         + "AppleWebKit/537.36 (KHTML, like Gecko) "
-                         + "Chrome/120.0.0.0 Safari/537.36 JsoupReviewBoard/1.0")
-                .timeout(15_000)               // 既存: 15秒
-                .followRedirects(true)
-                .ignoreHttpErrors(true)
-                .ignoreContentType(true);
+        // キャッシュ済み（取得中を含む）ならそれを使う
+        CompletableFuture<CachedMeta> existing = cache.getIfPresent(cacheKey);
+        if (existing == null) {
+            // 自分が取得担当になれたときだけ外部へ取りに行く（同時リクエストは下の join で待つ）
+            CompletableFuture<CachedMeta> mine = new CompletableFuture<>();
+            existing = cache.asMap().putIfAbsent(cacheKey, mine);
+            if (existing == null) {
+                misses.increment();
+                try {
+                    mine.complete(load(requestUrl));
+                } finally {
+                    // 想定外のエラーでも待っている側を解放する（例外完了はキャッシュに残らない）
+                    if (!mine.isDone()) {
+                        mine.completeExceptionally(new IllegalStateException("meta fetch aborted"));
+                    }
+                }
+                return unwrap(mine.join(), requestUrl);
+            }
+            coalesced.increment();
+        }
 
+        CachedMeta cached;
         try {
-            Document doc = conn.get();
+            cached = existing.join();
+        } catch (CompletionException e) {
+            throw new IOException("Meta fetch failed for URL: " + requestUrl, e.getCause());
+        }
+        (cached.meta != null ? hits : negativeHits).increment();
+        return unwrap(cached, requestUrl);
+    }
 
-            // 最終到達URL
-            URL finalUrl = conn.response() != null ? conn.response().url() : new URL(normalizedInput);
-            String finalUrlStr = finalUrl.toString();
+    private Meta unwrap(CachedMeta cached, String requestUrl) throws IOException {
+        if (cached.meta != null) {
+            return cached.meta;
+        }
+        throw new IOException("Meta fetch failed for URL: " + requestUrl + " (" + cached.failure + ")");
+    }
+
+    // 実際の取得（失敗は例外にせず CachedMeta の失敗として返し、負のキャッシュに載せる）
+    // ★変更: 失敗はここでログに残し（負のキャッシュ中の再要求では出ない）、理由はメッセージまで保持する
+    private CachedMeta load(String requestUrl) {
+        try {
+            return new CachedMeta(fetchUncached(requestUrl), null);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Meta fetch failed for URL: {}", requestUrl, e);
+            return new CachedMeta(null, describe(e));
+        }
+    }
+
+    // fetchUncached が包んだ IOException は元の例外で表す（例: "ConnectException: Connection refused"）
+    private static String describe(Exception e) {
+        Throwable cause = e.getCause() != null ? e.getCause() : e;
+        return cause.getMessage() == null
+                ? cause.getClass().getSimpleName()
+                : cause.getClass().getSimpleName() + ": " + cause.getMessage();
+    }
+
+    private Meta fetchUncached(String requestUrl) throws IOException {
+        // ★変更: Jsoup.connect（毎回新規接続）をやめ、共有プールのクライアントで取得する。解析は引き続き Jsoup
+        HttpGet get;
+        try {
+            get = new HttpGet(requestUrl);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Meta fetch failed for URL: " + requestUrl + " (InvalidUrl)", e);
+        }
+        get.setHeader(HttpHeaders.ACCEPT, "text/html,application/xhtml+xml;q=0.9,*/*;q=0.8");
+        HttpClientContext context = HttpClientContext.create();
+
+        try (ClassicHttpResponse response = httpClient.executeOpen(null, get, context)) {
+            // 最終到達URL（リダイレクト後）。ステータスに関わらず本文を解析する（従来の ignoreHttpErrors 相当）
+            String finalUrlStr = finalUri(get, context).toString();
+            Document doc = parse(get, response.getEntity(), finalUrlStr);
 
             String rawTitle = firstOg(doc, "og:title")
                     .orElseGet(() -> Optional.ofNullable(doc.title()).orElse("（無題）"));
@@ -59,7 +235,41 @@ public class ContentMetaService {
 
             return new Meta(finalUrlStr, safeTitle, safeImage);
         } catch (IOException e) {
-            throw new IOException("Meta fetch failed for URL: " + normalizedInput + " (" + e.getClass().getSimpleName() + ")", e);
+            throw new IOException("Meta fetch failed for URL: " + requestUrl + " (" + e.getClass().getSimpleName() + ")", e);
+        }
+    }
+
+    private URI finalUri(HttpGet get, HttpClientContext context) throws IOException {
+        RedirectLocations redirects = context.getRedirectLocations();
+        if (redirects != null && redirects.size() > 0) {
+            return redirects.get(redirects.size() - 1);
+        }
+        try {
+            return get.getUri();
+        } catch (URISyntaxException e) {
+            throw new IOException(e);
+        }
+    }
+
+    // 本文を Jsoup で解析する。gzip/deflate はクライアント側で展開済み
+    private Document parse(HttpGet get, HttpEntity entity, String baseUri) throws IOException {
+        if (entity == null) {
+            return Document.createShell(baseUri);
+        }
+        // charset が null なら BOM / <meta charset> から判定（無ければ UTF-8）
+        String charset = Optional.ofNullable(ContentType.parseLenient(entity.getContentType()))
+                .map(ContentType::getCharset)
+                .map(Charset::name)
+                .orElse(null);
+
+        // ★変更: head は </head> まで（または head-max-bytes まで）、full も full-max-bytes までだけを解析する
+        // 打ち切った場合は残りの本文を読み捨てずに接続ごと破棄する（最後まで読んだ接続はプールへ戻る）
+        BoundedInputStream body = (headOnly
+                ? new HtmlHeadInputStream(entity.getContent(), headMaxBytes)
+                : new BoundedInputStream(entity.getContent(), fullMaxBytes))
+                .whenStoppedEarly(get::cancel);
+        try (body) {
+            return Jsoup.parse(body, charset, baseUri);
         }
     }
 
@@ -72,19 +282,6 @@ public class ContentMetaService {
         return Optional.empty();
     }
 
-    private String normalizeUrl(String raw) throws URISyntaxException {
-        String trimmed = raw == null ? "" : raw.trim();
-        if (trimmed.isEmpty()) return trimmed;
-
-        URI u = new URI(trimmed);
-        // スキーム省略時は https を補う
-        if (u.getScheme() == null) {
-            u = new URI("https://" + trimmed);
-        }
-        // 余分なフラグメント等はここで落とすなど最小正規化
-        return u.toString();
-    }
-
     // タイトルの安全化
     private String sanitizeTitle(String input, int limitChars) {
         if (input == null) return "";
@@ -0,0 +1,113 @@
+package com.example.service;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.entity.Contents;
+import com.example.repository.ContentsRatingSummaryRepository;
+import com.example.repository.ContentsRepository;
+import com.example.repository.ReviewRepository;
+import com.example.util.IsbnNormalizer;
+import com.example.util.UrlCanonicalizer;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * contents の検索キー（contents_url_hash / book_isbn13）の埋め戻し
+ * - 新しい行は Contents の @PrePersist / @PreUpdate で設定されるので、対象はシード・列追加前からある行だけ
+ * - 正規化すると同じになる行（URL の表記違い、ISBN-10 / ISBN-13 の表記違い）は contents_id の小さい行に統合する
+ *   （レビューと評価集計を付け替えてから重複行を削除）
+ * - ISBN として不正な行は book_isbn13 を NULL のまま残す（URL で引ける）
+ */
+@Service
+@RequiredArgsConstructor
+public class ContentsKeyBackfillService {
+
+    private static final Logger log = LoggerFactory.getLogger(ContentsKeyBackfillService.class);
+
+    private final ContentsRepository contentsRepository;
+    private final ReviewRepository reviewRepository;
+    private final ContentsRatingSummaryRepository summaryRepository;
+
+    // 起動時の埋め戻しで1回に処理する件数
+    @Value("${reviewboard.contents.key-backfill-chunk-size:500}")
+    private int chunkSize;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void backfill() {
+        backfillUrlHash();
+        backfillBookIsbn13();
+    }
+
+    private void backfillUrlHash() {
+        int filled = 0;
+        int merged = 0;
+        int afterId = 0;
+        List<Object[]> rows;
+        while (!(rows = contentsRepository.findMissingUrlHash(afterId, Limit.of(chunkSize))).isEmpty()) {
+            for (Object[] row : rows) {
+                int contentsId = ((Number) row[0]).intValue();
+                afterId = contentsId;
+                byte[] hash = UrlCanonicalizer.hash((String) row[1]);
+                Optional<Contents> keeper = contentsRepository.findByContentsUrlHash(hash);
+                if (keeper.isPresent() && !keeper.get().getContentsId().equals(contentsId)) {
+                    mergeInto(contentsId, keeper.get().getContentsId());
+                    merged++;
+                } else {
+                    contentsRepository.updateUrlHash(contentsId, hash);
+                    filled++;
+                }
+            }
+        }
+        if (filled > 0 || merged > 0) {
+            log.info("[ContentsKeyBackfillService] contents_url_hash を {} 件埋め戻し、重複 {} 件を統合しました", filled, merged);
+        }
+    }
+
+    private void backfillBookIsbn13() {
+        int filled = 0;
+        int merged = 0;
+        int afterId = 0;
+        List<Object[]> rows;
+        while (!(rows = contentsRepository.findMissingBookIsbn13(afterId, Limit.of(chunkSize))).isEmpty()) {
+            for (Object[] row : rows) {
+                int contentsId = ((Number) row[0]).intValue();
+                afterId = contentsId;
+                Long isbn13 = IsbnNormalizer.toIsbn13Number((String) row[1]);
+                if (isbn13 == null) {
+                    continue;
+                }
+                Optional<Contents> keeper = contentsRepository.findByBookIsbn13(isbn13);
+                if (keeper.isPresent() && !keeper.get().getContentsId().equals(contentsId)) {
+                    mergeInto(contentsId, keeper.get().getContentsId());
+                    merged++;
+                } else {
+                    contentsRepository.updateBookIsbn13(contentsId, isbn13);
+                    filled++;
+                }
+            }
+        }
+        if (filled > 0 || merged > 0) {
+            log.info("[ContentsKeyBackfillService] book_isbn13 を {} 件埋め戻し、重複 {} 件を統合しました", filled, merged);
+        }
+    }
+
+    // 重複行 fromId のレビュー・評価集計を toId に移し、fromId を削除する
+    private void mergeInto(int fromId, int toId) {
+        reviewRepository.moveToContents(fromId, toId);
+        summaryRepository.findById(fromId).ifPresent(s -> summaryRepository.addDelta(toId,
+                s.getReviewCount(), s.getRateSum(), s.getRate1(), s.getRate2(), s.getRate3(), s.getRate4(),
+                s.getRate5()));
+        contentsRepository.deleteById(fromId); // 評価集計は FK の ON DELETE CASCADE で消える
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.service;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.entity.ContentsRatingSummary;
+import com.example.repository.ContentsRatingSummaryRepository;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * コンテンツ単位の評価集計（contents_rating_summary）の維持と参照
+ * - ReviewChangedEvent を保存と同じトランザクション内で受け、変更前後の差分だけ加算する
+ *   （変更前が active なら -1、変更後が active なら +1。評価・コンテンツが変われば両方に反映）
+ */
+@Service
+@RequiredArgsConstructor
+public class ContentsRatingService {
+
+    private final ContentsRatingSummaryRepository summaryRepository;
+
+    @EventListener
+    public void onReviewChanged(ReviewChangedEvent event) {
+        // contents_id → [件数, 合計, 評価1..5] の差分
+        Map<Integer, int[]> deltas = new HashMap<>();
+        ReviewSnapshot before = event.getBefore();
+        ReviewSnapshot after = event.getAfter();
+        if (before != null && before.isActive()) {
+            accumulate(deltas, before, -1);
+        }
+        if (after.isActive()) {
+            accumulate(deltas, after, +1);
+        }
+
+        deltas.forEach((contentsId, d) -> {
+            boolean changed = false;
+            for (int v : d) {
+                changed |= v != 0;
+            }
+            if (changed) {
+                summaryRepository.addDelta(contentsId, d[0], d[1], d[2], d[3], d[4], d[5], d[6]);
+            }
+        });
+    }
+
+    private void accumulate(Map<Integer, int[]> deltas, ReviewSnapshot s, int sign) {
+        if (s.getContentsId() == null || s.getRate() == null || s.getRate() < 1 || s.getRate() > 5) {
+            return;
+        }
+        int[] d = deltas.computeIfAbsent(s.getContentsId(), k -> new int[7]);
+        d[0] += sign;
+        d[1] += sign * s.getRate();
+        d[1 + s.getRate()] += sign;
+    }
+
+    /** 1コンテンツの集計（無ければ空集計） */
+    @Transactional(readOnly = true)
+    public ContentsRatingSummary find(Integer contentsId) {
+        return summaryRepository.findById(contentsId)
+                .orElseGet(() -> ContentsRatingSummary.empty(contentsId));
+    }
+
+    /** 複数コンテンツの集計を1回で取得（一覧用）。集計が無いものは含まれない */
+    @Transactional(readOnly = true)
+    public Map<Integer, ContentsRatingSummary> findAll(Collection<Integer> contentsIds) {
+        Map<Integer, ContentsRatingSummary> out = new HashMap<>();
+        if (contentsIds.isEmpty()) {
+            return out;
+        }
+        for (ContentsRatingSummary s : summaryRepository.findAllById(contentsIds)) {
+            out.put(s.getContentsId(), s);
+        }
+        return out;
+    }
+}
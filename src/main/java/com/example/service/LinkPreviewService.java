@@ -0,0 +1,114 @@
+package com.example.service;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.example.dto.LinkPreview;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * 複数URLのメタ情報をまとめて並列取得するサービス
+ * - 1URL = 1仮想スレッド。待ち時間は合計ではなく一番遅い1件にほぼ揃う
+ * - 全体の同時取得数は contentmeta.batch.max-concurrency、同一ホストへは contentmeta.batch.max-per-host まで
+ * - 取得そのもの（キャッシュ・single-flight を含む）は ContentMetaService に任せる
+ */
+@Service
+public class LinkPreviewService {
+
+    private final ContentMetaService contentMetaService;
+    private final int maxUrls;
+    private final int maxPerHost;
+    private final Semaphore global;
+    // ホスト別の同時取得枠。使用中のスレッドが参照している間は回収されない
+    private final Cache<String, Semaphore> perHost = Caffeine.newBuilder().weakValues().build();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public LinkPreviewService(ContentMetaService contentMetaService,
+            @Value("${contentmeta.batch.max-urls:20}") int maxUrls,
+            @Value("${contentmeta.batch.max-concurrency:16}") int maxConcurrency,
+            @Value("${contentmeta.batch.max-per-host:2}") int maxPerHost) {
+        this.contentMetaService = contentMetaService;
+        this.maxUrls = maxUrls;
+        this.maxPerHost = maxPerHost;
+        this.global = new Semaphore(maxConcurrency);
+    }
+
+    public int getMaxUrls() {
+        return maxUrls;
+    }
+
+    /**
+     * 空行を除いた先頭 max-urls 件を並列に取得する
+     * 返す future は入力順。各 future は取得が終わった時点で（失敗も LinkPreview として）完了する
+     */
+    public List<CompletableFuture<LinkPreview>> fetchAll(List<String> urls) {
+        List<CompletableFuture<LinkPreview>> futures = new ArrayList<>();
+        for (String raw : urls) {
+            if (raw == null || raw.isBlank()) {
+                continue;
+            }
+            if (futures.size() >= maxUrls) {
+                break;
+            }
+            int index = futures.size();
+            String input = raw.trim();
+            futures.add(CompletableFuture.supplyAsync(() -> fetchOne(index, input), executor));
+        }
+        return futures;
+    }
+
+    private LinkPreview fetchOne(int index, String input) {
+        // ホスト枠 → 全体枠の順に取る（ホスト待ちの間に全体枠を塞がない）
+        Semaphore host = perHost.get(hostKey(input), h -> new Semaphore(maxPerHost));
+        try {
+            host.acquire();
+            try {
+                global.acquire();
+                try {
+                    ContentMetaService.Meta m = contentMetaService.fetch(input);
+                    return LinkPreview.success(index, input, m.url, m.title, m.imageUrl);
+                } finally {
+                    global.release();
+                }
+            } finally {
+                host.release();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return LinkPreview.failure(index, input, "中断されました");
+        } catch (Exception e) {
+            return LinkPreview.failure(index, input, "メタ情報の取得に失敗しました");
+        }
+    }
+
+    // 枠の単位はホスト名（解析できない入力は入力全体を1ホスト扱い）
+    private static String hostKey(String input) {
+        try {
+            String withScheme = input.contains("://") ? input : "https://" + input;
+            String host = URI.create(withScheme).getHost();
+            if (host != null) {
+                return host.toLowerCase(Locale.ROOT);
+            }
+        } catch (IllegalArgumentException e) {
+            // 下で入力そのものをキーにする
+        }
+        return input;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -1,36 +1,80 @@
 package com.example.service;
 
+import java.text.Normalizer;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value; // application.properties から取得
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.client.RestClient;
 import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestClientResponseException;
 
+import com.example.util.CircuitBreaker;
+import com.example.util.TokenBucket;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 // ★追加: 警告ログ用
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 
 /**
  * 楽天BooksBook APIの最小クライアントサービス
- * 既存構成を崩さないため、外部ライブラリはSpring標準のRestClientのみを使用
+ * 既存構成を崩さないため、呼び出しはSpring標準のRestClientのみを使用（下回りは HttpClientConfig のプール）
  * 画面は1ページ完結で「検索→プレビュー→レビュー投稿」を行う
+ * ★追加: タイトル検索結果のキャッシュ
+ * - キーは「正規化したタイトル + 件数」。rakuten.cache.ttl の間は API を呼ばずに返す
+ * - TTL 切れでも rakuten.cache.stale-ttl 以内なら、API 障害時に限り古い結果で代替する
+ * - 件数上限 rakuten.cache.max-entries を超えたら古いものから追い出す
+ * - 同じ HTTP リクエスト内では（失敗も含めて）API を2回呼ばない
+ * ★変更: 呼び出しは非同期（CompletableFuture）。リクエストスレッドを sleep で止めない
+ * - 再試行はジッター付き指数バックオフでスケジュールし、実際の HTTP 呼び出しは仮想スレッドで行う
+ * - サーキットブレーカー: 連続失敗で開き、開いている間は API を呼ばずに即 ExternalApiUnavailableException
+ * - バルクヘッド: 同時に外へ出る呼び出しを rakuten.resilience.max-concurrent 件までに制限（超過は即失敗）
+ * - 状態は /actuator/metrics の rakuten.circuit.state / rakuten.api.calls / rakuten.api.rejections で確認できる
+ * ★追加: レート制限と相乗り
+ * - トークンバケット（rakuten.ratelimit.*）で外への呼び出し（再試行を含む）を平準化。待ちが max-wait を超えたら諦める
+ * - 同じ検索が取得中なら、別リクエストからでも1回の呼び出しを共有する
+ * ★追加: 書籍カタログ（ローカルの写し）を先に見る（rakuten.catalog.local-first）
+ * - 楽天で取れた結果は BookCatalogService で ISBN-13 単位に記録し、鮮度内ならそこから返す
+ * - 楽天障害時は、鮮度切れのカタログ記録でも代替に使う
  */
 @Service
 public class RakutenBooksService {
 
 	private static final Logger log = LoggerFactory.getLogger(RakutenBooksService.class); 
 
-	// プロパティ未設定でもプレースホルダ解決エラーで落ちないようデフォルトを与える
-	// endpoint はデフォルトで BooksBook/Search のURLを使用
-	@Value("${rakuten.api.endpoint:https://app.rakuten.co.jp/services/api/BooksBook/Search/20170404}")
-	private String endpoint; // 例: https://app.rakuten.co.jp/services/api/BooksBook/Search/20170404
+	// ★変更: 呼び出し先 rakuten.api.endpoint は HttpClientConfig#rakutenRestClient の baseUrl だけで持つ
 
 	// 未設定時は空文字（起動時に落とさず、呼び出し時にチェック）
 	@Value("${rakuten.api.applicationId:}")
@@ -40,38 +84,326 @@ public class RakutenBooksService {
 	@Value("${rakuten.api.retries:2}")
 	private int retries; // デフォルト2回（合計3試行: 初回+2リトライ）
 
+	// ★追加: 再試行の待ち時間（0〜min(backoff-max, backoff-base×2^n) の一様乱数 = フルジッター）
+	@Value("${rakuten.resilience.backoff-base:200ms}")
+	private Duration backoffBase;
+
+	@Value("${rakuten.resilience.backoff-max:2s}")
+	private Duration backoffMax;
+
+	// 再試行を含めた1検索あたりの上限時間
+	@Value("${rakuten.resilience.timeout:20s}")
+	private Duration callTimeout;
+
+	@Value("${rakuten.resilience.max-concurrent:10}")
+	private int maxConcurrent;
+
+	@Value("${rakuten.resilience.circuit.failure-threshold:5}")
+	private int circuitFailureThreshold;
+
+	@Value("${rakuten.resilience.circuit.open-duration:30s}")
+	private Duration circuitOpenDuration;
+
+	// ★追加: 外へ出す呼び出しのレート制限（トークンバケット）
+	@Value("${rakuten.ratelimit.permits-per-second:1}")
+	private double rateLimitPermitsPerSecond;
+
+	@Value("${rakuten.ratelimit.burst:3}")
+	private int rateLimitBurst;
+
+	// 順番待ちの上限。超える呼び出しは待たずに ExternalApiUnavailableException（古いキャッシュがあればそれで代替）
+	@Value("${rakuten.ratelimit.max-wait:2s}")
+	private Duration rateLimitMaxWait;
+
+	// ★追加: 書籍カタログ（BookCatalogService）を先に見るか。false なら記録だけして検索は常に楽天
+	@Value("${rakuten.catalog.local-first:true}")
+	private boolean localFirst;
+
+	// ★追加: 検索結果キャッシュの設定
+	@Value("${rakuten.cache.ttl:10m}")
+	private Duration cacheTtl;
+
+	@Value("${rakuten.cache.stale-ttl:1h}")
+	private Duration cacheStaleTtl;
+
+	@Value("${rakuten.cache.max-entries:1000}")
+	private long cacheMaxEntries;
+
+	// 取得時刻つきの検索結果（stale-ttl まで保持し、ttl を過ぎたら「古い」扱い）
+	private static final class CachedSearch {
+		final List<BookItem> items;
+		final long fetchedAtNanos;
+
+		CachedSearch(List<BookItem> items, long fetchedAtNanos) {
+			this.items = items;
+			this.fetchedAtNanos = fetchedAtNanos;
+		}
+	}
+
+	private Cache<String, CachedSearch> searchCache;
+
+	// リクエスト内メモ（キー → 検索結果の future。失敗した future もそのまま残す）
+	private static final String REQUEST_MEMO_ATTR = RakutenBooksService.class.getName() + ".memo";
+
+	// ★変更: 毎回 RestClient を作らず、プール付きの共有クライアント（HttpClientConfig#rakutenRestClient）を使う
+	// 接続は keep-alive で再利用され、タイムアウト・接続数上限も rakuten.http.* で設定される
+	private final RestClient restClient;
+	private final MeterRegistry meterRegistry;
+	private final BookCatalogService bookCatalogService;
+
+	// ★追加: 耐障害まわり（initResilience で設定値から組み立てる）
+	private final ExecutorService callExecutor = Executors.newVirtualThreadPerTaskExecutor();
+	private final ScheduledExecutorService retryScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+		Thread t = new Thread(r, "rakuten-retry");
+		t.setDaemon(true);
+		return t;
+	});
+	private CircuitBreaker circuitBreaker;
+	private Semaphore bulkhead;
+	private TokenBucket rateLimiter;
+	// ★追加: 同じ検索（正規化タイトル + 件数）の取得中 future。リクエストをまたいで1回の呼び出しを共有する
+	private final ConcurrentHashMap<String, CompletableFuture<List<BookItem>>> inFlight = new ConcurrentHashMap<>();
+	private Counter callSuccess;
+	private Counter callFailure;
+	private Counter rejectedCircuitOpen;
+	private Counter rejectedBulkheadFull;
+	private Counter rejectedRateLimited;
+	private Counter coalesced;
+	private Counter catalogHits;
+
+	public RakutenBooksService(@Qualifier("rakutenRestClient") RestClient restClient, MeterRegistry meterRegistry,
+			BookCatalogService bookCatalogService) {
+		this.restClient = restClient;
+		this.meterRegistry = meterRegistry;
+		this.bookCatalogService = bookCatalogService;
+	}
+
 	private RestClient client() {
-		// 毎回生成しても軽い/最小構成重視（必要なら@Bean化）
-		return RestClient.builder()
-				.baseUrl(endpoint)
+		return restClient;
+	}
+
+	@PostConstruct
+	void initCache() {
+		searchCache = Caffeine.newBuilder()
+				.maximumSize(cacheMaxEntries)
+				.expireAfterWrite(cacheTtl.compareTo(cacheStaleTtl) > 0 ? cacheTtl : cacheStaleTtl)
 				.build();
 	}
 
+	@PostConstruct
+	void initResilience() {
+		circuitBreaker = new CircuitBreaker(circuitFailureThreshold, circuitOpenDuration);
+		bulkhead = new Semaphore(maxConcurrent);
+		rateLimiter = new TokenBucket(rateLimitPermitsPerSecond, rateLimitBurst);
+
+		callSuccess = Counter.builder("rakuten.api.calls").tag("outcome", "success")
+				.description("楽天Books API 呼び出し（試行単位）").register(meterRegistry);
+		callFailure = Counter.builder("rakuten.api.calls").tag("outcome", "failure")
+				.description("楽天Books API 呼び出し（試行単位）").register(meterRegistry);
+		rejectedCircuitOpen = Counter.builder("rakuten.api.rejections").tag("reason", "circuit_open")
+				.description("呼び出さずに失敗させた件数").register(meterRegistry);
+		rejectedBulkheadFull = Counter.builder("rakuten.api.rejections").tag("reason", "bulkhead_full")
+				.description("呼び出さずに失敗させた件数").register(meterRegistry);
+		rejectedRateLimited = Counter.builder("rakuten.api.rejections").tag("reason", "rate_limited")
+				.description("呼び出さずに失敗させた件数").register(meterRegistry);
+		coalesced = Counter.builder("rakuten.api.coalesced")
+				.description("取得中の同じ検索に相乗りした件数").register(meterRegistry);
+		catalogHits = Counter.builder("rakuten.catalog.hits")
+				.description("楽天を呼ばずに書籍カタログで返した検索").register(meterRegistry);
+		// 0=CLOSED / 1=OPEN / 2=HALF_OPEN
+		Gauge.builder("rakuten.circuit.state", circuitBreaker, cb -> cb.getState().ordinal())
+				.description("楽天Books API のサーキット状態（0=closed, 1=open, 2=half_open）")
+				.register(meterRegistry);
+		Gauge.builder("rakuten.bulkhead.available", bulkhead, Semaphore::availablePermits)
+				.description("楽天Books API の同時呼び出しの空き枠")
+				.register(meterRegistry);
+	}
+
+	@PreDestroy
+	void shutdown() {
+		retryScheduler.shutdownNow();
+		callExecutor.shutdownNow();
+	}
+
+	/** 現在のサーキット状態（画面・監視用） */
+	public CircuitBreaker.State getCircuitState() {
+		return circuitBreaker.getState();
+	}
+
 	@PostConstruct
 	void warnIfMissingConfig() {
 		if (isBlank(applicationId)) {
 			log.warn(
 					"[RakutenBooksService] 'rakuten.api.applicationId' が未設定です。検索時にエラーになります。application.properties に設定してください。");
 		}
-		if (isBlank(endpoint)) {
-			log.warn("[RakutenBooksService] 'rakuten.api.endpoint' が未設定です。デフォルトURLを使用します。");
-		}
 	}
 
-	/** タイトルで検索（最小フィールドのみ使用） */
-	public List<BookItem> searchByTitle(String title, int hits) {
+	/**
+	 * タイトルで検索（最小フィールドのみ使用）
+	 * ★変更: 非同期。API 障害・サーキット OPEN・バルクヘッド満杯・時間切れは ExternalApiUnavailableException で完了する
+	 */
+	public CompletableFuture<List<BookItem>> searchByTitle(String title, int hits) {
 		ensureConfigured();
+		String key = normalizeTitle(title) + "#" + hits;
+
+		// ★追加: 同じリクエスト内では同じ future を共有する（取得中・失敗済みでも API は呼び直さない）
+		Map<String, CompletableFuture<List<BookItem>>> memo = requestMemo();
+		CompletableFuture<List<BookItem>> shared = memo != null
+				? memo.computeIfAbsent(key, k -> searchCached(k, title, hits))
+				: searchCached(key, title, hits);
+		return shared.thenApply(RakutenBooksService::copyOf);
+	}
+
+	// 新しいキャッシュ → （ローカル優先なら）書籍カタログ → API → （障害時のみ）古いキャッシュ / カタログ の順に使う
+	private CompletableFuture<List<BookItem>> searchCached(String key, String title, int hits) {
+		CachedSearch cached = searchCache.getIfPresent(key);
+		long now = System.nanoTime();
+		if (cached != null && now - cached.fetchedAtNanos < cacheTtl.toNanos()) {
+			return CompletableFuture.completedFuture(cached.items);
+		}
+		// ★追加: ローカル優先。DB 参照も仮想スレッドで行い、リクエストスレッドは待たせない
+		CompletableFuture<Optional<List<BookItem>>> local = localFirst
+				? CompletableFuture.supplyAsync(() -> findInCatalog(() -> bookCatalogService.findFresh(key, title, hits)),
+						callExecutor)
+				: CompletableFuture.completedFuture(Optional.empty());
+
+		return local
+				.thenCompose(found -> {
+					if (found.isPresent()) {
+						catalogHits.increment();
+						return CompletableFuture.completedFuture(found.get());
+					}
+					return coalescedSearch(key, title.trim(), hits);
+				})
+				.thenApply(found -> {
+					List<BookItem> items = List.copyOf(found);
+					searchCache.put(key, new CachedSearch(items, now));
+					return items;
+				})
+				.exceptionallyAsync(ex -> {
+					Throwable cause = unwrap(ex);
+					if (cause instanceof ExternalApiUnavailableException) {
+						if (cached != null && now - cached.fetchedAtNanos < cacheStaleTtl.toNanos()) {
+							log.warn("[RakutenBooksService] API が利用できないため古い検索結果を返します: key={}", key);
+							return cached.items;
+						}
+						Optional<List<BookItem>> stale = localFirst
+								? findInCatalog(() -> bookCatalogService.findAny(key, title, hits))
+								: Optional.empty();
+						if (stale.isPresent()) {
+							log.warn("[RakutenBooksService] API が利用できないため書籍カタログの記録を返します: key={}", key);
+							return stale.get();
+						}
+					}
+					throw cause instanceof RuntimeException re ? re : new CompletionException(cause);
+				}, callExecutor);
+	}
+
+	// カタログ参照の失敗（DB 障害など）は「ローカルに無い」扱いにして楽天検索を続ける
+	private Optional<List<BookItem>> findInCatalog(Supplier<Optional<List<BookItem>>> lookup) {
+		try {
+			return lookup.get();
+		} catch (RuntimeException e) {
+			log.warn("[RakutenBooksService] 書籍カタログを参照できませんでした: {}", e.toString());
+			return Optional.empty();
+		}
+	}
+
+	// 楽天から取れた結果をカタログに写す（失敗しても検索結果には影響させない）
+	private void recordInCatalog(String key, List<BookItem> items) {
+		try {
+			callExecutor.execute(() -> {
+				try {
+					bookCatalogService.record(key, items);
+				} catch (RuntimeException e) {
+					log.warn("[RakutenBooksService] 書籍カタログに記録できませんでした: {}", e.toString());
+				}
+			});
+		} catch (RuntimeException e) {
+			// アプリ終了中など
+		}
+	}
+
+	// ★追加: 同じキーの取得中があればそれに相乗りし、無ければ自分が取得する（終わったら取り除く）
+	private CompletableFuture<List<BookItem>> coalescedSearch(String key, String title, int hits) {
+		CompletableFuture<List<BookItem>> mine = new CompletableFuture<>();
+		CompletableFuture<List<BookItem>> existing = inFlight.putIfAbsent(key, mine);
+		if (existing != null) {
+			coalesced.increment();
+			return existing;
+		}
+		mine.whenComplete((v, ex) -> inFlight.remove(key, mine));
+		try {
+			searchRemote(title, hits).whenComplete((v, ex) -> {
+				if (ex != null) {
+					mine.completeExceptionally(unwrap(ex));
+				} else {
+					recordInCatalog(key, v);
+					mine.complete(v);
+				}
+			});
+		} catch (RuntimeException e) {
+			mine.completeExceptionally(e);
+		}
+		return mine;
+	}
+
+	/** CompletableFuture の失敗から元の例外を取り出す */
+	public static Throwable unwrap(Throwable ex) {
+		return ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+	}
+
+	// 現在の HTTP リクエストのメモ（リクエスト外からの呼び出しでは null）
+	@SuppressWarnings("unchecked")
+	private static Map<String, CompletableFuture<List<BookItem>>> requestMemo() {
+		RequestAttributes attrs = RequestContextHolder.getRequestAttributes();
+		if (attrs == null) {
+			return null;
+		}
+		Object memo = attrs.getAttribute(REQUEST_MEMO_ATTR, RequestAttributes.SCOPE_REQUEST);
+		if (memo == null) {
+			memo = new ConcurrentHashMap<String, CompletableFuture<List<BookItem>>>();
+			attrs.setAttribute(REQUEST_MEMO_ATTR, memo, RequestAttributes.SCOPE_REQUEST);
+		}
+		return (Map<String, CompletableFuture<List<BookItem>>>) memo;
+	}
+
+	// キャッシュのキー用: 全角/半角・大文字小文字・空白の違いを吸収する
+	static String normalizeTitle(String title) {
+		if (title == null) {
+			return "";
+		}
+		return Normalizer.normalize(title, Normalizer.Form.NFKC)
+				.toLowerCase(Locale.ROOT)
+				.trim()
+				.replaceAll("\\s+", " ");
+	}
+
+	// BookItem は公開フィールドなので、呼び出し側で書き換えられてもキャッシュに波及しないよう複製して返す
+	private static List<BookItem> copyOf(List<BookItem> items) {
+		List<BookItem> out = new ArrayList<>(items.size());
+		for (BookItem it : items) {
+			BookItem c = new BookItem();
+			c.title = it.title;
+			c.isbn = it.isbn;
+			c.itemUrl = it.itemUrl;
+			c.thumbnail = it.thumbnail;
+			out.add(c);
+		}
+		return out;
+	}
+
+	private CompletableFuture<List<BookItem>> searchRemote(String title, int hits) {
 		MultiValueMap<String, String> q = baseParams(hits);
 		q.add("title", title);
 
-		// 503/接続エラー時の軽量リトライ + やさしい例外へ変換
-		RakutenBooksResponse resp = executeWithRetry(() -> client().get()
+		// 503/接続エラー時の再試行 + やさしい例外へ変換（★変更: 非同期）
+		return executeAsync(() -> client().get()
 				.uri(b -> b.queryParams(q).build())
 				.accept(MediaType.APPLICATION_JSON)
 				.retrieve()
-				.body(RakutenBooksResponse.class));
-
-		return toItems(resp);
+				.body(RakutenBooksResponse.class))
+				.thenApply(this::toItems);
 	}
 
 //	/** ISBNで検索（1件想定） ISBN検索は今回利用しない方針*/
@@ -131,43 +463,143 @@ public class RakutenBooksService {
 		T get() throws RestClientException;
 	}
 
-	/** 503 や一時的な接続エラーをリトライし、最終的にドメイン例外へ変換 */
-	private <T> T executeWithRetry(SupplierX<T> call) {
-		int attempt = 0;
-		RestClientException last = null;
-
-		while (attempt <= retries) {
-			try {
-				return call.get();
-			} catch (RestClientResponseException e) {
-				// ステータス別に判定（5xxは再試行対象）
-				if (e.getStatusCode().is5xxServerError()) {
-					last = e;
-					backoff(attempt++);
-					continue;
+	/**
+	 * 503 や一時的な接続エラーをリトライし、最終的にドメイン例外へ変換
+	 * ★変更: Thread.sleep で待たず、次の試行をスケジューラに予約する（呼び出し元スレッドは即座に戻る）
+	 * ★変更: 時間切れでは実行中の HTTP 呼び出しも割り込みで止め、バルクヘッドの枠を読み取りタイムアウトまで抱えさせない
+	 */
+	private <T> CompletableFuture<T> executeAsync(SupplierX<T> call) {
+		CompletableFuture<T> result = new CompletableFuture<>();
+		AtomicReference<Runnable> abort = new AtomicReference<>();
+		ScheduledFuture<?> deadline = retryScheduler.schedule(() -> {
+			if (result.completeExceptionally(
+					new ExternalApiUnavailableException("楽天Books API の応答が時間内にありませんでした。", null))) {
+				Runnable running = abort.get();
+				if (running != null) {
+					running.run();
 				}
-				// 4xx 等はリトライせずそのまま上位へ（要件に応じて扱いを変える）
-				throw e;
-			} catch (RestClientException e) {
-				// 低レベルな接続エラー（タイムアウト等）もリトライ対象
-				last = e;
-				backoff(attempt++);
 			}
+		}, callTimeout.toMillis(), TimeUnit.MILLISECONDS);
+		result.whenComplete((v, ex) -> deadline.cancel(false));
+		attempt(call, 0, null, result, abort);
+		return result;
+	}
+
+	private <T> void attempt(SupplierX<T> call, int attempt, RestClientException last, CompletableFuture<T> result,
+			AtomicReference<Runnable> abort) {
+		if (result.isDone()) {
+			return; // 時間切れ済み
+		}
+		// 落ちていると分かっている間は呼ばない
+		if (!circuitBreaker.tryAcquirePermission()) {
+			rejectedCircuitOpen.increment();
+			result.completeExceptionally(new ExternalApiUnavailableException("楽天Books API が一時的に利用できません。", last));
+			return;
+		}
+		// ★追加: レート制限。トークンが無ければ補充時刻に予約実行し、待ちが max-wait を超えるなら諦める
+		long waitNanos = rateLimiter.reserve(rateLimitMaxWait);
+		if (waitNanos < 0) {
+			circuitBreaker.onIgnored();
+			rejectedRateLimited.increment();
+			result.completeExceptionally(new ExternalApiUnavailableException("楽天Books API が混み合っています。", last));
+			return;
+		}
+		if (waitNanos > 0) {
+			retryScheduler.schedule(() -> dispatch(call, attempt, last, result, abort), waitNanos, TimeUnit.NANOSECONDS);
+		} else {
+			dispatch(call, attempt, last, result, abort);
 		}
-		// すべて失敗した場合は、画面で扱いやすい独自例外に変換
-		throw new ExternalApiUnavailableException("楽天Books API が一時的に利用できません。", last);
 	}
 
-	private void backoff(int attempt) {
-		// 指数バックオフ (200ms, 400ms, 800ms...)
-		long ms = (long) (200L * Math.pow(2, attempt));
+	private <T> void dispatch(SupplierX<T> call, int attempt, RestClientException last, CompletableFuture<T> result,
+			AtomicReference<Runnable> abort) {
+		if (result.isDone()) {
+			circuitBreaker.onIgnored(); // 予約待ちの間に時間切れ
+			return;
+		}
+		// 同時呼び出し数の上限。空きを待たずに失敗させる（待つとリクエストが溜まるだけ）
+		if (!bulkhead.tryAcquire()) {
+			circuitBreaker.onIgnored();
+			rejectedBulkheadFull.increment();
+			result.completeExceptionally(new ExternalApiUnavailableException("楽天Books API が混み合っています。", last));
+			return;
+		}
+		// 時間切れ時の後始末。始まる前なら枠をここで返し、実行中なら割り込んで finally で返させる
+		AtomicBoolean started = new AtomicBoolean();
 		try {
-			Thread.sleep(ms);
-		} catch (InterruptedException ie) {
-			Thread.currentThread().interrupt();
+			Future<?> running = callExecutor.submit(() -> {
+				if (!started.compareAndSet(false, true)) {
+					return; // 始まる前に時間切れ（枠は abort 側で返した）
+				}
+				try {
+					T value = call.get();
+					circuitBreaker.onSuccess();
+					callSuccess.increment();
+					result.complete(value);
+				} catch (RestClientResponseException e) {
+					// ステータス別に判定（5xxは再試行対象）
+					if (e.getStatusCode().value() == 429) {
+						// ★追加: 429 は API 自体は動いているので障害に数えず、間隔を空けて再試行
+						circuitBreaker.onIgnored();
+						callFailure.increment();
+						retryOrFail(call, attempt, e, result, abort);
+					} else if (e.getStatusCode().is5xxServerError()) {
+						circuitBreaker.onFailure();
+						callFailure.increment();
+						retryOrFail(call, attempt, e, result, abort);
+					} else {
+						// 4xx 等は API 自体は動いているので成功扱い。リトライせずそのまま上位へ
+						circuitBreaker.onSuccess();
+						result.completeExceptionally(e);
+					}
+				} catch (RestClientException e) {
+					// 低レベルな接続エラー（タイムアウト等）もリトライ対象
+					circuitBreaker.onFailure();
+					callFailure.increment();
+					retryOrFail(call, attempt, e, result, abort);
+				} catch (RuntimeException e) {
+					circuitBreaker.onIgnored();
+					result.completeExceptionally(e);
+				} finally {
+					bulkhead.release();
+				}
+			});
+			abort.set(() -> {
+				if (started.compareAndSet(false, true)) {
+					bulkhead.release();
+					circuitBreaker.onIgnored();
+				} else {
+					running.cancel(true);
+				}
+			});
+			if (result.isDone()) {
+				abort.get().run(); // 登録する前に時間切れになっていた
+			}
+		} catch (RuntimeException e) {
+			// アプリ終了中など
+			bulkhead.release();
+			circuitBreaker.onIgnored();
+			result.completeExceptionally(e);
 		}
 	}
 
+	private <T> void retryOrFail(SupplierX<T> call, int attempt, RestClientException e, CompletableFuture<T> result,
+			AtomicReference<Runnable> abort) {
+		if (attempt >= retries) {
+			// すべて失敗した場合は、画面で扱いやすい独自例外に変換
+			result.completeExceptionally(new ExternalApiUnavailableException("楽天Books API が一時的に利用できません。", e));
+			return;
+		}
+		retryScheduler.schedule(() -> attempt(call, attempt + 1, e, result, abort),
+				backoffMillis(attempt), TimeUnit.MILLISECONDS);
+	}
+
+	// フルジッター: 0〜min(max, base×2^attempt) の一様乱数（同時に落ちた呼び出しの再試行をばらけさせる）
+	private long backoffMillis(int attempt) {
+		long ceiling = Math.min(backoffMax.toMillis(), backoffBase.toMillis() << Math.min(attempt, 20));
+		return ThreadLocalRandom.current().nextLong(ceiling + 1);
+	}
+
 	// JDK8互換のblank判定ユーティリティ
 	private static boolean isBlank(String s) {
 		return s == null || s.trim().isEmpty();
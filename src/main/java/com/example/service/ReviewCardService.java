@@ -0,0 +1,104 @@
+package com.example.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.dto.ReviewCard;
+import com.example.dto.ReviewCardRow;
+import com.example.entity.ContentsRatingSummary;
+import com.example.repository.ReviewRepository;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * 一覧画面用の ReviewCard を組み立てるサービス
+ * - ★変更: レビューはカードの列だけの射影（ReviewCardRow）で受け取る（または id から射影で取得）
+ *   本文は LONGTEXT の review_text ではなく抜粋 review_excerpt だけを読む
+ * - カテゴリは review_id の IN で1回にまとめて取得
+ * - コンテンツの評価集計は contents_id の IN で1回にまとめて取得
+ * → 表示件数に関係なく「一覧1回 + カテゴリ1回 + 評価集計1回」のクエリで済む（N+1 を出さない）
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class ReviewCardService {
+
+    private final ReviewRepository reviewRepository;
+    private final ContentsRatingService contentsRatingService;
+
+    /**
+     * ReviewRepository の一覧用射影（findActiveCardRows など）をカードに変換する
+     */
+    public List<ReviewCard> toCards(List<ReviewCardRow> rows) {
+        if (rows.isEmpty()) {
+            return List.of();
+        }
+        List<Integer> ids = rows.stream().map(ReviewCardRow::getReviewId).toList();
+        Map<Integer, List<ReviewCard.CategoryTag>> tags = loadCategoryTags(ids);
+        Map<Integer, ContentsRatingSummary> ratings = contentsRatingService.findAll(rows.stream()
+                .map(ReviewCardRow::getContentsId)
+                .distinct()
+                .toList());
+
+        List<ReviewCard> cards = new ArrayList<>(rows.size());
+        for (ReviewCardRow r : rows) {
+            ReviewCard card = new ReviewCard();
+            card.setReviewId(r.getReviewId());
+            card.setReviewTitle(r.getReviewTitle());
+            card.setRate(r.getRate());
+            card.setReviewExcerpt(r.getReviewExcerpt());
+            card.setUserId(r.getUserId());
+            card.setUsername(r.getUsername());
+            card.setContentsId(r.getContentsId());
+            card.setContentsTitle(r.getContentsTitle());
+            card.setThumbnail(r.getThumbnail());
+            ContentsRatingSummary rating = ratings.get(r.getContentsId());
+            if (rating != null) {
+                card.setContentsAverageRate(rating.getAverage());
+                card.setContentsReviewCount(rating.getReviewCount());
+            }
+            card.setCategories(tags.getOrDefault(r.getReviewId(), List.of()));
+            cards.add(card);
+        }
+        return cards;
+    }
+
+    /**
+     * review_id の並び順を保ったままカード化する（検索結果など id が先に決まる一覧用）
+     * 論理削除されたレビューは飛ばす
+     */
+    public List<ReviewCard> findCardsByIds(List<Integer> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Integer, ReviewCardRow> byId = new HashMap<>();
+        for (ReviewCardRow r : reviewRepository.findActiveCardRowsByReviewIdIn(ids)) {
+            byId.put(r.getReviewId(), r);
+        }
+        List<ReviewCardRow> ordered = new ArrayList<>(ids.size());
+        for (Integer id : ids) {
+            ReviewCardRow r = byId.get(id);
+            if (r != null) {
+                ordered.add(r);
+            }
+        }
+        return toCards(ordered);
+    }
+
+    // review_id → カテゴリ一覧（review_category を IN で一括取得）
+    private Map<Integer, List<ReviewCard.CategoryTag>> loadCategoryTags(Collection<Integer> reviewIds) {
+        Map<Integer, List<ReviewCard.CategoryTag>> out = new HashMap<>();
+        for (Object[] row : reviewRepository.findCategoryTagsByReviewIds(reviewIds)) {
+            Integer reviewId = (Integer) row[0];
+            out.computeIfAbsent(reviewId, k -> new ArrayList<>())
+                    .add(new ReviewCard.CategoryTag((Integer) row[1], (String) row[2]));
+        }
+        return out;
+    }
+}
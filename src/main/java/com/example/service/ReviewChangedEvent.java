@@ -0,0 +1,27 @@
+package com.example.service;
+
+import lombok.Getter;
+
+/**
+ * レビューの作成・編集・論理削除を通知するイベント（ReviewWriteService が発行）
+ * - before: 変更前（新規作成時は null）
+ * - after : 変更後（保存済みのため reviewId が確定している）
+ *
+ * 検索インデックスなどメモリ上の構造はコミット後に、
+ * DB 上の集計は同一トランザクション内で、このイベントを受けて更新する。
+ */
+@Getter
+public class ReviewChangedEvent {
+
+    private final ReviewSnapshot before;
+    private final ReviewSnapshot after;
+
+    public ReviewChangedEvent(ReviewSnapshot before, ReviewSnapshot after) {
+        this.before = before;
+        this.after = after;
+    }
+
+    public boolean isCreated() {
+        return before == null;
+    }
+}
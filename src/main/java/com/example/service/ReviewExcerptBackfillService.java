@@ -0,0 +1,51 @@
+package com.example.service;
+
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.repository.ReviewRepository;
+import com.example.util.ReviewExcerpt;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * review.review_excerpt（一覧カード用の本文の抜粋）の埋め戻し
+ * - 新しい行・編集した行は Review の @PrePersist / @PreUpdate で設定されるので、対象はシード・列追加前からある行だけ
+ * - review_text を読むのはここ（起動時に1回）とレビュー詳細・編集画面だけ
+ */
+@Service
+@RequiredArgsConstructor
+public class ReviewExcerptBackfillService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReviewExcerptBackfillService.class);
+
+    private final ReviewRepository reviewRepository;
+
+    // 起動時の埋め戻しで1回に処理する件数
+    @Value("${reviewboard.reviews.excerpt-backfill-chunk-size:500}")
+    private int chunkSize;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void backfill() {
+        int count = 0;
+        List<Object[]> rows;
+        while (!(rows = reviewRepository.findMissingExcerpt(Limit.of(chunkSize))).isEmpty()) {
+            for (Object[] row : rows) {
+                reviewRepository.updateExcerpt(((Number) row[0]).intValue(), ReviewExcerpt.of((String) row[1]));
+                count++;
+            }
+        }
+        if (count > 0) {
+            log.info("[ReviewExcerptBackfillService] review_excerpt を {} 件埋め戻しました", count);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.service;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.StringJoiner;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.repository.ReviewRepository;
+import com.example.util.NgramTokenizer;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * MariaDB FULLTEXT 検索（reviewboard.search.mode=fulltext）
+ * - review.search_ngrams に、タイトル・本文の bi-gram を FULLTEXT 用の語に符号化して保持
+ *   （NgramTokenizer.toFulltextTerm。MariaDB には ngram パーサが無く、review_title / review_text に
+ *   そのまま FULLTEXT を張っても日本語の文の途中の語では引けないための代替）
+ * - 大きさは gram 1つにつき 9バイト。本文は元の約3倍（日本語）〜9倍（英数字）、タイトルは TITLE_WEIGHT 倍
+ * - 検索は MATCH ... AGAINST (IN BOOLEAN MODE) で全 gram 必須、関連度順
+ * - search_ngrams は fulltext のときだけ、レビュー保存と同じトランザクションで更新する
+ *   （ほかの方式では保存のたびの UPDATE・FULLTEXT の更新をしない。切り替え時は application.properties を参照）
+ *
+ * インデックスが DB 側にあるため、複数ノード構成でも各ノードでの構築は不要。
+ */
+@Service
+@RequiredArgsConstructor
+public class ReviewFulltextService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReviewFulltextService.class);
+
+    // タイトルの語は本文より重く見る（ReviewSearchIndex と揃える）
+    private static final int TITLE_WEIGHT = 3;
+
+    private final ReviewRepository reviewRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${reviewboard.search.mode:index}")
+    private String mode;
+
+    // 起動時の埋め戻しで1回に処理する件数
+    @Value("${reviewboard.search.fulltext.backfill-chunk-size:500}")
+    private int backfillChunkSize;
+
+    /**
+     * @param page 1始まりのページ番号
+     * @param size 1ページの件数
+     */
+    @Transactional(readOnly = true)
+    public ReviewSearchIndex.Hits search(String keyword, int page, int size) {
+        String query = toBooleanQuery(keyword);
+        if (query.isEmpty()) {
+            return new ReviewSearchIndex.Hits(List.of(), 0);
+        }
+        Page<Integer> hits = reviewRepository.searchByFulltextActive(query,
+                PageRequest.of(Math.max(page, 1) - 1, size));
+        return new ReviewSearchIndex.Hits(hits.getContent(), (int) hits.getTotalElements());
+    }
+
+    // 保存と同じトランザクション内で search_ngrams を更新（fulltext のとき、タイトル・本文が変わったときだけ）
+    @EventListener
+    public void onReviewChanged(ReviewChangedEvent event) {
+        if (!isEnabled()) {
+            return;
+        }
+        ReviewSnapshot before = event.getBefore();
+        ReviewSnapshot after = event.getAfter();
+        if (before != null
+                && Objects.equals(before.getReviewTitle(), after.getReviewTitle())
+                && Objects.equals(before.getReviewText(), after.getReviewText())) {
+            return;
+        }
+        reviewRepository.updateSearchNgrams(after.getReviewId(),
+                toDocument(after.getReviewTitle(), after.getReviewText()));
+    }
+
+    // search_ngrams が未設定の行（シードデータ・既存データ）を埋める
+    // review_id のキーセットでチャンクに分け、チャンクごとに別トランザクションでコミットする
+    //   （表全体を1トランザクションにしない。途中で止まっても済んだチャンクは残り、次の起動で続きから埋める）
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        if (!isEnabled()) {
+            return;
+        }
+        int count = 0;
+        int afterId = 0;
+        List<Object[]> rows;
+        while (!(rows = reviewRepository.findMissingSearchNgrams(afterId, Limit.of(backfillChunkSize))).isEmpty()) {
+            List<Object[]> chunk = rows;
+            transactionTemplate.executeWithoutResult(status -> {
+                for (Object[] row : chunk) {
+                    reviewRepository.updateSearchNgrams(((Number) row[0]).intValue(),
+                            toDocument((String) row[1], (String) row[2]));
+                }
+            });
+            afterId = ((Number) rows.get(rows.size() - 1)[0]).intValue();
+            count += rows.size();
+        }
+        if (count > 0) {
+            log.info("[ReviewFulltextService] search_ngrams を {} 件埋め戻しました", count);
+        }
+    }
+
+    private boolean isEnabled() {
+        return "fulltext".equalsIgnoreCase(mode);
+    }
+
+    // 文書側: タイトルは TITLE_WEIGHT 回繰り返して関連度を上げる
+    //   タイトルは 255 文字までなので、繰り返しで増えるのは1件あたり高々 2 × 255 gram
+    static String toDocument(String title, String text) {
+        String titleTerms = NgramTokenizer.toFulltextDocument(title);
+        StringJoiner sj = new StringJoiner(" ");
+        if (!titleTerms.isEmpty()) {
+            for (int i = 0; i < TITLE_WEIGHT; i++) {
+                sj.add(titleTerms);
+            }
+        }
+        String textTerms = NgramTokenizer.toFulltextDocument(text);
+        if (!textTerms.isEmpty()) {
+            sj.add(textTerms);
+        }
+        return sj.toString();
+    }
+
+    // クエリ側: 全 gram 必須（+語）。1文字だけのクエリはその文字で始まる gram の前方一致（+語*）
+    static String toBooleanQuery(String keyword) {
+        StringJoiner sj = new StringJoiner(" ");
+        for (String g : new LinkedHashSet<>(NgramTokenizer.tokenizeQuery(keyword))) {
+            boolean single = g.codePointCount(0, g.length()) == 1;
+            sj.add("+" + NgramTokenizer.toFulltextTerm(g) + (single ? "*" : ""));
+        }
+        return sj.toString();
+    }
+}
@@ -0,0 +1,308 @@
+package com.example.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.example.repository.ReviewRepository;
+import com.example.util.NgramTokenizer;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * レビュー（タイトル・本文）のプロセス内転置インデックス
+ * - bi-gram（NgramTokenizer）→ review_id ごとの重み（タイトル出現は TITLE_WEIGHT 倍）
+ * - 起動時に active=1 のレビューからチャンク単位で構築
+ * - 以降は ReviewChangedEvent（コミット後）で差分更新（作成・編集・論理削除）
+ *   構築中に届いたイベントもその場で反映し、そのレビューは構築側では上書きしない
+ *   （構築のチャンクは変更のコミット前に読んだものかもしれないので、イベントの方を新しいとみなす）
+ * - 検索は全 bi-gram を含むレビューの AND を取り、tf × idf の合計でランキング
+ *
+ * 1ノード内のメモリ上にしか無いため、複数ノード構成では各ノードが自分で構築する。
+ */
+@Service
+@RequiredArgsConstructor
+public class ReviewSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(ReviewSearchIndex.class);
+
+    // タイトルに出た語は本文より重く見る
+    private static final int TITLE_WEIGHT = 3;
+
+    private final ReviewRepository reviewRepository;
+
+    @Value("${reviewboard.search.mode:index}")
+    private String mode;
+
+    // 起動時構築で1回に読む件数（本文を読むため控えめに）
+    @Value("${reviewboard.search.index.build-chunk-size:500}")
+    private int buildChunkSize;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // gram → (review_id → 重み)。1文字クエリの前方一致のため順序付き
+    private final NavigableMap<String, Map<Integer, Integer>> postings = new TreeMap<>();
+    // review_id → 含まれる gram（削除・再登録用）
+    private final Map<Integer, Set<String>> forward = new HashMap<>();
+
+    // 構築中にイベントで反映した review_id（構築中以外は null。lock で保護）
+    private Set<Integer> touchedDuringBuild;
+
+    private volatile boolean ready = false;
+
+    /** 検索結果（ランキング済み review_id の1ページ分 + ヒット総数） */
+    public static class Hits {
+        public final List<Integer> reviewIds;
+        public final int total;
+
+        public Hits(List<Integer> reviewIds, int total) {
+            this.reviewIds = reviewIds;
+            this.total = total;
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    // ===== 構築 =====
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        // index モード以外ではメモリを使わない
+        if (!"index".equalsIgnoreCase(mode)) {
+            return;
+        }
+        long started = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            touchedDuringBuild = new HashSet<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        int count = 0;
+        Integer after = 0;
+        while (true) {
+            List<Object[]> rows = reviewRepository.findSearchSourcesAfter(after, Limit.of(buildChunkSize));
+            if (rows.isEmpty()) {
+                break;
+            }
+            for (Object[] row : rows) {
+                Integer reviewId = (Integer) row[0];
+                Map<String, Integer> weights = weigh((String) row[1], (String) row[2]);
+                lock.writeLock().lock();
+                try {
+                    if (!touchedDuringBuild.contains(reviewId)) {
+                        putLocked(reviewId, weights);
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                after = reviewId;
+                count++;
+            }
+        }
+        lock.writeLock().lock();
+        try {
+            touchedDuringBuild = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        ready = true;
+        log.info("[ReviewSearchIndex] {} 件のレビューでインデックスを構築しました（{} ms, {} grams）",
+                count, System.currentTimeMillis() - started, postings.size());
+    }
+
+    // ===== 差分更新 =====
+
+    // コミットされた変更だけを反映する（ロールバックされた保存は反映しない）
+    // ★変更: 構築中も捨てずに反映する（構築前に読まれたチャンクで古い状態が残らないようにする）
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReviewChanged(ReviewChangedEvent event) {
+        if (!"index".equalsIgnoreCase(mode)) {
+            return;
+        }
+        ReviewSnapshot after = event.getAfter();
+        Map<String, Integer> weights = after.isActive()
+                ? weigh(after.getReviewTitle(), after.getReviewText())
+                : null;
+
+        lock.writeLock().lock();
+        try {
+            if (touchedDuringBuild != null) {
+                touchedDuringBuild.add(after.getReviewId());
+            }
+            if (weights != null) {
+                putLocked(after.getReviewId(), weights);
+            } else {
+                removeLocked(after.getReviewId());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** 登録（既にあれば置き換え） */
+    public void put(Integer reviewId, String title, String text) {
+        Map<String, Integer> weights = weigh(title, text);
+        lock.writeLock().lock();
+        try {
+            putLocked(reviewId, weights);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // gram → 重み（トークン化はロックの外で行う）
+    private static Map<String, Integer> weigh(String title, String text) {
+        Map<String, Integer> weights = new HashMap<>();
+        for (String g : NgramTokenizer.tokenize(title)) {
+            weights.merge(g, TITLE_WEIGHT, Integer::sum);
+        }
+        for (String g : NgramTokenizer.tokenize(text)) {
+            weights.merge(g, 1, Integer::sum);
+        }
+        return weights;
+    }
+
+    private void putLocked(Integer reviewId, Map<String, Integer> weights) {
+        removeLocked(reviewId);
+        for (var e : weights.entrySet()) {
+            postings.computeIfAbsent(e.getKey(), k -> new HashMap<>()).put(reviewId, e.getValue());
+        }
+        forward.put(reviewId, new HashSet<>(weights.keySet()));
+    }
+
+    /** 削除（論理削除されたレビューなど） */
+    public void remove(Integer reviewId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(reviewId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void removeLocked(Integer reviewId) {
+        Set<String> grams = forward.remove(reviewId);
+        if (grams == null) {
+            return;
+        }
+        for (String g : grams) {
+            Map<Integer, Integer> docs = postings.get(g);
+            if (docs != null) {
+                docs.remove(reviewId);
+                if (docs.isEmpty()) {
+                    postings.remove(g);
+                }
+            }
+        }
+    }
+
+    // ===== 検索 =====
+
+    /**
+     * @param keyword 検索語（NgramTokenizer と同じ規則で正規化・分割）
+     * @param offset  先頭からの件数
+     * @param limit   1ページの件数
+     */
+    public Hits search(String keyword, int offset, int limit) {
+        List<String> grams = NgramTokenizer.tokenizeQuery(keyword);
+        if (grams.isEmpty()) {
+            return new Hits(List.of(), 0);
+        }
+
+        Map<Integer, Double> scores;
+        lock.readLock().lock();
+        try {
+            scores = scoreAll(grams);
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<Map.Entry<Integer, Double>> ranked = new ArrayList<>(scores.entrySet());
+        ranked.sort(Map.Entry.<Integer, Double> comparingByValue().reversed()
+                .thenComparing(Map.Entry.comparingByKey(Comparator.reverseOrder())));
+
+        List<Integer> page = ranked.stream()
+                .skip(offset)
+                .limit(limit)
+                .map(Map.Entry::getKey)
+                .toList();
+        return new Hits(page, ranked.size());
+    }
+
+    // 全 gram を含むレビューだけ残す（AND）。df の小さい gram から絞り込む
+    // ★変更: 1文字の gram は複数語のクエリ中でも前方一致（その文字で始まる gram の OR）で引く
+    //   1文字だけの posting はランの末尾・1文字のランにしか無いので、完全一致ではランの途中の文字を拾えない
+    private Map<Integer, Double> scoreAll(List<String> grams) {
+        List<Map<Integer, Double>> lists = new ArrayList<>();
+        for (String g : new HashSet<>(grams)) {
+            Map<Integer, Double> docs = g.codePointCount(0, g.length()) == 1 ? scoreByPrefix(g) : scoreExact(g);
+            if (docs.isEmpty()) {
+                return Map.of();
+            }
+            lists.add(docs);
+        }
+        lists.sort(Comparator.comparingInt(Map::size));
+
+        Map<Integer, Double> scores = new HashMap<>();
+        for (Integer id : lists.get(0).keySet()) {
+            double score = 0;
+            boolean all = true;
+            for (Map<Integer, Double> docs : lists) {
+                Double s = docs.get(id);
+                if (s == null) {
+                    all = false;
+                    break;
+                }
+                score += s;
+            }
+            if (all) {
+                scores.put(id, score);
+            }
+        }
+        return scores;
+    }
+
+    // 2文字の gram: その gram の posting（重み × idf）
+    private Map<Integer, Double> scoreExact(String gram) {
+        Map<Integer, Integer> docs = postings.get(gram);
+        if (docs == null) {
+            return Map.of();
+        }
+        double idf = idf(docs.size());
+        Map<Integer, Double> scores = new HashMap<>(docs.size() * 2);
+        docs.forEach((id, w) -> scores.put(id, w * idf));
+        return scores;
+    }
+
+    // 1文字の gram: その文字で始まる gram すべての OR
+    private Map<Integer, Double> scoreByPrefix(String ch) {
+        Map<Integer, Double> scores = new HashMap<>();
+        for (Map<Integer, Integer> docs : postings.subMap(ch, true, ch + Character.MAX_VALUE, true).values()) {
+            double idf = idf(docs.size());
+            docs.forEach((id, w) -> scores.merge(id, w * idf, Double::sum));
+        }
+        return scores;
+    }
+
+    private double idf(int df) {
+        return Math.log(1.0 + (double) Math.max(forward.size(), 1) / df);
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.service;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.example.repository.ReviewRepository;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * キーワード検索の窓口（SearchController から呼ばれる）
+ * reviewboard.search.mode で検索方式を切り替える
+ * - index    : プロセス内転置インデックス（ReviewSearchIndex）。構築完了前は like で代替
+ * - fulltext : MariaDB FULLTEXT（ReviewFulltextService）。各ノードにインデックスを持たない
+ * - like     : 従来の LIKE '%keyword%'（全件走査）
+ */
+@Service
+@RequiredArgsConstructor
+public class ReviewSearchService {
+
+    private final ReviewSearchIndex reviewSearchIndex;
+    private final ReviewFulltextService reviewFulltextService;
+    private final ReviewRepository reviewRepository;
+
+    @Value("${reviewboard.search.mode:index}")
+    private String mode;
+
+    /**
+     * @param page 1始まりのページ番号
+     * @param size 1ページの件数
+     */
+    public ReviewSearchIndex.Hits search(String keyword, int page, int size) {
+        if ("fulltext".equalsIgnoreCase(mode)) {
+            return reviewFulltextService.search(keyword, page, size);
+        }
+        int offset = (Math.max(page, 1) - 1) * size;
+        if ("index".equalsIgnoreCase(mode) && reviewSearchIndex.isReady()) {
+            return reviewSearchIndex.search(keyword, offset, size);
+        }
+        // like: ヒットした id だけ取ってページ分を切り出す
+        List<Integer> ids = reviewRepository.searchByKeywordActive(keyword);
+        List<Integer> pageIds = ids.stream().skip(offset).limit(size).toList();
+        return new ReviewSearchIndex.Hits(pageIds, ids.size());
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.service;
+
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import com.example.entity.Category;
+import com.example.entity.Review;
+
+import lombok.Getter;
+
+/**
+ * 更新前後の比較用に、ある時点のレビューの状態を写し取った不変オブジェクト
+ * - エンティティはその後書き換わるため、変更前の値はこれで保持する
+ * - 集計（件数・評価など）を差分で更新するリスナーが使う
+ */
+@Getter
+public class ReviewSnapshot {
+
+    private final Integer reviewId;
+    private final Integer contentsId;
+    private final Integer userId;
+    private final Integer rate;
+    private final boolean active;
+    private final String reviewTitle;
+    private final String reviewText;
+    private final Set<Integer> categoryIds;
+
+    private ReviewSnapshot(Review r) {
+        this.reviewId = r.getReviewId();
+        this.contentsId = r.getContents() != null ? r.getContents().getContentsId() : null;
+        this.userId = r.getUser() != null ? r.getUser().getId() : null;
+        this.rate = r.getRate();
+        this.active = Boolean.TRUE.equals(r.getActiveFlag());
+        this.reviewTitle = r.getReviewTitle();
+        this.reviewText = r.getReviewText();
+        this.categoryIds = r.getCategories() == null ? Set.of()
+                : r.getCategories().stream().map(Category::getCategoryId).collect(Collectors.toUnmodifiableSet());
+    }
+
+    public static ReviewSnapshot of(Review review) {
+        return new ReviewSnapshot(review);
+    }
+}
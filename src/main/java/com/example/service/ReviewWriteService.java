@@ -0,0 +1,84 @@
+package com.example.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.entity.Contents;
+import com.example.entity.Review;
+import com.example.repository.ReviewRepository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * レビューの書き込み窓口
+ * - 各 Controller（ReviewController / TitleController / RakutenController）はここ経由で保存する
+ * - 保存と同じトランザクションで ReviewChangedEvent を発行し、検索インデックス等に変更を伝える
+ */
+@Service
+@RequiredArgsConstructor
+public class ReviewWriteService {
+
+    private final ReviewRepository reviewRepository;
+    private final ApplicationEventPublisher events;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * 新規作成
+     * ★変更: 対象コンテンツが未保存（新しい URL・書籍）なら同じトランザクションで保存する。
+     * id はシーケンス採番なので INSERT は flush まで溜まり、contents / review / review_category が
+     * 表ごとに JDBC バッチで送られる（コンテンツを先に別トランザクションで保存していた頃より往復が少ない）
+     */
+    @Transactional
+    public Review create(Review review) {
+        Review saved = persist(review);
+        events.publishEvent(new ReviewChangedEvent(null, ReviewSnapshot.of(saved)));
+        return saved;
+    }
+
+    /**
+     * ★追加: まとめて新規作成（取り込みなどの一括投入用）
+     * 全件を persist してから通知する。リスナーの SQL が途中で flush を起こさないので、
+     * INSERT は件数に関係なく表ごとのバッチ（hibernate.jdbc.batch_size 件ずつ）で送られる
+     */
+    @Transactional
+    public List<Review> createAll(Collection<Review> reviews) {
+        List<Review> saved = new ArrayList<>(reviews.size());
+        for (Review review : reviews) {
+            saved.add(persist(review));
+        }
+        for (Review review : saved) {
+            events.publishEvent(new ReviewChangedEvent(null, ReviewSnapshot.of(review)));
+        }
+        return saved;
+    }
+
+    private Review persist(Review review) {
+        Contents contents = review.getContents();
+        if (contents != null && contents.getContentsId() == null) {
+            entityManager.persist(contents);
+        }
+        return reviewRepository.save(review);
+    }
+
+    /**
+     * 編集・論理削除
+     * @param before 変更を加える前に ReviewSnapshot.of(review) で取っておいた状態
+     */
+    @Transactional
+    public Review update(Review review, ReviewSnapshot before) {
+        // ★変更: 読み込み済み（管理下）のレビューは merge しない。変更はコミット時の flush で書かれる
+        // （merge は追加したカテゴリの参照プロキシまで1件ずつ SELECT で読み込んでしまう）
+        Review saved = entityManager.contains(review) ? review : reviewRepository.save(review);
+        events.publishEvent(new ReviewChangedEvent(before, ReviewSnapshot.of(saved)));
+        return saved;
+    }
+}
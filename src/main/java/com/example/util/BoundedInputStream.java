@@ -0,0 +1,114 @@
+package com.example.util;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * 上限バイト数までだけ流す入力ストリーム（それ以降は終端扱い）
+ * - 外部から取得する本文を丸ごとメモリに載せないための上限（Jsoup.connect の maxBodySize 相当）
+ * - サブクラスは scan で途中の区切り（HtmlHeadInputStream の &lt;/head&gt; など）を見つけて早めに打ち切れる
+ * - 打ち切った後の close で残りを読み捨てないよう、whenStoppedEarly で接続の破棄を登録できる
+ *   （Jsoup.parse は解析の最後に自分で close するため、呼び出し側が後から破棄しても間に合わない）
+ */
+public class BoundedInputStream extends FilterInputStream {
+
+    private final long maxBytes;
+    private long consumed;
+    private boolean finished;
+    private boolean reachedEnd;   // 元のストリームを最後まで読んだ
+    private boolean closed;
+    private Runnable abort;
+
+    public BoundedInputStream(InputStream in, long maxBytes) {
+        super(in);
+        this.maxBytes = maxBytes;
+    }
+
+    /** 元のストリームを最後まで読まずに打ち切ったか（残りの本文が未読のまま） */
+    public boolean isStoppedEarly() {
+        return finished && !reachedEnd;
+    }
+
+    /** 打ち切った状態で close されたとき、元のストリームを閉じる前に呼ぶ処理（HttpGet#cancel など） */
+    public BoundedInputStream whenStoppedEarly(Runnable abort) {
+        this.abort = abort;
+        return this;
+    }
+
+    /**
+     * 読んだバイト列 b[off, off + n) を調べ、返すバイト数を返す。n 未満を返すとそこで打ち切る
+     * （既定は何も見ずにすべて返す）
+     */
+    protected int scan(byte[] b, int off, int n) {
+        return n;
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] one = new byte[1];
+        int n = read(one, 0, 1);
+        return n < 0 ? -1 : one[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (finished) {
+            return -1;
+        }
+        long remaining = maxBytes - consumed;
+        if (remaining <= 0) {
+            finished = true;
+            return -1;
+        }
+        int n = in.read(b, off, (int) Math.min(len, remaining));
+        if (n < 0) {
+            finished = true;
+            reachedEnd = true;
+            return -1;
+        }
+        int returned = scan(b, off, n);
+        if (returned < n) {
+            finished = true;
+        }
+        consumed += returned;
+        return returned;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        // 上限・サブクラスの照合状態を保つため読み捨てで進める
+        byte[] buf = new byte[(int) Math.min(n, 8192)];
+        long skipped = 0;
+        while (skipped < n) {
+            int r = read(buf, 0, (int) Math.min(buf.length, n - skipped));
+            if (r < 0) {
+                break;
+            }
+            skipped += r;
+        }
+        return skipped;
+    }
+
+    @Override
+    public int available() throws IOException {
+        return finished ? 0 : (int) Math.min(in.available(), maxBytes - consumed);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (abort != null && isStoppedEarly()) {
+            abort.run();
+        }
+        super.close();
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.util;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * 連続失敗回数で開く、最小構成のサーキットブレーカー
+ * - CLOSED: 通常どおり呼び出す。連続 failureThreshold 回失敗したら OPEN へ
+ * - OPEN: openDuration の間は呼び出さずに即失敗させる。経過後は HALF_OPEN へ
+ * - HALF_OPEN: 試行を1件だけ通し、成功なら CLOSED、失敗なら再び OPEN
+ *
+ * 使い方: tryAcquirePermission() が true のときだけ呼び出し、結果を onSuccess / onFailure で必ず報告する
+ * （呼び出さずに終わった場合は onIgnored）
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final int failureThreshold;
+    private final long openNanos;
+    private final LongSupplier clock;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean probeInFlight; // HALF_OPEN で試行中か
+
+    public CircuitBreaker(int failureThreshold, Duration openDuration) {
+        this(failureThreshold, openDuration, System::nanoTime);
+    }
+
+    public CircuitBreaker(int failureThreshold, Duration openDuration, LongSupplier clock) {
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openNanos = openDuration.toNanos();
+        this.clock = clock;
+    }
+
+    /** 呼び出してよいか。OPEN 中、または HALF_OPEN で試行中なら false */
+    public synchronized boolean tryAcquirePermission() {
+        if (state == State.OPEN && clock.getAsLong() - openedAt >= openNanos) {
+            state = State.HALF_OPEN;
+            probeInFlight = false;
+        }
+        switch (state) {
+        case CLOSED:
+            return true;
+        case HALF_OPEN:
+            if (probeInFlight) {
+                return false;
+            }
+            probeInFlight = true;
+            return true;
+        default:
+            return false;
+        }
+    }
+
+    public synchronized void onSuccess() {
+        consecutiveFailures = 0;
+        probeInFlight = false;
+        state = State.CLOSED;
+    }
+
+    public synchronized void onFailure() {
+        probeInFlight = false;
+        if (state == State.HALF_OPEN || ++consecutiveFailures >= failureThreshold) {
+            state = State.OPEN;
+            openedAt = clock.getAsLong();
+        }
+    }
+
+    /** 許可を得たが呼び出さなかった（バルクヘッド満杯など） */
+    public synchronized void onIgnored() {
+        probeInFlight = false;
+    }
+
+    /** 現在の状態（OPEN の期限切れは HALF_OPEN として返す） */
+    public synchronized State getState() {
+        if (state == State.OPEN && clock.getAsLong() - openedAt >= openNanos) {
+            return State.HALF_OPEN;
+        }
+        return state;
+    }
+}
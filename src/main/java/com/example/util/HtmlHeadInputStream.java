@@ -0,0 +1,65 @@
+package com.example.util;
+
+import java.io.InputStream;
+
+/**
+ * HTML のバイト列を {@code </head>} の閉じ '>' まで、または上限バイト数までだけ流す入力ストリーム
+ * ★変更: 上限バイト数での打ち切りは BoundedInputStream に移し、ここでは </head> の照合だけを行う
+ * - OGP（og:title / og:image）と &lt;title&gt; は &lt;head&gt; 内にあるので、本文は読まずに打ち切れる
+ * - 照合は ASCII の大文字小文字を無視して行う（UTF-8 / Shift_JIS / EUC-JP など ASCII 互換の文字コード前提）
+ * - {@code </header>} のように名前が続くタグは {@code </head>} と見なさない
+ */
+public class HtmlHeadInputStream extends BoundedInputStream {
+
+    private static final byte[] CLOSE_HEAD = { '<', '/', 'h', 'e', 'a', 'd' };
+
+    private int matched;          // CLOSE_HEAD を何文字目まで照合できたか
+    private boolean inCloseTag;   // "</head" の後、閉じ '>' 待ち
+    private boolean headClosed;
+
+    public HtmlHeadInputStream(InputStream in, long maxBytes) {
+        super(in, maxBytes);
+    }
+
+    /** {@code </head>} を見つけて打ち切ったか（false なら上限到達か文書の終端） */
+    public boolean isHeadClosed() {
+        return headClosed;
+    }
+
+    // 閉じ '>' までを返し、以降は終端扱い（上限バイト数での打ち切りは BoundedInputStream）
+    @Override
+    protected int scan(byte[] b, int off, int n) {
+        for (int i = off; i < off + n; i++) {
+            if (accept(b[i])) {
+                headClosed = true;
+                return i - off + 1;
+            }
+        }
+        return n;
+    }
+
+    // 1バイト進める。</head> の閉じ '>' に達したら true
+    private boolean accept(byte b) {
+        if (inCloseTag) {
+            return b == '>';
+        }
+        if (matched == CLOSE_HEAD.length) {
+            // "</head" の直後: '>' なら終了、空白や '/' なら属性を読み飛ばす、それ以外（</header 等）はやり直し
+            if (b == '>') {
+                return true;
+            }
+            if (b == ' ' || b == '\t' || b == '\n' || b == '\r' || b == '\f' || b == '/') {
+                inCloseTag = true;
+                return false;
+            }
+            matched = 0;
+        }
+        byte lower = (b >= 'A' && b <= 'Z') ? (byte) (b + ('a' - 'A')) : b;
+        if (lower == CLOSE_HEAD[matched]) {
+            matched++;
+        } else {
+            matched = lower == CLOSE_HEAD[0] ? 1 : 0;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.util;
+
+import java.text.Normalizer;
+
+/**
+ * ISBN を 13桁（ISBN-13）の数字列に正規化する
+ * - 全角数字・ハイフン・空白を吸収し、ISBN-10 は 978 付きの ISBN-13 に変換する
+ * - チェックディジットが合わないものは ISBN として扱わない（null）
+ */
+public final class IsbnNormalizer {
+
+    private IsbnNormalizer() {
+    }
+
+    /** 正規化した ISBN-13（13桁の数字列）。ISBN として不正なら null */
+    public static String toIsbn13(String raw) {
+        if (raw == null) {
+            return null;
+        }
+        String s = Normalizer.normalize(raw, Normalizer.Form.NFKC);
+        StringBuilder sb = new StringBuilder(13);
+        for (int i = 0; i < s.length(); i++) {
+            char ch = s.charAt(i);
+            if (ch >= '0' && ch <= '9') {
+                sb.append(ch);
+            } else if (ch == 'X' || ch == 'x') {
+                sb.append('X');
+            } else if (ch != '-' && !Character.isWhitespace(ch)) {
+                return null;
+            }
+        }
+        String digits = sb.toString();
+        if (digits.length() == 13 && digits.indexOf('X') < 0) {
+            return checkDigit13(digits.substring(0, 12)) == digits.charAt(12) ? digits : null;
+        }
+        // ISBN-10 は末尾のみ X（=10）を許す
+        if (digits.length() == 10 && (digits.indexOf('X') < 0 || digits.indexOf('X') == 9)) {
+            if (checkDigit10(digits.substring(0, 9)) != digits.charAt(9)) {
+                return null;
+            }
+            String body = "978" + digits.substring(0, 9);
+            return body + checkDigit13(body);
+        }
+        return null;
+    }
+
+    /** ISBN-13 を数値にしたもの（DB のキー用。BIGINT に収まる）。ISBN として不正なら null */
+    public static Long toIsbn13Number(String raw) {
+        String isbn13 = toIsbn13(raw);
+        return isbn13 == null ? null : Long.valueOf(isbn13);
+    }
+
+    private static char checkDigit13(String first12) {
+        int sum = 0;
+        for (int i = 0; i < 12; i++) {
+            int d = first12.charAt(i) - '0';
+            sum += (i % 2 == 0) ? d : d * 3;
+        }
+        return (char) ('0' + (10 - sum % 10) % 10);
+    }
+
+    private static char checkDigit10(String first9) {
+        int sum = 0;
+        for (int i = 0; i < 9; i++) {
+            sum += (first9.charAt(i) - '0') * (10 - i);
+        }
+        int c = (11 - sum % 11) % 11;
+        return c == 10 ? 'X' : (char) ('0' + c);
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.util;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 日本語向けの簡易 n-gram（bi-gram）トークナイザ
+ * - 正規化: NFKC（全角英数→半角、半角カナ→全角）→ 小文字化 → カタカナ→ひらがな
+ * - 文字・数字の連続（ラン）ごとに 2文字ずつずらして切り出す（分かち書き不要）
+ * - ランの最後の1文字は単独トークンとしても出す（1文字検索をランの末尾でも拾うため）
+ *
+ * 例: 「Spring入門」→ 正規化「spring入門」→ sp, pr, ri, in, ng, g入, 入門, 門
+ */
+public final class NgramTokenizer {
+
+    private NgramTokenizer() {
+    }
+
+    /** 検索用の正規化（インデックス作成時とクエリ解析時で必ず同じものを使う） */
+    public static String normalize(String input) {
+        if (input == null || input.isEmpty()) {
+            return "";
+        }
+        String s = Normalizer.normalize(input, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+        StringBuilder sb = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char ch = s.charAt(i);
+            // カタカナ（ァ〜ヶ）→ ひらがな（ぁ〜ゖ）。長音「ー」はそのまま
+            if (ch >= 'ァ' && ch <= 'ヶ') {
+                ch = (char) (ch - 0x60);
+            }
+            sb.append(ch);
+        }
+        return sb.toString();
+    }
+
+    /** 文書（タイトル・本文）用: 正規化してから bi-gram を重複込みで返す */
+    public static List<String> tokenize(String input) {
+        return grams(normalize(input), true);
+    }
+
+    /**
+     * クエリ用: 文書と同じ規則で bi-gram を返す
+     * 1文字だけのランは単独トークンになる（前方一致で引く想定）
+     */
+    public static List<String> tokenizeQuery(String input) {
+        return grams(normalize(input), false);
+    }
+
+    /**
+     * MariaDB FULLTEXT 用に gram を1語へ符号化する
+     * MariaDB には ngram パーサが無く、既定パーサは英数字以外で単語を区切り、
+     * 3文字未満（innodb_ft_min_token_size）を捨てる。日本語の文はそのままだと句読点までが1語になり、
+     * 語の途中からは引けない。そこで各コードポイントを 4桁の36進（0〜9a〜z。U+10FFFF まで入る）にして連結し、
+     * 既定パーサのまま1語として索引されるようにする。桁数を固定しているので、1文字の前方一致（語*）も効く
+     * 例: 「入門」→ 0g2t0tj4
+     */
+    public static String toFulltextTerm(String gram) {
+        StringBuilder sb = new StringBuilder(8);
+        gram.codePoints().forEach(cp -> {
+            String digits = Integer.toString(cp, Character.MAX_RADIX);
+            sb.append("0000", digits.length(), 4).append(digits);
+        });
+        return sb.toString();
+    }
+
+    /**
+     * 文書を FULLTEXT 用の語の並びにする（tokenize の各 gram を toFulltextTerm して空白区切り）
+     * 大きさは gram 1つにつき 9バイト（8文字 + 空白）で、gram の数は元の文字・数字の数とほぼ同じ。
+     * UTF-8 で 3バイトの日本語なら元の約3倍、1バイトの英数字なら約9倍になる
+     */
+    public static String toFulltextDocument(String input) {
+        StringBuilder sb = new StringBuilder();
+        for (String g : tokenize(input)) {
+            if (sb.length() > 0) {
+                sb.append(' ');
+            }
+            sb.append(toFulltextTerm(g));
+        }
+        return sb.toString();
+    }
+
+    private static List<String> grams(String normalized, boolean emitRunTail) {
+        List<String> out = new ArrayList<>();
+        int[] cps = normalized.codePoints().toArray();
+        int runStart = -1;
+        for (int i = 0; i <= cps.length; i++) {
+            boolean inRun = i < cps.length && Character.isLetterOrDigit(cps[i]);
+            if (inRun && runStart < 0) {
+                runStart = i;
+            } else if (!inRun && runStart >= 0) {
+                emitRun(cps, runStart, i, emitRunTail, out);
+                runStart = -1;
+            }
+        }
+        return out;
+    }
+
+    private static void emitRun(int[] cps, int from, int to, boolean emitRunTail, List<String> out) {
+        int len = to - from;
+        if (len == 1) {
+            out.add(new String(cps, from, 1));
+            return;
+        }
+        for (int i = from; i + 1 < to; i++) {
+            out.add(new String(cps, i, 2));
+        }
+        if (emitRunTail) {
+            out.add(new String(cps, to - 1, 1));
+        }
+    }
+}
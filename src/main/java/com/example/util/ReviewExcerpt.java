@@ -0,0 +1,47 @@
+package com.example.util;
+
+/**
+ * 一覧カード用のレビュー本文の抜粋（review.review_excerpt）を作る
+ * - 改行・連続する空白は半角スペース1つにまとめる（カード上は1段落で表示するため）
+ * - MAX_CHARS 文字（コードポイント単位。サロゲートペアを途中で切らない）を超える分は切り、末尾に「…」を付ける
+ */
+public final class ReviewExcerpt {
+
+    /** 抜粋に残す本文の最大文字数 */
+    public static final int MAX_CHARS = 100;
+
+    /** review_excerpt の列長（MAX_CHARS + 「…」） */
+    public static final int COLUMN_LENGTH = MAX_CHARS + 1;
+
+    private ReviewExcerpt() {
+    }
+
+    /** 本文の抜粋。null は空文字 */
+    public static String of(String text) {
+        if (text == null) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder(Math.min(text.length(), MAX_CHARS * 2));
+        int chars = 0;
+        boolean pendingSpace = false;
+        for (int i = 0; i < text.length();) {
+            int cp = text.codePointAt(i);
+            i += Character.charCount(cp);
+            if (Character.isWhitespace(cp) || Character.isSpaceChar(cp)) {
+                pendingSpace = sb.length() > 0;
+                continue;
+            }
+            int needed = pendingSpace ? 2 : 1;
+            if (chars + needed > MAX_CHARS) {
+                return sb.append('…').toString();
+            }
+            if (pendingSpace) {
+                sb.append(' ');
+                pendingSpace = false;
+            }
+            sb.appendCodePoint(cp);
+            chars += needed;
+        }
+        return sb.toString();
+    }
+}
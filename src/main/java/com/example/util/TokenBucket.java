@@ -0,0 +1,56 @@
+package com.example.util;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * 予約型のトークンバケット（レート制限）
+ * - 毎秒 permitsPerSecond 個ずつ補充し、最大 burst 個まで貯められる
+ * - reserve は待たずに「何ナノ秒後なら実行してよいか」を返す（呼び出し側がその時刻に予約実行する）
+ * - 待ちが maxWait を超える場合は予約せず -1 を返す（キューを無制限に伸ばさない）
+ */
+public class TokenBucket {
+
+    private final double burst;
+    private final double nanosPerToken;
+    private final LongSupplier clock;
+
+    private double tokens;   // 負の値 = 先の時刻まで予約済み
+    private long lastRefill;
+
+    public TokenBucket(double permitsPerSecond, int burst) {
+        this(permitsPerSecond, burst, System::nanoTime);
+    }
+
+    public TokenBucket(double permitsPerSecond, int burst, LongSupplier clock) {
+        if (permitsPerSecond <= 0) {
+            throw new IllegalArgumentException("permitsPerSecond must be positive");
+        }
+        this.burst = Math.max(1, burst);
+        this.nanosPerToken = Duration.ofSeconds(1).toNanos() / permitsPerSecond;
+        this.clock = clock;
+        this.tokens = this.burst;
+        this.lastRefill = clock.getAsLong();
+    }
+
+    /**
+     * 1件分を予約する
+     * @return 実行まで待つべきナノ秒（0 なら即実行可）。maxWait を超える場合は -1（予約しない）
+     */
+    public synchronized long reserve(Duration maxWait) {
+        long now = clock.getAsLong();
+        tokens = Math.min(burst, tokens + (now - lastRefill) / nanosPerToken);
+        lastRefill = now;
+
+        if (tokens >= 1) {
+            tokens -= 1;
+            return 0;
+        }
+        long waitNanos = (long) Math.ceil((1 - tokens) * nanosPerToken);
+        if (waitNanos > maxWait.toNanos()) {
+            return -1;
+        }
+        tokens -= 1;
+        return waitNanos;
+    }
+}
@@ -0,0 +1,240 @@
+package com.example.util;
+
+import java.net.IDN;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * 同じページを指す URL を1つの表記にそろえる（コンテンツの重複判定・メタ情報キャッシュのキー用）
+ * - スキーム省略時は https を補う
+ * - スキーム・ホストは小文字化（IDN は Punycode）、既定ポート（http:80 / https:443）は省く
+ * - パスの . / .. を解決し、末尾の / を落とす（ルートは "/"）
+ * - %xx は大文字にそろえ、予約されていない文字（英数字と - . _ ~）は復号する
+ * - トラッキング用パラメータ（utm_* / fbclid / gclid など）を落とし、残りはキー順に並べる
+ * - フラグメント（#以降）は落とす
+ * http / https 以外のスキームはスキーム補完以外そのまま返す
+ *
+ * 正規化した URL は比較・キー専用。取得しに行くときは toRequestUrl（入力どおりの URL）を使う
+ * （署名付き URL や、パラメータの順・末尾の / に意味があるサイトを壊さないため）
+ */
+public final class UrlCanonicalizer {
+
+    // 値に関係なく落とすクエリパラメータ（小文字で比較）
+    private static final Set<String> TRACKING_PARAMS = Set.of(
+            "fbclid", "gclid", "dclid", "gbraid", "wbraid", "msclkid", "yclid",
+            "mc_cid", "mc_eid", "igshid", "mkt_tok", "_ga", "_gl");
+
+    // 先頭のスキーム（"名前:" の後ろが数字ならポートなのでスキームではない）
+    private static final Pattern SCHEME = Pattern.compile("[A-Za-z][A-Za-z0-9+.-]*:(?!\\d)");
+
+    private UrlCanonicalizer() {
+    }
+
+    /**
+     * 取得先の URL。スキーム省略時の https 補完と、ホストの Punycode 化（IDN）だけを行い、
+     * パス・クエリは入力のまま（ASCII 以外の生の文字だけ UTF-8 の %xx にする）。空文字は空文字のまま返す
+     */
+    public static String toRequestUrl(String raw) throws URISyntaxException {
+        URI u = parse(raw);
+        return u == null ? "" : u.toASCIIString();
+    }
+
+    /** 正規化した URL。空文字は空文字のまま返す */
+    public static String canonicalize(String raw) throws URISyntaxException {
+        URI u = parse(raw);
+        if (u == null) {
+            return "";
+        }
+        String scheme = u.getScheme().toLowerCase(Locale.ROOT);
+        if ((!scheme.equals("http") && !scheme.equals("https")) || u.getHost() == null) {
+            return u.toString();
+        }
+
+        StringBuilder sb = new StringBuilder(u.toString().length());
+        sb.append(scheme).append("://");
+        if (u.getRawUserInfo() != null) {
+            sb.append(u.getRawUserInfo()).append('@');
+        }
+        sb.append(host(u.getHost()));
+        int port = u.getPort();
+        if (port != -1 && !(scheme.equals("http") && port == 80) && !(scheme.equals("https") && port == 443)) {
+            sb.append(':').append(port);
+        }
+        sb.append(path(u.getRawPath()));
+        String query = query(u.getRawQuery());
+        if (!query.isEmpty()) {
+            sb.append('?').append(query);
+        }
+        return sb.toString();
+    }
+
+    /** 正規化した URL の SHA-256（32バイト）。URL として解釈できなければ前後の空白を除いた文字列のハッシュ */
+    public static byte[] hash(String raw) {
+        String key;
+        try {
+            key = canonicalize(raw);
+        } catch (URISyntaxException e) {
+            key = raw == null ? "" : raw.trim();
+        }
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e); // SHA-256 は全 JDK で必須
+        }
+    }
+
+    // スキームを補い、ホストを Punycode にしてから解釈する（空なら null）
+    //   java.net.URI は ASCII 以外のホストを解釈できず getHost() が null になるため、先に変換しておく
+    private static URI parse(String raw) throws URISyntaxException {
+        String trimmed = raw == null ? "" : raw.trim();
+        if (trimmed.isEmpty()) {
+            return null;
+        }
+        // スキーム省略時は https を補う（"host:8080/..." の host はスキームとみなさない）
+        if (!SCHEME.matcher(trimmed).lookingAt()) {
+            trimmed = "https://" + trimmed;
+        }
+        return new URI(asciiHost(trimmed));
+    }
+
+    // "scheme://[userinfo@]host[:port]" のホスト部分に ASCII 以外の文字があれば IDN.toASCII で置き換える
+    private static String asciiHost(String url) {
+        int start = url.indexOf("://");
+        if (start < 0) {
+            return url;
+        }
+        start += 3;
+        int end = start;
+        while (end < url.length() && "/?#".indexOf(url.charAt(end)) < 0) {
+            end++;
+        }
+        String authority = url.substring(start, end);
+        if (authority.chars().allMatch(c -> c < 0x80)) {
+            return url;
+        }
+        int at = authority.lastIndexOf('@');
+        String hostPort = authority.substring(at + 1);
+        String port = "";
+        int colon = hostPort.lastIndexOf(':');
+        if (colon >= 0 && hostPort.substring(colon + 1).chars().allMatch(Character::isDigit)) {
+            port = hostPort.substring(colon);
+            hostPort = hostPort.substring(0, colon);
+        }
+        try {
+            String ascii = IDN.toASCII(hostPort, IDN.ALLOW_UNASSIGNED);
+            return url.substring(0, start) + authority.substring(0, at + 1) + ascii + port + url.substring(end);
+        } catch (IllegalArgumentException e) {
+            return url; // 変換できないホストは URI の解釈に任せる（ホストなしとして扱われる）
+        }
+    }
+
+    private static String host(String host) {
+        String lower = host.toLowerCase(Locale.ROOT);
+        if (lower.endsWith(".")) {
+            lower = lower.substring(0, lower.length() - 1);
+        }
+        if (lower.startsWith("[")) {
+            return lower; // IPv6
+        }
+        try {
+            return IDN.toASCII(lower);
+        } catch (IllegalArgumentException e) {
+            return lower;
+        }
+    }
+
+    // . / .. を解決し、%xx をそろえ、末尾の / を落とす
+    private static String path(String rawPath) {
+        if (rawPath == null || rawPath.isEmpty()) {
+            return "/";
+        }
+        List<String> out = new ArrayList<>();
+        for (String seg : rawPath.split("/", -1)) {
+            if (seg.equals(".")) {
+                continue;
+            }
+            if (seg.equals("..")) {
+                if (out.size() > 1) {
+                    out.remove(out.size() - 1);
+                }
+                continue;
+            }
+            out.add(escapes(seg));
+        }
+        String joined = String.join("/", out);
+        while (joined.length() > 1 && joined.endsWith("/")) {
+            joined = joined.substring(0, joined.length() - 1);
+        }
+        return joined.startsWith("/") ? joined : "/" + joined;
+    }
+
+    private static String query(String rawQuery) {
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return "";
+        }
+        List<String[]> params = new ArrayList<>();
+        for (String pair : rawQuery.split("&")) {
+            if (pair.isEmpty()) {
+                continue;
+            }
+            int eq = pair.indexOf('=');
+            String key = escapes(eq < 0 ? pair : pair.substring(0, eq));
+            String lowerKey = key.toLowerCase(Locale.ROOT);
+            if (lowerKey.startsWith("utm_") || TRACKING_PARAMS.contains(lowerKey)) {
+                continue;
+            }
+            params.add(new String[] { key, eq < 0 ? null : escapes(pair.substring(eq + 1)) });
+        }
+        // 同じキーが複数あるときは元の順を保つ（安定ソート）
+        params.sort(Comparator.comparing(p -> p[0]));
+        StringBuilder sb = new StringBuilder(rawQuery.length());
+        for (String[] p : params) {
+            if (sb.length() > 0) {
+                sb.append('&');
+            }
+            sb.append(p[0]);
+            if (p[1] != null) {
+                sb.append('=').append(p[1]);
+            }
+        }
+        return sb.toString();
+    }
+
+    // %xx の16進を大文字に。予約されていない文字の %xx は復号する
+    private static String escapes(String s) {
+        if (s.indexOf('%') < 0) {
+            return s;
+        }
+        StringBuilder sb = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char ch = s.charAt(i);
+            if (ch == '%' && i + 2 < s.length()
+                    && Character.digit(s.charAt(i + 1), 16) >= 0 && Character.digit(s.charAt(i + 2), 16) >= 0) {
+                int v = Character.digit(s.charAt(i + 1), 16) * 16 + Character.digit(s.charAt(i + 2), 16);
+                if (isUnreserved(v)) {
+                    sb.append((char) v);
+                } else {
+                    sb.append('%').append(s.substring(i + 1, i + 3).toUpperCase(Locale.ROOT));
+                }
+                i += 2;
+            } else {
+                sb.append(ch);
+            }
+        }
+        return sb.toString();
+    }
+
+    private static boolean isUnreserved(int c) {
+        return (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')
+                || c == '-' || c == '.' || c == '_' || c == '~';
+    }
+}
@@ -0,0 +1,4 @@
+-- === V10__review_excerpt.sql ===
+-- 一覧カード用の本文の抜粋（Review の @PrePersist / @PreUpdate で作成）
+--   既存の行は NULL のまま。起動時に埋め戻す（ReviewExcerptBackfillService）
+ALTER TABLE review ADD COLUMN review_excerpt VARCHAR(101) NULL AFTER review_text;
@@ -0,0 +1,3 @@
+-- === V11__review_version.sql ===
+-- 楽観ロック用（Review の @Version。編集のたびに +1）。既存の行は 0 から
+ALTER TABLE review ADD COLUMN version INT NOT NULL DEFAULT 0 AFTER active_flag;
@@ -0,0 +1,37 @@
+-- === V12__id_sequences.sql ===
+-- =======================
+-- 採番を AUTO_INCREMENT から シーケンスに切り替える（users / category / contents / review）
+--   AUTO_INCREMENT（IDENTITY）だと Hibernate が INSERT を JDBC バッチにまとめられないため、シーケンスで採番する。
+--   INCREMENT BY はエンティティの allocationSize（50）と揃える（1回の問い合わせで 50 件分の id を確保する）
+--   開始値は既存の最大 id の次（pooled-lo なのでシーケンスの値がそのまま次に払い出す id になる）。
+--   CREATE SEQUENCE の START WITH には式を書けないので、文を組み立てて実行する
+-- =======================
+SET @ddl = CONCAT('CREATE SEQUENCE users_seq START WITH ',
+                  (SELECT COALESCE(MAX(id), 0) + 1 FROM users), ' INCREMENT BY 50');
+PREPARE create_seq FROM @ddl;
+EXECUTE create_seq;
+DEALLOCATE PREPARE create_seq;
+
+SET @ddl = CONCAT('CREATE SEQUENCE category_seq START WITH ',
+                  (SELECT COALESCE(MAX(category_id), 0) + 1 FROM category), ' INCREMENT BY 50');
+PREPARE create_seq FROM @ddl;
+EXECUTE create_seq;
+DEALLOCATE PREPARE create_seq;
+
+SET @ddl = CONCAT('CREATE SEQUENCE contents_seq START WITH ',
+                  (SELECT COALESCE(MAX(contents_id), 0) + 1 FROM contents), ' INCREMENT BY 50');
+PREPARE create_seq FROM @ddl;
+EXECUTE create_seq;
+DEALLOCATE PREPARE create_seq;
+
+SET @ddl = CONCAT('CREATE SEQUENCE review_seq START WITH ',
+                  (SELECT COALESCE(MAX(review_id), 0) + 1 FROM review), ' INCREMENT BY 50');
+PREPARE create_seq FROM @ddl;
+EXECUTE create_seq;
+DEALLOCATE PREPARE create_seq;
+
+-- id はアプリがシーケンスから払い出すので、AUTO_INCREMENT は外す（型は INT NOT NULL のまま）
+ALTER TABLE users MODIFY id INT NOT NULL;
+ALTER TABLE category MODIFY category_id INT NOT NULL;
+ALTER TABLE contents MODIFY contents_id INT NOT NULL;
+ALTER TABLE review MODIFY review_id INT NOT NULL;
@@ -1,11 +1,9 @@
--- === schema.sql ===
-
--- 依存関係のある順に DROP
-DROP TABLE IF EXISTS review_category;
-DROP TABLE IF EXISTS review;
-DROP TABLE IF EXISTS contents;
-DROP TABLE IF EXISTS category;
-DROP TABLE IF EXISTS users;
+-- === V1__baseline.sql ===
+-- Flyway のベースライン（旧 schema.sql で作っていたスキーマそのもの + カテゴリのマスタ）
+--   旧方式（schema.sql → data.sql）で動いていた DB は履歴表が無いので、baseline-on-migrate で
+--   この V1 を適用済みとみなし、V2 以降だけを適用する。そのため V1 は旧 schema.sql から変えないこと
+--   適用済みのスクリプトは書き換えない（チェックサムが変わると起動時の検証で失敗する）。
+--   スキーマの変更は V2__xxx.sql のように次の番号のスクリプトを追加する
 
 -- =======================
 -- users
@@ -94,3 +92,17 @@ ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
 
 -- カテゴリ側からレビューを引くとき用
 CREATE INDEX idx_review_category_category ON review_category (category_id);
+
+-- =======================
+-- カテゴリのマスタ（画面から追加しないため、シードではなくスキーマと一緒に入れる）
+--   旧方式では data.sql で入れていた。既存の DB には既に入っている
+-- =======================
+INSERT INTO category (category_id, category_name) VALUES
+  (1, 'HTML'),
+  (2, 'CSS'),
+  (3, 'Javascript'),
+  (4, 'PHP'),
+  (5, 'Java'),
+  (6, 'SpringBoot'),
+  (7, 'Eclipse'),
+  (8, 'SQL');
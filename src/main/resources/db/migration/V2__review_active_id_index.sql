@@ -0,0 +1,5 @@
+-- === V2__review_active_id_index.sql ===
+-- トップ一覧のキーセットページング用（active_flag = 1 AND review_id < ? ORDER BY review_id DESC）
+-- 旧 idx_review_active (active_flag) はこの複合インデックスの先頭列でカバーされるため置き換え
+CREATE INDEX idx_review_active_id ON review (active_flag, review_id);
+DROP INDEX idx_review_active ON review;
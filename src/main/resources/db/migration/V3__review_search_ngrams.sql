@@ -0,0 +1,7 @@
+-- === V3__review_search_ngrams.sql ===
+-- FULLTEXT 検索用: タイトル・本文の bi-gram を符号化した語の並び（ReviewFulltextService が更新）
+--   既存の行は NULL のまま。search.mode=fulltext で起動したときに埋め戻す
+ALTER TABLE review ADD COLUMN search_ngrams LONGTEXT NULL;
+
+-- MariaDB には ngram パーサが無いため、アプリ側で bi-gram を1語ずつに符号化した列に FULLTEXT を張る
+CREATE FULLTEXT INDEX ft_review_search_ngrams ON review (search_ngrams);
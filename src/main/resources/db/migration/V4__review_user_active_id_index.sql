@@ -0,0 +1,6 @@
+-- === V4__review_user_active_id_index.sql ===
+-- ユーザー別一覧（/mypage, /user/{id}）のキーセットページング用
+-- 旧 idx_review_user (user_id) は先頭列でカバーされるため置き換え（fk_review_user もこれを使う）
+--   FK が使うインデックスなので、新しいほうを先に作ってから消す
+CREATE INDEX idx_review_user_active_id ON review (user_id, active_flag, review_id);
+DROP INDEX idx_review_user ON review;
@@ -0,0 +1,30 @@
+-- === V5__contents_rating_summary.sql ===
+-- =======================
+-- contents_rating_summary（コンテンツ単位の評価集計）
+--   active=1 のレビューのみ。レビュー保存と同じトランザクションで差分加算する
+-- =======================
+CREATE TABLE contents_rating_summary
+(
+   contents_id  INT PRIMARY KEY,
+   review_count INT NOT NULL DEFAULT 0,
+   rate_sum     INT NOT NULL DEFAULT 0,
+   rate_1       INT NOT NULL DEFAULT 0,
+   rate_2       INT NOT NULL DEFAULT 0,
+   rate_3       INT NOT NULL DEFAULT 0,
+   rate_4       INT NOT NULL DEFAULT 0,
+   rate_5       INT NOT NULL DEFAULT 0,
+
+   CONSTRAINT fk_rating_summary_contents FOREIGN KEY (contents_id)
+       REFERENCES contents (contents_id)
+       ON UPDATE CASCADE ON DELETE CASCADE
+)
+ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+-- 既存のレビューから作成（以降は差分加算）
+INSERT INTO contents_rating_summary
+       (contents_id, review_count, rate_sum, rate_1, rate_2, rate_3, rate_4, rate_5)
+SELECT contents_id, COUNT(*), SUM(rate),
+       SUM(rate = 1), SUM(rate = 2), SUM(rate = 3), SUM(rate = 4), SUM(rate = 5)
+  FROM review
+ WHERE active_flag = 1
+ GROUP BY contents_id;
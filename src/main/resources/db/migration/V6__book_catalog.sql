@@ -0,0 +1,33 @@
+-- === V6__book_catalog.sql ===
+-- =======================
+-- book_catalog（楽天Books 検索結果のローカルの写し。ISBN-13 単位）
+--   BookCatalogService が楽天の検索結果を upsert し、ローカル優先検索に使う
+-- =======================
+CREATE TABLE book_catalog
+(
+   isbn13       CHAR(13) PRIMARY KEY,
+   title        VARCHAR(512)  NOT NULL,
+   -- 前方一致用: NFKC + 小文字化したタイトル
+   title_norm   VARCHAR(512)  NOT NULL,
+   -- FULLTEXT 検索用: タイトルの bi-gram を符号化した語の並び（review.search_ngrams と同じ方式）
+   title_ngrams LONGTEXT NULL,
+   item_url     VARCHAR(2048) NULL,
+   thumbnail    VARCHAR(4096) NULL,
+   fetched_at   DATETIME(6)   NOT NULL
+)
+ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+CREATE INDEX idx_book_catalog_title_norm ON book_catalog (title_norm);
+CREATE FULLTEXT INDEX ft_book_catalog_title_ngrams ON book_catalog (title_ngrams);
+
+-- =======================
+-- book_catalog_query（検索クエリごとの楽天の結果の並び）
+--   query_key は RakutenBooksService のキャッシュキー（正規化タイトル#件数）
+-- =======================
+CREATE TABLE book_catalog_query
+(
+   query_key  VARCHAR(600)  PRIMARY KEY,
+   isbn_list  VARCHAR(1024) NOT NULL,
+   fetched_at DATETIME(6)   NOT NULL
+)
+ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
@@ -0,0 +1,7 @@
+-- === V7__contents_book_isbn13.sql ===
+-- 正規化した ISBN-13（数値）。保存時に book_isbn から設定し、ISBN での特定はこちらで行う
+--   既存の行は NULL のまま。起動時に埋め戻す（ContentsKeyBackfillService）
+ALTER TABLE contents ADD COLUMN book_isbn13 BIGINT NULL AFTER book_isbn;
+
+-- NULL（書籍以外・ISBN 不正）は重複可
+ALTER TABLE contents ADD CONSTRAINT uk_contents_book_isbn13 UNIQUE (book_isbn13);
@@ -0,0 +1,9 @@
+-- === V8__contents_url_hash.sql ===
+-- 正規化した contents_url の SHA-256（UrlCanonicalizer）。URL での特定・重複判定はこちらで行う
+--   保存時に設定。既存の行は NULL のまま。起動時に埋め戻す（ContentsKeyBackfillService）
+ALTER TABLE contents ADD COLUMN contents_url_hash BINARY(32) NULL AFTER contents_url;
+ALTER TABLE contents ADD CONSTRAINT uk_contents_url_hash UNIQUE (contents_url_hash);
+
+-- 生の URL（最大 2048 文字）の一意インデックスは、ハッシュの一意インデックスで置き換える
+--   表記違いの重複は ContentsKeyBackfillService が統合する
+ALTER TABLE contents DROP INDEX uk_contents_url;
@@ -0,0 +1,23 @@
+-- === V9__category_review_count.sql ===
+-- =======================
+-- category_review_count（カテゴリ単位の公開レビュー件数）
+--   active=1 のレビューのみ。レビュー保存と同じトランザクションで差分加算し、定期ジョブで突き合わせる
+-- =======================
+CREATE TABLE category_review_count
+(
+   category_id  INT PRIMARY KEY,
+   review_count INT NOT NULL DEFAULT 0,
+
+   CONSTRAINT fk_category_review_count_category FOREIGN KEY (category_id)
+       REFERENCES category (category_id)
+       ON UPDATE CASCADE ON DELETE CASCADE
+)
+ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+-- 既存のレビューから作成（以降は差分加算）
+INSERT INTO category_review_count (category_id, review_count)
+SELECT rc.category_id, COUNT(*)
+  FROM review_category rc
+  JOIN review r ON r.review_id = rc.review_id
+ WHERE r.active_flag = 1
+ GROUP BY rc.category_id;
@@ -0,0 +1,89 @@
+package com.example;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.flywaydb.core.api.configuration.ClassicConfiguration;
+import org.flywaydb.core.internal.parser.ParsingContext;
+import org.flywaydb.core.internal.resource.StringResource;
+import org.flywaydb.core.internal.sqlscript.SqlStatementIterator;
+import org.flywaydb.database.mysql.mariadb.MariaDBParser;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+
+/**
+ * db/migration・db/seed のスクリプトを Flyway の MariaDB パーサで文に分割できることを確認する
+ * （テストでは MariaDB が無いので実行はしない。文の区切り・DELIMITER・複合文の扱いだけを見る）
+ */
+class MigrationScriptsTest {
+
+	private static final Pattern VERSION = Pattern.compile("V(\\d+)__\\w+\\.sql");
+
+	@Test
+	void migrationsAreNumberedFromOneWithoutGaps() throws IOException {
+		List<Integer> versions = new ArrayList<>();
+		for (Resource r : resources("classpath:db/migration/*.sql")) {
+			Matcher m = VERSION.matcher(r.getFilename());
+			assertThat(m.matches()).as(r.getFilename()).isTrue();
+			versions.add(Integer.parseInt(m.group(1)));
+		}
+		versions.sort(Comparator.naturalOrder());
+
+		assertThat(versions).isNotEmpty();
+		for (int i = 0; i < versions.size(); i++) {
+			assertThat(versions.get(i)).isEqualTo(i + 1);
+		}
+	}
+
+	@Test
+	void everyMigrationParses() throws IOException {
+		for (Resource r : resources("classpath:db/migration/*.sql")) {
+			assertThat(parse(r)).as(r.getFilename()).isNotEmpty();
+		}
+	}
+
+	@Test
+	void sequenceMigrationRunsEachPreparedStatementSeparately() throws IOException {
+		List<String> statements = parse(resources("classpath:db/migration/V12__*.sql").get(0));
+
+		// シーケンスごとに SET / PREPARE / EXECUTE / DEALLOCATE、最後に AUTO_INCREMENT を外す ALTER が 4 つ
+		assertThat(statements).hasSize(4 * 4 + 4);
+		assertThat(statements).filteredOn(s -> s.startsWith("PREPARE")).hasSize(4);
+	}
+
+	@Test
+	void seedIsOneGuardedCompoundStatement() throws IOException {
+		List<String> statements = parse(resources("classpath:db/seed/afterMigrate.sql").get(0));
+
+		// DELIMITER $$ で囲んだ BEGIN NOT ATOMIC ... END が1文として送られる（中の ; で切られない）
+		assertThat(statements).hasSize(1);
+		String seed = statements.get(0);
+		assertThat(seed).startsWith("BEGIN NOT ATOMIC").endsWith("END");
+		assertThat(seed).contains("IF NOT EXISTS (SELECT 1 FROM users)", "END IF;");
+		assertThat(seed).doesNotContain("$$", "INSERT IGNORE");
+	}
+
+	private static List<Resource> resources(String pattern) throws IOException {
+		List<Resource> list = new ArrayList<>(List.of(new PathMatchingResourcePatternResolver().getResources(pattern)));
+		assertThat(list).as(pattern).isNotEmpty();
+		return list;
+	}
+
+	private static List<String> parse(Resource resource) throws IOException {
+		String sql = resource.getContentAsString(StandardCharsets.UTF_8);
+		MariaDBParser parser = new MariaDBParser(new ClassicConfiguration(), new ParsingContext());
+		List<String> statements = new ArrayList<>();
+		try (SqlStatementIterator it = parser.parse(new StringResource(sql))) {
+			it.forEachRemaining(s -> statements.add(s.getSql().trim()));
+		}
+		return statements;
+	}
+}
@@ -0,0 +1,60 @@
+package com.example.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.example.entity.BookCatalogQuery;
+import com.example.repository.BookCatalogQueryRepository;
+import com.example.service.RakutenBooksService.BookItem;
+
+/**
+ * 0件の楽天検索結果がカタログのヒットとして居座らないことを確認する
+ * （書籍の upsert・bi-gram 検索は MariaDB 専用の SQL なので、ここでは通らない経路だけを見る）
+ */
+@DataJpaTest
+@ActiveProfiles("jpatest")
+@Import(BookCatalogService.class)
+class BookCatalogServiceTest {
+
+	@Autowired
+	private BookCatalogService bookCatalogService;
+	@Autowired
+	private BookCatalogQueryRepository bookCatalogQueryRepository;
+
+	@Test
+	void emptyResultsAreNotRecorded() {
+		BookItem noIsbn = new BookItem();
+		noIsbn.title = "ISBN の無い本";
+
+		bookCatalogService.record("none#10", List.of());
+		bookCatalogService.record("noisbn#10", List.of(noIsbn));
+
+		assertThat(bookCatalogQueryRepository.count()).isZero();
+	}
+
+	@Test
+	void loggedQueryThatResolvesToNothingIsAMiss() {
+		// 修正前に記録された0件の結果と、カタログから書籍が消えた記録
+		log("empty#10", "");
+		log("gone#10", "9784000000001");
+
+		assertThat(bookCatalogService.findFresh("empty#10", "", 10)).isEmpty();
+		assertThat(bookCatalogService.findFresh("gone#10", "", 10)).isEmpty();
+	}
+
+	private void log(String queryKey, String isbnList) {
+		BookCatalogQuery q = new BookCatalogQuery();
+		q.setQueryKey(queryKey);
+		q.setIsbnList(isbnList);
+		q.setFetchedAt(LocalDateTime.now());
+		bookCatalogQueryRepository.save(q);
+	}
+}
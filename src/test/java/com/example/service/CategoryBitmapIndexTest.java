@@ -0,0 +1,245 @@
+package com.example.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.example.dto.KeysetPage;
+import com.example.entity.Category;
+import com.example.entity.Contents;
+import com.example.entity.Review;
+import com.example.entity.User;
+import com.example.repository.ReviewRepository;
+import com.example.service.CategoryBitmapIndex.Filter;
+
+/**
+ * 起動時構築（review_category から）・AND / OR / NOT の絞り込み・差分更新・キーセットページングを確認する
+ * ★追加: 構築中にコミットされた変更が、それより前に読んだチャンクで巻き戻らないことも確認する
+ * ★追加: 構築完了前の CategoryFilterService（DB で評価）が、構築後のビットマップと同じ結果を返すことも確認する
+ */
+@DataJpaTest
+@ActiveProfiles("jpatest")
+@Import(CategoryBitmapIndex.class)
+class CategoryBitmapIndexTest {
+
+	@Autowired
+	private TestEntityManager em;
+	@Autowired
+	private CategoryBitmapIndex index;
+	@Autowired
+	private ReviewRepository reviewRepository;
+
+	private Category java;
+	private Category sql;
+	private Category spring;
+	private User user;
+	private Contents contents;
+
+	@BeforeEach
+	void setUp() {
+		java = category("Java");
+		sql = category("SQL");
+		spring = category("Spring");
+		user = new User();
+		user.setUsername("u");
+		user.setPassword("x");
+		em.persist(user);
+		contents = new Contents();
+		contents.setContentsUrl("https://example.com/");
+		contents.setContentsTitle("c");
+		contents.setContentsType(2);
+		em.persist(contents);
+		ReflectionTestUtils.setField(index, "buildChunkSize", 2); // チャンクの境目も通す
+	}
+
+	@Test
+	void buildsFromReviewCategoryAndCombinesFilters() {
+		Review javaSql = review(true, java, sql);
+		Review javaSpring = review(true, java, spring);
+		Review sqlOnly = review(true, sql);
+		review(false, java, sql); // 非公開は含めない
+		em.flush();
+
+		index.build();
+
+		assertThat(ids(new Filter(List.of(java.getCategoryId(), sql.getCategoryId()), null, null)))
+				.containsExactly(javaSql.getReviewId());
+		assertThat(ids(new Filter(null, List.of(spring.getCategoryId(), sql.getCategoryId()), null)))
+				.containsExactly(javaSql.getReviewId(), javaSpring.getReviewId(), sqlOnly.getReviewId());
+		assertThat(ids(new Filter(List.of(java.getCategoryId()), null, List.of(sql.getCategoryId()))))
+				.containsExactly(javaSpring.getReviewId());
+		assertThat(ids(new Filter(null, null, List.of(java.getCategoryId()))))
+				.containsExactly(sqlOnly.getReviewId());
+	}
+
+	@Test
+	void followsCategoryChangesAndLogicalDeletes() {
+		Review r = review(true, java);
+		em.flush();
+		index.build();
+		ReviewSnapshot created = ReviewSnapshot.of(r);
+
+		r.getCategories().clear();
+		r.getCategories().add(sql);
+		ReviewSnapshot moved = ReviewSnapshot.of(r);
+		index.onReviewChanged(new ReviewChangedEvent(created, moved));
+
+		assertThat(ids(new Filter(List.of(java.getCategoryId()), null, null))).isEmpty();
+		assertThat(ids(new Filter(List.of(sql.getCategoryId()), null, null))).containsExactly(r.getReviewId());
+
+		r.setActiveFlag(false);
+		index.onReviewChanged(new ReviewChangedEvent(moved, ReviewSnapshot.of(r)));
+
+		assertThat(ids(new Filter(List.of(sql.getCategoryId()), null, null))).isEmpty();
+		assertThat(ids(new Filter(null, null, List.of(java.getCategoryId())))).isEmpty();
+	}
+
+	@Test
+	void changesCommittedDuringBuildAreNotUndoneByEarlierChunks() {
+		Review deleted = review(true, java);
+		Review moved = review(true, java);
+		Review kept = review(true, java);
+		em.flush();
+
+		// それぞれ最初のチャンクを読んだ直後（構築側が反映する前）に変更がコミットされた
+		CategoryBitmapIndex[] building = new CategoryBitmapIndex[1];
+		Map<String, Runnable> afterFirstRead = new HashMap<>(Map.of(
+				"findActiveIdsAfter", () -> change(building[0], deleted, r -> r.setActiveFlag(false)),
+				"findActiveCategoryPairsAfter", () -> change(building[0], moved, r -> {
+					r.getCategories().clear();
+					r.getCategories().add(sql);
+				})));
+		RepositoryStub<ReviewRepository> repository = RepositoryStub.wrapping(ReviewRepository.class, reviewRepository);
+		for (String method : afterFirstRead.keySet()) {
+			repository.on(method, call -> {
+				Object result = call.proceed();
+				Runnable hook = afterFirstRead.remove(method);
+				if (hook != null) {
+					hook.run();
+				}
+				return result;
+			});
+		}
+		building[0] = new CategoryBitmapIndex(repository.proxy());
+		ReflectionTestUtils.setField(building[0], "buildChunkSize", 2);
+
+		building[0].build();
+
+		assertThat(ids(building[0], new Filter(List.of(java.getCategoryId()), null, null)))
+				.containsExactly(kept.getReviewId());
+		assertThat(ids(building[0], new Filter(List.of(sql.getCategoryId()), null, null)))
+				.containsExactly(moved.getReviewId());
+		assertThat(ids(building[0], new Filter(null, null, List.of(sql.getCategoryId()))))
+				.containsExactly(kept.getReviewId());
+	}
+
+	@Test
+	void databaseFallbackBeforeBuildMatchesBitmap() {
+		Review javaSql = review(true, java, sql);
+		Review javaSpring = review(true, java, spring);
+		Review sqlOnly = review(true, sql);
+		Review none = review(true);
+		review(false, java, sql);
+		em.flush();
+		List<Filter> filters = List.of(
+				new Filter(List.of(java.getCategoryId(), sql.getCategoryId(), java.getCategoryId()), null, null),
+				new Filter(null, List.of(spring.getCategoryId(), sql.getCategoryId()), null),
+				new Filter(List.of(java.getCategoryId()), null, List.of(sql.getCategoryId())),
+				new Filter(null, null, List.of(java.getCategoryId())),
+				new Filter(List.of(java.getCategoryId()), List.of(sql.getCategoryId(), spring.getCategoryId()), null));
+
+		// 共有の index は他のテストで構築済みなので、未構築のものを用意する
+		CategoryBitmapIndex fresh = new CategoryBitmapIndex(reviewRepository);
+		ReflectionTestUtils.setField(fresh, "buildChunkSize", 2);
+		CategoryFilterService service = new CategoryFilterService(fresh, reviewRepository);
+
+		assertThat(fresh.isReady()).isFalse();
+		List<List<Integer>> fromDatabase = filters.stream().map(f -> allPages(service, f)).toList();
+		fresh.build();
+		List<List<Integer>> fromBitmap = filters.stream().map(f -> allPages(service, f)).toList();
+
+		assertThat(fromDatabase).isEqualTo(fromBitmap);
+		assertThat(fromDatabase.get(0)).containsExactly(javaSql.getReviewId());
+		assertThat(fromDatabase.get(1)).containsExactly(sqlOnly.getReviewId(), javaSpring.getReviewId(), javaSql.getReviewId());
+		assertThat(fromDatabase.get(3)).containsExactly(none.getReviewId(), sqlOnly.getReviewId());
+	}
+
+	@Test
+	void pagesInDescendingIdOrderWithCursor() {
+		RoaringBitmap ids = RoaringBitmap.bitmapOf(3, 8, 15, 21, 40);
+
+		KeysetPage<Integer> first = CategoryBitmapIndex.page(ids, null, 2);
+		KeysetPage<Integer> second = CategoryBitmapIndex.page(ids, first.getNextCursor(), 2);
+		KeysetPage<Integer> last = CategoryBitmapIndex.page(ids, second.getNextCursor(), 2);
+
+		assertThat(first.getItems()).containsExactly(40, 21);
+		assertThat(second.getItems()).containsExactly(15, 8);
+		assertThat(last.getItems()).containsExactly(3);
+		assertThat(last.hasNext()).isFalse();
+	}
+
+	// 1件ずつのページで最後までたどった id（total がページの合計と一致することも見る）
+	private static List<Integer> allPages(CategoryFilterService service, Filter filter) {
+		List<Integer> out = new ArrayList<>();
+		Integer cursor = null;
+		long total;
+		do {
+			CategoryFilterService.Result result = service.filter(filter, cursor, 1);
+			out.addAll(result.page().getItems());
+			cursor = result.page().getNextCursor();
+			total = result.total();
+		} while (cursor != null);
+		assertThat(out).hasSize((int) total);
+		return out;
+	}
+
+	private List<Integer> ids(Filter filter) {
+		return ids(index, filter);
+	}
+
+	private static List<Integer> ids(CategoryBitmapIndex target, Filter filter) {
+		return target.select(filter).stream().boxed().toList();
+	}
+
+	// レビューを変更して DB に書き、コミット後のイベントとして index に届ける
+	private void change(CategoryBitmapIndex target, Review r, Consumer<Review> edit) {
+		ReviewSnapshot before = ReviewSnapshot.of(r);
+		edit.accept(r);
+		em.flush();
+		target.onReviewChanged(new ReviewChangedEvent(before, ReviewSnapshot.of(r)));
+	}
+
+	private Review review(boolean active, Category... categories) {
+		Review r = new Review();
+		r.setUser(user);
+		r.setContents(contents);
+		r.setRate(3);
+		r.setReviewTitle("t");
+		r.setReviewText("x");
+		r.setActiveFlag(active);
+		for (Category c : categories) {
+			r.getCategories().add(c);
+		}
+		return em.persist(r);
+	}
+
+	private Category category(String name) {
+		Category c = new Category();
+		c.setCategoryName(name);
+		return em.persist(c);
+	}
+}
@@ -0,0 +1,80 @@
+package com.example.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.entity.Category;
+import com.example.entity.Review;
+import com.example.repository.CategoryReviewCountRepository;
+
+/**
+ * レビューの作成・カテゴリ変更・論理削除で、カテゴリ別件数へ正しい差分だけが送られることを確認する
+ * （addDelta は MariaDB の ON DUPLICATE KEY を使うため、呼び出し内容だけを記録して確かめる）
+ */
+class CategoryReviewCountServiceTest {
+
+	private final Map<Integer, Integer> deltas = new TreeMap<>();
+	private final RepositoryStub<CategoryReviewCountRepository> repository = RepositoryStub
+			.of(CategoryReviewCountRepository.class)
+			.on("addDelta", call -> {
+				deltas.merge((Integer) call.args[0], (Integer) call.args[1], Integer::sum);
+				return 1;
+			})
+			.on("lockAll", call -> List.of(1))
+			.on("findDrift", call -> List.<Object[]> of(new Object[] { 1, 5, 4 }))
+			.on("setCount", call -> 1);
+	private final CategoryReviewCountService service = new CategoryReviewCountService(repository.proxy());
+
+	@Test
+	void createAddsOneToEachCategory() {
+		service.onReviewChanged(new ReviewChangedEvent(null, snapshot(true, 1, 2)));
+
+		assertThat(deltas).isEqualTo(Map.of(1, 1, 2, 1));
+	}
+
+	@Test
+	void categoryChangeMovesCountOnlyForChangedCategories() {
+		service.onReviewChanged(new ReviewChangedEvent(snapshot(true, 1, 2), snapshot(true, 2, 3)));
+
+		assertThat(deltas).isEqualTo(Map.of(1, -1, 3, 1));
+	}
+
+	@Test
+	void logicalDeleteAndRestoreAreCounted() {
+		service.onReviewChanged(new ReviewChangedEvent(snapshot(true, 1), snapshot(false, 1)));
+		assertThat(deltas).isEqualTo(Map.of(1, -1));
+
+		service.onReviewChanged(new ReviewChangedEvent(snapshot(false, 1), snapshot(true, 1)));
+		assertThat(deltas).isEqualTo(Map.of(1, 0));
+	}
+
+	@Test
+	void editsOfInactiveReviewsAreIgnored() {
+		service.onReviewChanged(new ReviewChangedEvent(snapshot(false, 1), snapshot(false, 2)));
+
+		assertThat(deltas).isEmpty();
+	}
+
+	@Test
+	void reconcileLocksCountsBeforeCountingActualReviews() {
+		assertThat(service.reconcile()).isEqualTo(1);
+
+		assertThat(repository.calls()).containsExactly("lockAll", "findDrift", "setCount");
+	}
+
+	private ReviewSnapshot snapshot(boolean active, Integer... categoryIds) {
+		Review r = new Review();
+		r.setActiveFlag(active);
+		for (Integer id : categoryIds) {
+			Category c = new Category();
+			c.setCategoryId(id);
+			r.getCategories().add(c);
+		}
+		return ReviewSnapshot.of(r);
+	}
+}
@@ -0,0 +1,93 @@
+package com.example.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.Set;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.example.dto.ReviewCard.CategoryTag;
+import com.example.entity.Category;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * カテゴリのスナップショットが、変更が無い限り DB を読まないことと、変更で読み直されることを確認する
+ */
+@DataJpaTest
+@ActiveProfiles("jpatest")
+@Import({ CategorySnapshotService.class, CategoryChangeListener.class })
+class CategorySnapshotServiceTest {
+
+	@Autowired
+	private TestEntityManager em;
+	@Autowired
+	private EntityManagerFactory emf;
+	@Autowired
+	private CategorySnapshotService snapshotService;
+
+	private Statistics stats;
+
+	@BeforeEach
+	void setUp() {
+		stats = emf.unwrap(SessionFactory.class).getStatistics();
+		snapshotService.invalidate();
+		category("SQL");
+		category("Java");
+		em.flush();
+	}
+
+	@Test
+	void repeatedReadsDoNotTouchDatabase() {
+		List<CategoryTag> first = snapshotService.findAllSorted();
+
+		stats.clear();
+		List<CategoryTag> second = snapshotService.findAllSorted();
+		snapshotService.find(first.get(0).getCategoryId());
+
+		assertThat(stats.getPrepareStatementCount()).isZero();
+		assertThat(second).isSameAs(first)
+				.extracting(CategoryTag::getCategoryName).containsExactly("Java", "SQL");
+	}
+
+	@Test
+	void changesThroughJpaRefreshTheSnapshot() {
+		long version = snapshotService.current().getVersion();
+
+		Category added = category("Go");
+		em.flush();
+
+		CategorySnapshotService.Snapshot refreshed = snapshotService.current();
+		assertThat(refreshed.getVersion()).isGreaterThan(version);
+		assertThat(refreshed.getCategories()).extracting(CategoryTag::getCategoryName)
+				.containsExactly("Go", "Java", "SQL");
+		assertThat(refreshed.find(added.getCategoryId())).isPresent();
+	}
+
+	@Test
+	void referencesSkipUnknownIdsWithoutQuerying() {
+		Integer known = snapshotService.findAllSorted().get(0).getCategoryId();
+		em.clear();
+
+		stats.clear();
+		Set<Category> refs = snapshotService.references(List.of(known, -1));
+
+		assertThat(stats.getPrepareStatementCount()).isZero();
+		assertThat(refs).extracting(Category::getCategoryId).containsExactly(known);
+	}
+
+	private Category category(String name) {
+		Category c = new Category();
+		c.setCategoryName(name);
+		return em.persist(c);
+	}
+}
@@ -0,0 +1,243 @@
+package com.example.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.example.config.HttpClientConfig;
+import com.sun.net.httpserver.HttpServer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * ローカルのスタブ HTTP サーバに対してメタ情報取得とキャッシュの挙動を確認する
+ */
+class ContentMetaServiceTest {
+
+	private static final String PAGE = """
+			<html><head>
+			<title>fallback title</title>
+			<meta property="og:title" content="OGPタイトル">
+			<meta property="og:image" content="https://example.com/thumb.png">
+			</head><body><p>本文</p></body></html>
+			""";
+
+	private static final int FULL_MAX_BYTES = 64 * 1024;
+	private static final int ENDLESS_BYTES = 256 * 1024 * 1024;
+
+	private HttpServer server;
+	private final AtomicInteger requests = new AtomicInteger();
+	private final List<String> requestedUris = new CopyOnWriteArrayList<>();
+	private final AtomicInteger endlessWritten = new AtomicInteger();
+	private volatile CountDownLatch slowResponse = new CountDownLatch(0);
+	private SimpleMeterRegistry registry;
+	private CloseableHttpClient httpClient;
+	private ContentMetaService service;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.setExecutor(Executors.newCachedThreadPool());
+		server.createContext("/page", ex -> {
+			requests.incrementAndGet();
+			try {
+				slowResponse.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			byte[] body = PAGE.getBytes(StandardCharsets.UTF_8);
+			ex.getResponseHeaders().add("Content-Type", "text/html; charset=UTF-8");
+			ex.sendResponseHeaders(200, body.length);
+			try (OutputStream os = ex.getResponseBody()) {
+				os.write(body);
+			}
+		});
+		server.createContext("/gzip", ex -> {
+			ex.getResponseHeaders().add("Content-Type", "text/html; charset=UTF-8");
+			ex.getResponseHeaders().add("Content-Encoding", "gzip");
+			ex.sendResponseHeaders(200, 0);
+			try (OutputStream os = new GZIPOutputStream(ex.getResponseBody())) {
+				os.write(PAGE.getBytes(StandardCharsets.UTF_8));
+			}
+		});
+		server.createContext("/sjis", ex -> {
+			// Content-Type に charset が無く、<meta charset> だけで判定させる
+			String html = "<html><head><meta charset=\"Shift_JIS\"><title>日本語タイトル</title></head><body></body></html>";
+			byte[] body = html.getBytes(Charset.forName("Shift_JIS"));
+			ex.getResponseHeaders().add("Content-Type", "text/html");
+			ex.sendResponseHeaders(200, body.length);
+			try (OutputStream os = ex.getResponseBody()) {
+				os.write(body);
+			}
+		});
+		server.createContext("/signed", ex -> {
+			requestedUris.add(ex.getRequestURI().toString());
+			byte[] body = PAGE.getBytes(StandardCharsets.UTF_8);
+			ex.getResponseHeaders().add("Content-Type", "text/html; charset=UTF-8");
+			ex.sendResponseHeaders(200, body.length);
+			try (OutputStream os = ex.getResponseBody()) {
+				os.write(body);
+			}
+		});
+		server.createContext("/endless", ex -> {
+			// <head> の後に巨大な本文が続く（クライアントが接続を切ると書き込みが失敗して止まる）
+			ex.getResponseHeaders().add("Content-Type", "text/html; charset=UTF-8");
+			ex.sendResponseHeaders(200, 0);
+			byte[] chunk = "<p>padding</p>".repeat(512).getBytes(StandardCharsets.UTF_8);
+			try (OutputStream os = ex.getResponseBody()) {
+				os.write(PAGE.replace("</body></html>", "").getBytes(StandardCharsets.UTF_8));
+				while (endlessWritten.get() < ENDLESS_BYTES) {
+					os.write(chunk);
+					endlessWritten.addAndGet(chunk.length);
+				}
+					} catch (IOException e) {
+						// 打ち切られた
+			}
+		});
+		server.createContext("/old", ex -> {
+			ex.getResponseHeaders().add("Location", "/page");
+			ex.sendResponseHeaders(301, -1);
+			ex.close();
+		});
+		server.start();
+
+		registry = new SimpleMeterRegistry();
+		httpClient = new HttpClientConfig().contentMetaHttpClient(Duration.ofSeconds(2), Duration.ofSeconds(5),
+				Duration.ofSeconds(2), Duration.ofSeconds(30), 16, 4, Duration.ofMinutes(1));
+		service = newService("head");
+	}
+
+	private ContentMetaService newService(String fetchMode) {
+		return new ContentMetaService(httpClient, registry, Duration.ofMinutes(5), Duration.ofMinutes(1), 100,
+				fetchMode, 256 * 1024, FULL_MAX_BYTES);
+	}
+
+	@AfterEach
+	void tearDown() throws IOException {
+		httpClient.close();
+		server.stop(0);
+	}
+
+	private String url(String path) {
+		return "http://127.0.0.1:" + server.getAddress().getPort() + path;
+	}
+
+	@Test
+	void extractsOgpAndServesRepeatsFromCache() throws Exception {
+		ContentMetaService.Meta first = service.fetch(url("/page"));
+		ContentMetaService.Meta second = service.fetch(url("/page"));
+
+		assertThat(first.title).isEqualTo("OGPタイトル");
+		assertThat(first.imageUrl).isEqualTo("https://example.com/thumb.png");
+		assertThat(first.url).isEqualTo(url("/page"));
+		assertThat(second).isSameAs(first);
+		assertThat(requests.get()).isEqualTo(1);
+		assertThat(count("hit")).isEqualTo(1);
+		assertThat(count("miss")).isEqualTo(1);
+	}
+
+	@Test
+	void concurrentRequestsShareOneFetch() throws Exception {
+		slowResponse = new CountDownLatch(1);
+		ExecutorService pool = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<ContentMetaService.Meta>> futures = new ArrayList<>();
+			for (int i = 0; i < 8; i++) {
+				futures.add(pool.submit(() -> service.fetch(url("/page"))));
+			}
+			Thread.sleep(200); // 全員が取得中のエントリを見つけるまで待つ
+			slowResponse.countDown();
+			for (Future<ContentMetaService.Meta> f : futures) {
+				assertThat(f.get().title).isEqualTo("OGPタイトル");
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+		assertThat(requests.get()).isEqualTo(1);
+	}
+
+	@Test
+	void failuresAreCachedBriefly() {
+		// 接続できないポート
+		String dead = "http://127.0.0.1:1/nothing";
+		assertThatThrownBy(() -> service.fetch(dead)).isInstanceOf(IOException.class);
+		// 負のキャッシュから返す失敗にも、元の例外のクラス名とメッセージが残る
+		assertThatThrownBy(() -> service.fetch(dead)).isInstanceOf(IOException.class)
+				.hasMessageContaining("(HttpHostConnectException: ")
+				.hasMessageContaining("Connection refused");
+
+		assertThat(count("miss")).isEqualTo(1);
+		assertThat(count("negative_hit")).isEqualTo(1);
+	}
+
+	@Test
+	void headOnlyModeMatchesFullParse() throws Exception {
+		ContentMetaService.Meta head = service.fetch(url("/page"));
+		ContentMetaService.Meta full = newService("full").fetch(url("/page"));
+
+		assertThat(head.url).isEqualTo(full.url);
+		assertThat(head.title).isEqualTo(full.title);
+		assertThat(head.imageUrl).isEqualTo(full.imageUrl);
+	}
+
+	@Test
+	void bothModesStopReadingALargeBodyAndDropTheConnection() throws Exception {
+		for (String mode : List.of("head", "full")) {
+			endlessWritten.set(0);
+
+			ContentMetaService.Meta meta = newService(mode).fetch(url("/endless"));
+
+			assertThat(meta.title).as(mode).isEqualTo("OGPタイトル");
+			// 打ち切った接続は残りを読み捨てずに破棄するので、サーバは本文を最後まで書けない
+			assertThat(endlessWritten.get()).as(mode).isLessThan(ENDLESS_BYTES);
+		}
+	}
+
+	@Test
+	void reportsUrlAfterRedirect() throws Exception {
+		ContentMetaService.Meta meta = service.fetch(url("/old"));
+
+		assertThat(meta.url).isEqualTo(url("/page"));
+		assertThat(meta.title).isEqualTo("OGPタイトル");
+	}
+
+	@Test
+	void fetchesUrlAsEnteredButCachesByCanonicalForm() throws Exception {
+		// 正規化すると末尾の / ・パラメータの順・utm_* が変わるが、取得は入力どおりに行う
+		service.fetch(url("/signed/?b=2&a=1&utm_source=x&sig=AbC%2F"));
+		service.fetch(url("/signed?a=1&b=2&sig=AbC%2F"));
+
+		assertThat(requestedUris).containsExactly("/signed/?b=2&a=1&utm_source=x&sig=AbC%2F");
+		assertThat(count("hit")).isEqualTo(1);
+	}
+
+	@Test
+	void decodesGzipAndDetectsMetaCharset() throws Exception {
+		assertThat(service.fetch(url("/gzip")).title).isEqualTo("OGPタイトル");
+		assertThat(service.fetch(url("/sjis")).title).isEqualTo("日本語タイトル");
+	}
+
+	private double count(String result) {
+		return registry.get("contentmeta.cache.requests").tag("result", result).counter().count();
+	}
+}
@@ -0,0 +1,132 @@
+package com.example.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.example.entity.Contents;
+import com.example.entity.Review;
+import com.example.entity.User;
+import com.example.repository.ContentsRepository;
+import com.example.repository.ReviewRepository;
+
+/**
+ * 検索キー（contents_url_hash / book_isbn13）の書き込み経路での設定と、既存行の埋め戻し（重複の統合）を確認する
+ */
+@DataJpaTest
+@ActiveProfiles("jpatest")
+@Import(ContentsKeyBackfillService.class)
+class ContentsKeyBackfillServiceTest {
+
+	@Autowired
+	private TestEntityManager em;
+	@Autowired
+	private ContentsRepository contentsRepository;
+	@Autowired
+	private ReviewRepository reviewRepository;
+	@Autowired
+	private ContentsKeyBackfillService backfillService;
+
+	@Test
+	void isbn13IsSetOnWriteAndFoundFromAnyForm() {
+		Contents c = book("https://books.example/1", "978-4-87311-565-8");
+		em.flush();
+		em.clear();
+
+		assertThat(contentsRepository.findById(c.getContentsId()).orElseThrow().getBookIsbn13())
+				.isEqualTo(9784873115658L);
+		assertThat(contentsRepository.findByIsbn("4873115655")).get()
+				.extracting(Contents::getContentsId).isEqualTo(c.getContentsId());
+		assertThat(contentsRepository.findByIsbn("not-an-isbn")).isEmpty();
+	}
+
+	@Test
+	void backfillFillsLegacyRowsAndMergesDuplicates() {
+		Contents isbn13 = book("https://books.example/13", "9784873115658");
+		Contents invalid = book("https://books.example/x", "123");
+		em.flush();
+		// 列追加前の状態を再現: book_isbn13 未設定で、同じ本の ISBN-10 表記の行もある
+		em.getEntityManager().createNativeQuery("UPDATE contents SET book_isbn13 = NULL, contents_url_hash = NULL")
+				.executeUpdate();
+		em.getEntityManager().createNativeQuery("""
+				INSERT INTO contents (contents_id, contents_url, contents_title, book_isbn, contents_type)
+				VALUES (NEXT VALUE FOR contents_seq, 'https://books.example/10', 'book isbn10', '4-87311-565-5', 1)
+				""").executeUpdate();
+		Contents isbn10 = em.getEntityManager()
+				.createQuery("SELECT c FROM Contents c WHERE c.contentsUrl = 'https://books.example/10'", Contents.class)
+				.getSingleResult();
+		Review moved = review(isbn10);
+		em.flush();
+		em.clear();
+
+		backfillService.backfill();
+		em.flush();
+		em.clear();
+
+		assertThat(contentsRepository.findById(isbn13.getContentsId()).orElseThrow().getBookIsbn13())
+				.isEqualTo(9784873115658L);
+		assertThat(contentsRepository.findById(isbn10.getContentsId())).isEmpty();
+		assertThat(contentsRepository.findById(invalid.getContentsId()).orElseThrow().getBookIsbn13()).isNull();
+		assertThat(reviewRepository.findById(moved.getReviewId()).orElseThrow().getContents().getContentsId())
+				.isEqualTo(isbn13.getContentsId());
+	}
+
+	@Test
+	void urlVariantsResolveToTheSameContents() {
+		Contents c = book("https://Example.com/articles/1/?utm_source=x#top", "");
+		em.flush();
+		em.clear();
+
+		assertThat(contentsRepository.findByContentsUrl("https://example.com:443/articles/1")).get()
+				.extracting(Contents::getContentsId).isEqualTo(c.getContentsId());
+		assertThat(contentsRepository.findByContentsUrl("https://example.com/articles/2")).isEmpty();
+	}
+
+	@Test
+	void backfillMergesUrlVariants() {
+		Contents first = book("https://example.com/a", "");
+		em.flush();
+		em.getEntityManager().createNativeQuery("UPDATE contents SET contents_url_hash = NULL").executeUpdate();
+		em.getEntityManager().createNativeQuery("""
+				INSERT INTO contents (contents_id, contents_url, contents_title, contents_type)
+				VALUES (NEXT VALUE FOR contents_seq, 'https://EXAMPLE.com/a/?fbclid=1', 'variant', 2)
+				""").executeUpdate();
+		em.clear();
+
+		backfillService.backfill();
+		em.flush();
+		em.clear();
+
+		assertThat(contentsRepository.findAll()).extracting(Contents::getContentsId)
+				.containsExactly(first.getContentsId());
+		assertThat(contentsRepository.findByContentsUrl("example.com/a")).isPresent();
+	}
+
+	private Contents book(String url, String isbn) {
+		Contents c = new Contents();
+		c.setContentsUrl(url);
+		c.setContentsTitle("book " + isbn);
+		c.setBookIsbn(isbn);
+		c.setContentsType(1);
+		return em.persist(c);
+	}
+
+	private Review review(Contents c) {
+		User u = new User();
+		u.setUsername("user");
+		u.setPassword("x");
+		em.persist(u);
+		Review r = new Review();
+		r.setUser(u);
+		r.setContents(c);
+		r.setRate(4);
+		r.setReviewTitle("title");
+		r.setReviewText("text");
+		return em.persist(r);
+	}
+}
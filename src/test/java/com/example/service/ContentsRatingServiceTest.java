@@ -0,0 +1,105 @@
+package com.example.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.entity.Contents;
+import com.example.entity.Review;
+import com.example.repository.ContentsRatingSummaryRepository;
+
+/**
+ * レビューの作成・評価の変更・コンテンツの付け替え・論理削除で、コンテンツ別集計へ正しい差分だけが送られることを確認する
+ * （addDelta は MariaDB の ON DUPLICATE KEY を使うため、呼び出し内容だけを記録して確かめる）
+ */
+class ContentsRatingServiceTest {
+
+	// addDelta の引数 [contentsId, 件数, 合計, 評価1..5]
+	private final List<List<Integer>> deltas = new ArrayList<>();
+	private final RepositoryStub<ContentsRatingSummaryRepository> repository = RepositoryStub
+			.of(ContentsRatingSummaryRepository.class)
+			.on("addDelta", call -> {
+				deltas.add(Arrays.stream(call.args).map(Integer.class::cast).toList());
+				return 1;
+			});
+	private final ContentsRatingService service = new ContentsRatingService(repository.proxy());
+
+	@Test
+	void createAddsOneRating() {
+		service.onReviewChanged(new ReviewChangedEvent(null, snapshot(true, 10, 4)));
+
+		assertThat(deltas).containsExactly(List.of(10, 1, 4, 0, 0, 0, 1, 0));
+	}
+
+	@Test
+	void rateEditMovesOnlyTheSumAndHistogram() {
+		service.onReviewChanged(new ReviewChangedEvent(snapshot(true, 10, 2), snapshot(true, 10, 5)));
+
+		assertThat(deltas).containsExactly(List.of(10, 0, 3, 0, -1, 0, 0, 1));
+	}
+
+	@Test
+	void unchangedRateSendsNothing() {
+		service.onReviewChanged(new ReviewChangedEvent(snapshot(true, 10, 3), snapshot(true, 10, 3)));
+
+		assertThat(deltas).isEmpty();
+	}
+
+	@Test
+	void contentsChangeMovesTheRatingToTheNewContents() {
+		service.onReviewChanged(new ReviewChangedEvent(snapshot(true, 10, 3), snapshot(true, 20, 3)));
+
+		assertThat(deltas).containsExactlyInAnyOrder(
+				List.of(10, -1, -3, 0, 0, -1, 0, 0),
+				List.of(20, 1, 3, 0, 0, 1, 0, 0));
+	}
+
+	@Test
+	void logicalDeleteAndRestoreAreCounted() {
+		service.onReviewChanged(new ReviewChangedEvent(snapshot(true, 10, 5), snapshot(false, 10, 5)));
+		service.onReviewChanged(new ReviewChangedEvent(snapshot(false, 10, 5), snapshot(true, 10, 5)));
+
+		assertThat(deltas).containsExactly(
+				List.of(10, -1, -5, 0, 0, 0, 0, -1),
+				List.of(10, 1, 5, 0, 0, 0, 0, 1));
+	}
+
+	@Test
+	void editsOfInactiveReviewsAreIgnored() {
+		service.onReviewChanged(new ReviewChangedEvent(snapshot(false, 10, 1), snapshot(false, 20, 5)));
+
+		assertThat(deltas).isEmpty();
+	}
+
+	@Test
+	void deactivatingWhileEditingRemovesOnlyTheOldRating() {
+		// 評価を変えつつ論理削除: 変更前の評価だけを引き、変更後は数えない
+		service.onReviewChanged(new ReviewChangedEvent(snapshot(true, 10, 2), snapshot(false, 10, 4)));
+
+		assertThat(deltas).containsExactly(List.of(10, -1, -2, 0, -1, 0, 0, 0));
+	}
+
+	@Test
+	void ratesOutsideOneToFiveAndMissingContentsAreSkipped() {
+		service.onReviewChanged(new ReviewChangedEvent(null, snapshot(true, 10, 0)));
+		service.onReviewChanged(new ReviewChangedEvent(null, snapshot(true, null, 3)));
+
+		assertThat(deltas).isEmpty();
+	}
+
+	private ReviewSnapshot snapshot(boolean active, Integer contentsId, Integer rate) {
+		Review r = new Review();
+		r.setActiveFlag(active);
+		r.setRate(rate);
+		if (contentsId != null) {
+			Contents c = new Contents();
+			c.setContentsId(contentsId);
+			r.setContents(c);
+		}
+		return ReviewSnapshot.of(r);
+	}
+}
@@ -0,0 +1,150 @@
+package com.example.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.example.config.HttpClientConfig;
+import com.example.dto.LinkPreview;
+import com.sun.net.httpserver.HttpServer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * まとめてプレビューの並列度（全体・ホスト別の上限）と部分結果の返し方を確認する
+ */
+class LinkPreviewServiceTest {
+
+	private HttpServer server;
+	private CloseableHttpClient httpClient;
+	private ContentMetaService contentMetaService;
+	private final AtomicInteger inFlight = new AtomicInteger();
+	private final AtomicInteger maxInFlight = new AtomicInteger();
+	// 届いたリクエストの数だけ許可が増える。release を開けるまで応答を返さない（同時に処理中の件数を確かめるため）
+	private final Semaphore arrived = new Semaphore(0);
+	private final CountDownLatch release = new CountDownLatch(1);
+
+	@BeforeEach
+	void setUp() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.setExecutor(Executors.newCachedThreadPool());
+		server.createContext("/slow", ex -> {
+			int now = inFlight.incrementAndGet();
+			maxInFlight.accumulateAndGet(now, Math::max);
+			arrived.release();
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} finally {
+				inFlight.decrementAndGet();
+			}
+			byte[] body = ("<html><head><title>" + ex.getRequestURI().getQuery() + "</title></head></html>")
+					.getBytes(StandardCharsets.UTF_8);
+			ex.getResponseHeaders().add("Content-Type", "text/html; charset=UTF-8");
+			ex.sendResponseHeaders(200, body.length);
+			try (OutputStream os = ex.getResponseBody()) {
+				os.write(body);
+			}
+		});
+		server.start();
+
+		httpClient = new HttpClientConfig().contentMetaHttpClient(Duration.ofSeconds(2), Duration.ofSeconds(5),
+				Duration.ofSeconds(5), Duration.ofSeconds(30), 16, 8, Duration.ofMinutes(1));
+		contentMetaService = new ContentMetaService(httpClient, new SimpleMeterRegistry(),
+				Duration.ofMinutes(5), Duration.ofMinutes(1), 100, "head", 256 * 1024, 2 * 1024 * 1024);
+	}
+
+	@AfterEach
+	void tearDown() throws IOException {
+		release.countDown();
+		httpClient.close();
+		server.stop(0);
+	}
+
+	private String url(String host, int n) {
+		return "http://" + host + ":" + server.getAddress().getPort() + "/slow?p" + n;
+	}
+
+	// n 件が同時にサーバで止まるまで待ってから、すべての応答を返させる
+	private void awaitInFlightThenRelease(int n) throws InterruptedException {
+		assertThat(arrived.tryAcquire(n, 5, TimeUnit.SECONDS)).as("%d requests in flight", n).isTrue();
+		release.countDown();
+	}
+
+	private static List<LinkPreview> joinAll(List<CompletableFuture<LinkPreview>> futures) {
+		return futures.stream().map(CompletableFuture::join).toList();
+	}
+
+	@Test
+	void perHostCapLimitsConcurrencyToOneHost() throws Exception {
+		LinkPreviewService service = new LinkPreviewService(contentMetaService, 20, 16, 2);
+
+		List<CompletableFuture<LinkPreview>> futures = service.fetchAll(
+				List.of(url("127.0.0.1", 1), url("127.0.0.1", 2), url("127.0.0.1", 3), url("127.0.0.1", 4)));
+		awaitInFlightThenRelease(2);
+		List<LinkPreview> results = joinAll(futures);
+
+		assertThat(results).allMatch(LinkPreview::isOk);
+		assertThat(results).extracting(LinkPreview::getTitle).containsExactly("p1", "p2", "p3", "p4");
+		assertThat(maxInFlight.get()).isLessThanOrEqualTo(2);
+	}
+
+	@Test
+	void differentHostsAreFetchedInParallel() throws Exception {
+		LinkPreviewService service = new LinkPreviewService(contentMetaService, 20, 16, 2);
+
+		List<CompletableFuture<LinkPreview>> futures = service.fetchAll(
+				List.of(url("127.0.0.1", 1), url("127.0.0.1", 2), url("localhost", 3), url("localhost", 4)));
+		// 2ホスト × ホスト別上限 2 の 4件が、どれも応答を返す前に同時にサーバへ届く
+		awaitInFlightThenRelease(4);
+		List<LinkPreview> results = joinAll(futures);
+
+		assertThat(results).allMatch(LinkPreview::isOk);
+		assertThat(maxInFlight.get()).isLessThanOrEqualTo(4);
+	}
+
+	@Test
+	void globalCapAppliesAcrossHosts() throws Exception {
+		LinkPreviewService service = new LinkPreviewService(contentMetaService, 20, 1, 2);
+
+		List<CompletableFuture<LinkPreview>> futures = service.fetchAll(
+				List.of(url("127.0.0.1", 1), url("localhost", 2)));
+		awaitInFlightThenRelease(1);
+		joinAll(futures);
+
+		assertThat(maxInFlight.get()).isLessThanOrEqualTo(1);
+	}
+
+	@Test
+	void skipsBlankLinesCapsCountAndReportsFailures() {
+		LinkPreviewService service = new LinkPreviewService(contentMetaService, 2, 16, 2);
+		release.countDown();
+
+		List<LinkPreview> results = joinAll(service.fetchAll(
+				Arrays.asList(" ", "http://127.0.0.1:1/unreachable", null, url("127.0.0.1", 1), url("127.0.0.1", 2))));
+
+		assertThat(results).hasSize(2);
+		assertThat(results.get(0).isOk()).isFalse();
+		assertThat(results.get(0).getIndex()).isZero();
+		assertThat(results.get(1).getTitle()).isEqualTo("p1");
+		assertThat(results.get(1).getIndex()).isEqualTo(1);
+	}
+}
@@ -0,0 +1,370 @@
+package com.example.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import com.example.config.HttpClientConfig;
+import com.example.service.RakutenBooksService.BookItem;
+import com.example.service.RakutenBooksService.ExternalApiUnavailableException;
+import com.example.util.CircuitBreaker;
+import com.sun.net.httpserver.HttpServer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * 楽天検索のキャッシュ（TTL / 障害時の古い結果）・リクエスト内メモ・耐障害（再試行 / サーキット / バルクヘッド）を、
+ * スタブAPIへの呼び出し回数で確認する
+ */
+class RakutenBooksServiceTest {
+
+	private static final String BODY = """
+			{"Items":[{"Item":{"title":"Java入門","isbn":"9784000000001","itemUrl":"https://books.example/1",
+			"mediumImageUrl":"https://books.example/1.jpg"}}]}
+			""";
+
+	private HttpServer server;
+	private final AtomicInteger calls = new AtomicInteger();
+	private volatile int status = 200;
+	private volatile CountDownLatch slowResponse = new CountDownLatch(0);
+	private CloseableHttpClient httpClient;
+	private SimpleMeterRegistry registry;
+	private RakutenBooksService service;
+	// レート制限は既定では実質無制限。個別のテストで絞る
+	private double permitsPerSecond = 1_000;
+	private int rateLimitBurst = 1_000;
+	private Duration rateLimitMaxWait = Duration.ofSeconds(1);
+	private final FakeCatalog catalog = new FakeCatalog();
+	private boolean localFirst = false;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.setExecutor(Executors.newCachedThreadPool());
+		server.createContext("/search", ex -> {
+			calls.incrementAndGet();
+			try {
+				slowResponse.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			byte[] body = BODY.getBytes(StandardCharsets.UTF_8);
+			ex.getResponseHeaders().add("Content-Type", "application/json");
+			ex.sendResponseHeaders(status, body.length);
+			try (OutputStream os = ex.getResponseBody()) {
+				os.write(body);
+			}
+		});
+		server.start();
+		httpClient = new HttpClientConfig().rakutenHttpClient(Duration.ofSeconds(2), Duration.ofSeconds(5),
+				Duration.ofSeconds(2), Duration.ofSeconds(30), 4);
+		service = newService(Duration.ofMinutes(10), Duration.ofHours(1), 0, 10, 5);
+	}
+
+	private RakutenBooksService newService(Duration ttl, Duration staleTtl, int retries, int maxConcurrent,
+			int failureThreshold) {
+		String endpoint = "http://127.0.0.1:" + server.getAddress().getPort() + "/search";
+		registry = new SimpleMeterRegistry();
+		RakutenBooksService s = new RakutenBooksService(
+				new HttpClientConfig().rakutenRestClient(RestClient.builder(), httpClient, endpoint), registry, catalog);
+		ReflectionTestUtils.setField(s, "applicationId", "test");
+		ReflectionTestUtils.setField(s, "retries", retries);
+		ReflectionTestUtils.setField(s, "cacheTtl", ttl);
+		ReflectionTestUtils.setField(s, "cacheStaleTtl", staleTtl);
+		ReflectionTestUtils.setField(s, "cacheMaxEntries", 100L);
+		ReflectionTestUtils.setField(s, "backoffBase", Duration.ofMillis(10));
+		ReflectionTestUtils.setField(s, "backoffMax", Duration.ofMillis(50));
+		ReflectionTestUtils.setField(s, "callTimeout", Duration.ofSeconds(10));
+		ReflectionTestUtils.setField(s, "maxConcurrent", maxConcurrent);
+		ReflectionTestUtils.setField(s, "circuitFailureThreshold", failureThreshold);
+		ReflectionTestUtils.setField(s, "circuitOpenDuration", Duration.ofMinutes(1));
+		ReflectionTestUtils.setField(s, "rateLimitPermitsPerSecond", permitsPerSecond);
+		ReflectionTestUtils.setField(s, "rateLimitBurst", rateLimitBurst);
+		ReflectionTestUtils.setField(s, "rateLimitMaxWait", rateLimitMaxWait);
+		ReflectionTestUtils.setField(s, "localFirst", localFirst);
+		s.initCache();
+		s.initResilience();
+		return s;
+	}
+
+	@AfterEach
+	void tearDown() throws IOException {
+		slowResponse.countDown();
+		RequestContextHolder.resetRequestAttributes();
+		service.shutdown();
+		httpClient.close();
+		server.stop(0);
+	}
+
+	// 書籍カタログの代わり: クエリキー単位で記録し、fresh=false の記録は findAny でだけ返す
+	static class FakeCatalog extends BookCatalogService {
+		final Map<String, List<BookItem>> records = new ConcurrentHashMap<>();
+		volatile boolean fresh = true;
+
+		FakeCatalog() {
+			super(null, null);
+		}
+
+		@Override
+		public Optional<List<BookItem>> findFresh(String queryKey, String title, int hits) {
+			return fresh ? Optional.ofNullable(records.get(queryKey)) : Optional.empty();
+		}
+
+		@Override
+		public Optional<List<BookItem>> findAny(String queryKey, String title, int hits) {
+			return Optional.ofNullable(records.get(queryKey));
+		}
+
+		@Override
+		public void record(String queryKey, List<BookItem> items) {
+			records.put(queryKey, items);
+		}
+	}
+
+	// 同期的に結果を取り出す（失敗時は元の例外を投げる）
+	private List<BookItem> search(String title, int hits) {
+		try {
+			return service.searchByTitle(title, hits).join();
+		} catch (RuntimeException e) {
+			Throwable cause = RakutenBooksService.unwrap(e);
+			throw cause instanceof RuntimeException re ? re : e;
+		}
+	}
+
+	@Test
+	void normalizedTitlesShareOneCacheEntry() {
+		List<BookItem> first = search("Java入門", 10);
+		List<BookItem> second = search("  ＪＡＶＡ入門 ", 10);
+		search("Java入門", 5); // 件数違いは別キー
+
+		assertThat(first).extracting(b -> b.title).containsExactly("Java入門");
+		assertThat(second).extracting(b -> b.isbn).containsExactly("9784000000001");
+		assertThat(calls.get()).isEqualTo(2);
+	}
+
+	@Test
+	void returnedItemsDoNotLeakIntoCache() {
+		search("Java入門", 10).get(0).title = "changed";
+
+		assertThat(search("Java入門", 10).get(0).title).isEqualTo("Java入門");
+	}
+
+	@Test
+	void servesStaleResultOnlyWhenApiIsUnavailable() throws InterruptedException {
+		service = newService(Duration.ofMillis(1), Duration.ofHours(1), 0, 10, 5);
+		search("Java入門", 10);
+		Thread.sleep(5);
+
+		// TTL 切れ・API 正常 → 取り直す
+		search("Java入門", 10);
+		assertThat(calls.get()).isEqualTo(2);
+
+		// TTL 切れ・API 障害 → 古い結果で代替
+		Thread.sleep(5);
+		status = 503;
+		assertThat(search("Java入門", 10)).extracting(b -> b.title).containsExactly("Java入門");
+		assertThat(calls.get()).isEqualTo(3);
+	}
+
+	@Test
+	void failsWhenApiIsUnavailableAndNothingIsCached() {
+		status = 503;
+
+		assertThatThrownBy(() -> search("Java入門", 10))
+				.isInstanceOf(ExternalApiUnavailableException.class);
+	}
+
+	@Test
+	void singleRequestCallsApiAtMostOnceEvenOnFailure() {
+		RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+		status = 503;
+
+		assertThatThrownBy(() -> search("Java入門", 10))
+				.isInstanceOf(ExternalApiUnavailableException.class);
+		assertThatThrownBy(() -> search("Java入門", 10))
+				.isInstanceOf(ExternalApiUnavailableException.class);
+		assertThat(calls.get()).isEqualTo(1);
+	}
+
+	@Test
+	void retriesServerErrorsWithBackoff() {
+		service = newService(Duration.ofMinutes(10), Duration.ofHours(1), 2, 10, 10);
+		status = 503;
+
+		assertThatThrownBy(() -> search("Java入門", 10))
+				.isInstanceOf(ExternalApiUnavailableException.class);
+		assertThat(calls.get()).isEqualTo(3); // 初回 + 2リトライ
+	}
+
+	@Test
+	void doesNotBlockCallerWhileApiIsSlow() throws Exception {
+		slowResponse = new CountDownLatch(1);
+
+		CompletableFuture<List<BookItem>> pending = service.searchByTitle("Java入門", 10);
+		assertThat(pending).isNotDone();
+
+		slowResponse.countDown();
+		assertThat(pending.get(5, TimeUnit.SECONDS)).hasSize(1);
+	}
+
+	@Test
+	void openCircuitFailsFastWithoutCallingApi() {
+		service = newService(Duration.ofMinutes(10), Duration.ofHours(1), 0, 10, 2);
+		status = 503;
+
+		assertThatThrownBy(() -> search("a", 10)).isInstanceOf(ExternalApiUnavailableException.class);
+		assertThatThrownBy(() -> search("b", 10)).isInstanceOf(ExternalApiUnavailableException.class);
+		assertThat(service.getCircuitState()).isEqualTo(CircuitBreaker.State.OPEN);
+
+		assertThatThrownBy(() -> search("c", 10)).isInstanceOf(ExternalApiUnavailableException.class);
+		assertThat(calls.get()).isEqualTo(2);
+		assertThat(registry.get("rakuten.api.rejections").tag("reason", "circuit_open").counter().count())
+				.isEqualTo(1);
+		assertThat(registry.get("rakuten.circuit.state").gauge().value()).isEqualTo(1);
+	}
+
+	@Test
+	void bulkheadRejectsCallsBeyondLimit() throws Exception {
+		service = newService(Duration.ofMinutes(10), Duration.ofHours(1), 0, 1, 5);
+		slowResponse = new CountDownLatch(1);
+
+		CompletableFuture<List<BookItem>> first = service.searchByTitle("a", 10);
+		assertThatThrownBy(() -> search("b", 10)).isInstanceOf(ExternalApiUnavailableException.class);
+
+		slowResponse.countDown();
+		assertThat(first.get(5, TimeUnit.SECONDS)).hasSize(1);
+		assertThat(registry.get("rakuten.api.rejections").tag("reason", "bulkhead_full").counter().count())
+				.isEqualTo(1);
+	}
+
+	@Test
+	void timedOutCallReleasesItsBulkheadPermit() throws Exception {
+		service = newService(Duration.ofMinutes(10), Duration.ofHours(1), 0, 1, 5);
+		ReflectionTestUtils.setField(service, "callTimeout", Duration.ofMillis(200));
+		slowResponse = new CountDownLatch(1);
+
+		assertThatThrownBy(() -> search("a", 10)).isInstanceOf(ExternalApiUnavailableException.class);
+
+		// 応答は止めたまま: 読み取りタイムアウト（5s）を待たずに、割り込みで枠が戻る
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+		while (registry.get("rakuten.bulkhead.available").gauge().value() < 1 && System.nanoTime() < deadline) {
+			Thread.sleep(10);
+		}
+		assertThat(registry.get("rakuten.bulkhead.available").gauge().value()).isEqualTo(1);
+	}
+
+	@Test
+	void identicalInFlightSearchesShareOneCall() throws Exception {
+		slowResponse = new CountDownLatch(1);
+
+		CompletableFuture<List<BookItem>> first = service.searchByTitle("Java入門", 10);
+		CompletableFuture<List<BookItem>> second = service.searchByTitle("java入門 ", 10);
+
+		slowResponse.countDown();
+		assertThat(first.get(5, TimeUnit.SECONDS)).hasSize(1);
+		assertThat(second.get(5, TimeUnit.SECONDS)).hasSize(1);
+		assertThat(calls.get()).isEqualTo(1);
+		assertThat(registry.get("rakuten.api.coalesced").counter().count()).isEqualTo(1);
+	}
+
+	@Test
+	void rateLimitedCallsWaitForATokenWithinMaxWait() {
+		permitsPerSecond = 5; // 200ms に1件
+		rateLimitBurst = 1;
+		service = newService(Duration.ofMinutes(10), Duration.ofHours(1), 0, 10, 5);
+
+		long start = System.nanoTime();
+		search("a", 10);
+		search("b", 10);
+		search("c", 10);
+		long elapsedMs = Duration.ofNanos(System.nanoTime() - start).toMillis();
+
+		assertThat(calls.get()).isEqualTo(3);
+		assertThat(elapsedMs).isGreaterThanOrEqualTo(350);
+	}
+
+	@Test
+	void rateLimitedCallsBeyondMaxWaitDegradeToUnavailable() {
+		permitsPerSecond = 0.1; // 10秒に1件
+		rateLimitBurst = 1;
+		rateLimitMaxWait = Duration.ofMillis(100);
+		service = newService(Duration.ofMinutes(10), Duration.ofHours(1), 0, 10, 5);
+
+		search("a", 10);
+		assertThatThrownBy(() -> search("b", 10)).isInstanceOf(ExternalApiUnavailableException.class);
+
+		assertThat(calls.get()).isEqualTo(1);
+		assertThat(registry.get("rakuten.api.rejections").tag("reason", "rate_limited").counter().count())
+				.isEqualTo(1);
+	}
+
+	@Test
+	void localFirstServesFreshCatalogRecordWithoutCallingApi() {
+		localFirst = true;
+		service = newService(Duration.ofMinutes(10), Duration.ofHours(1), 0, 10, 5);
+		BookItem local = new BookItem();
+		local.title = "Java入門（カタログ）";
+		local.isbn = "9784000000001";
+		catalog.records.put("java入門#10", List.of(local));
+
+		List<BookItem> found = search("Java入門", 10);
+
+		assertThat(found).extracting(b -> b.title).containsExactly("Java入門（カタログ）");
+		assertThat(calls.get()).isZero();
+		assertThat(registry.counter("rakuten.catalog.hits").count()).isEqualTo(1.0);
+	}
+
+	@Test
+	void remoteResultsAreRecordedInCatalog() throws InterruptedException {
+		localFirst = true;
+		service = newService(Duration.ofMinutes(10), Duration.ofHours(1), 0, 10, 5);
+
+		search("Java入門", 10);
+
+		for (int i = 0; i < 50 && catalog.records.isEmpty(); i++) {
+			Thread.sleep(20); // 記録は非同期
+		}
+		assertThat(calls.get()).isEqualTo(1);
+		assertThat(catalog.records.get("java入門#10")).extracting(b -> b.isbn).containsExactly("9784000000001");
+	}
+
+	@Test
+	void expiredCatalogRecordIsUsedOnlyWhenApiIsUnavailable() {
+		localFirst = true;
+		service = newService(Duration.ofMinutes(10), Duration.ofHours(1), 0, 10, 5);
+		BookItem local = new BookItem();
+		local.title = "古い記録";
+		catalog.records.put("java入門#10", List.of(local));
+		catalog.fresh = false;
+		status = 503;
+
+		List<BookItem> found = search("Java入門", 10);
+
+		assertThat(calls.get()).isEqualTo(1);
+		assertThat(found).extracting(b -> b.title).containsExactly("古い記録");
+	}
+}
@@ -0,0 +1,140 @@
+package com.example.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.RestClient;
+
+import com.example.config.HttpClientConfig;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * 楽天Books API 呼び出しの「毎回 RestClient を作る（変更前）」と「共有プール（変更後）」の比較
+ * - ローカルのスタブに同じ検索を繰り返し、1回あたりの所要時間・割り当てバイト数・新規接続数をログ（INFO）に出す
+ * - 通常のテストでは実行しない（クラス名が *Test ではない）。実行するときは
+ *   mvn test -Dtest=RakutenRestClientBenchmark -Dsurefire.failIfNoSpecifiedTests=false
+ * - 割り当てバイト数は呼び出しスレッド分のみ（JDK HttpClient のセレクタスレッド等での割り当ては含まない）
+ */
+class RakutenRestClientBenchmark {
+
+	private static final Logger log = LoggerFactory.getLogger(RakutenRestClientBenchmark.class);
+
+	private static final int WARMUP = 200;
+	private static final int ITERATIONS = 1_000;
+
+	private static final String BODY = """
+			{"Items":[{"Item":{"title":"Java入門","isbn":"9784000000001","itemUrl":"https://books.example/1",
+			"mediumImageUrl":"https://books.example/1.jpg"}}]}
+			""";
+
+	static {
+		// スタブ側の Nagle を切る（keep-alive 接続で遅延ACKと噛み合い 40ms 待ちになるのを避ける。実サーバ相当の条件に揃える）
+		System.setProperty("sun.net.httpserver.nodelay", "true");
+	}
+
+	private HttpServer server;
+	private String endpoint;
+	// 接続元ポートの種類 = 張られた TCP 接続の数
+	private final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+
+	// 計測ごとにスタブを起動し直す（前の計測で溜まった接続の影響を受けないように）
+	private void startServer() throws IOException {
+		if (server != null) {
+			server.stop(0);
+		}
+		clientPorts.clear();
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.setExecutor(Executors.newFixedThreadPool(4));
+		server.createContext("/search", ex -> {
+			clientPorts.add(ex.getRemoteAddress().getPort());
+			byte[] body = BODY.getBytes(StandardCharsets.UTF_8);
+			ex.getResponseHeaders().add("Content-Type", "application/json");
+			ex.sendResponseHeaders(200, body.length);
+			try (OutputStream os = ex.getResponseBody()) {
+				os.write(body);
+			}
+		});
+		server.start();
+		endpoint = "http://127.0.0.1:" + server.getAddress().getPort() + "/search";
+	}
+
+	@AfterEach
+	void tearDown() {
+		if (server != null) {
+			server.stop(0);
+		}
+	}
+
+	@Test
+	void compareClientPerCallWithSharedPool() throws IOException {
+		startServer();
+		// 変更前: 呼び出しごとに RestClient（と下回りの HTTP クライアント）を作る
+		run("per-call RestClient", () -> RestClient.builder()
+				.requestFactory(new JdkClientHttpRequestFactory())
+				.baseUrl(endpoint)
+				.build());
+
+		startServer();
+		// 変更後: HttpClientConfig の共有クライアントを使い回す
+		HttpClientConfig config = new HttpClientConfig();
+		try (CloseableHttpClient httpClient = config.rakutenHttpClient(Duration.ofSeconds(3), Duration.ofSeconds(10),
+				Duration.ofSeconds(3), Duration.ofSeconds(30), 20)) {
+			RestClient shared = config.rakutenRestClient(RestClient.builder(), httpClient, endpoint);
+			run("shared pooled RestClient", () -> shared);
+		}
+	}
+
+	private void run(String label, Supplier<RestClient> clients) {
+		for (int i = 0; i < WARMUP; i++) {
+			call(clients.get());
+		}
+		clientPorts.clear();
+
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		long tid = Thread.currentThread().threadId();
+		long[] nanos = new long[ITERATIONS];
+		long allocBefore = threads.getThreadAllocatedBytes(tid);
+		for (int i = 0; i < ITERATIONS; i++) {
+			long t0 = System.nanoTime();
+			call(clients.get());
+			nanos[i] = System.nanoTime() - t0;
+		}
+		long allocated = threads.getThreadAllocatedBytes(tid) - allocBefore;
+
+		Arrays.sort(nanos);
+		log.info(String.format("%-26s mean %7.1f us  p50 %7.1f us  p99 %7.1f us  alloc %8d B/call  connections %d",
+				label,
+				Arrays.stream(nanos).average().orElse(0) / 1_000.0,
+				nanos[ITERATIONS / 2] / 1_000.0,
+				nanos[(int) (ITERATIONS * 0.99)] / 1_000.0,
+				allocated / ITERATIONS,
+				clientPorts.size()));
+	}
+
+	private static void call(RestClient client) {
+		RakutenBooksService.RakutenBooksResponse resp = client.get()
+				.uri(b -> b.queryParam("title", "Java入門").build())
+				.accept(MediaType.APPLICATION_JSON)
+				.retrieve()
+				.body(RakutenBooksService.RakutenBooksResponse.class);
+		if (resp == null || resp.items == null || resp.items.isEmpty()) {
+			throw new IllegalStateException("unexpected response");
+		}
+	}
+}
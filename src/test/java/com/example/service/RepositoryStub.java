@@ -0,0 +1,97 @@
+package com.example.service;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * リポジトリのインターフェースを、メソッド名ごとの応答で差し替えるテスト用のスタブ
+ * - MariaDB 専用の SQL（ON DUPLICATE KEY など）を通さずに、サービスからの呼び出しを確かめる
+ * - 構築の途中（チャンクを読んだ直後）に割り込んで、イベントとの前後関係を作る
+ * of は応答を決めていないメソッドを呼ぶと失敗し、wrapping は本物のリポジトリへ渡す
+ */
+final class RepositoryStub<T> implements InvocationHandler {
+
+	/** 呼び出しへの応答。proceed() で本物のリポジトリを呼べる（wrapping のときだけ） */
+	@FunctionalInterface
+	interface Answer {
+		Object answer(Call call) throws Throwable;
+	}
+
+	static final class Call {
+		private final Object delegate;
+		private final Method method;
+		final Object[] args;
+
+		private Call(Object delegate, Method method, Object[] args) {
+			this.delegate = delegate;
+			this.method = method;
+			this.args = args;
+		}
+
+		Object proceed() throws Throwable {
+			if (delegate == null) {
+				throw new UnsupportedOperationException(method.getName());
+			}
+			try {
+				return method.invoke(delegate, args);
+			} catch (InvocationTargetException e) {
+				throw e.getCause();
+			}
+		}
+	}
+
+	private final T delegate;
+	private final T proxy;
+	private final Map<String, Answer> answers = new ConcurrentHashMap<>();
+	private final List<String> calls = new CopyOnWriteArrayList<>();
+
+	private RepositoryStub(Class<T> type, T delegate) {
+		this.delegate = delegate;
+		this.proxy = type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, this));
+	}
+
+	/** 応答を決めたメソッドだけを呼べるスタブ */
+	static <T> RepositoryStub<T> of(Class<T> type) {
+		return new RepositoryStub<>(type, null);
+	}
+
+	/** 応答を決めていないメソッドは delegate（本物のリポジトリ）に渡すスタブ */
+	static <T> RepositoryStub<T> wrapping(Class<T> type, T delegate) {
+		return new RepositoryStub<>(type, delegate);
+	}
+
+	RepositoryStub<T> on(String methodName, Answer answer) {
+		answers.put(methodName, answer);
+		return this;
+	}
+
+	T proxy() {
+		return proxy;
+	}
+
+	/** 呼ばれたメソッド名（呼ばれた順） */
+	List<String> calls() {
+		return calls;
+	}
+
+	@Override
+	public Object invoke(Object self, Method method, Object[] args) throws Throwable {
+		if (method.getDeclaringClass() == Object.class) {
+			return switch (method.getName()) {
+			case "equals" -> self == args[0];
+			case "hashCode" -> System.identityHashCode(self);
+			default -> "RepositoryStub(" + proxy.getClass().getInterfaces()[0].getSimpleName() + ")";
+			};
+		}
+		calls.add(method.getName());
+		Call call = new Call(delegate, method, args);
+		Answer answer = answers.get(method.getName());
+		return answer != null ? answer.answer(call) : call.proceed();
+	}
+}
@@ -0,0 +1,196 @@
+package com.example.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.example.dto.ReviewCard;
+import com.example.entity.Category;
+import com.example.entity.Contents;
+import com.example.entity.Review;
+import com.example.entity.User;
+import com.example.repository.ReviewRepository;
+import com.example.util.ReviewExcerpt;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * 一覧カードの組み立てが表示件数に関係なく固定回数の SQL で済むことを確認する
+ * ★追加: カードの本文は review_text ではなく保存時に作る抜粋（review_excerpt）であることも確認する
+ */
+@DataJpaTest
+@ActiveProfiles("jpatest")
+@Import({ ReviewCardService.class, ContentsRatingService.class, ReviewExcerptBackfillService.class })
+class ReviewCardServiceTest {
+
+	@Autowired
+	private TestEntityManager em;
+	@Autowired
+	private EntityManagerFactory emf;
+	@Autowired
+	private ReviewRepository reviewRepository;
+	@Autowired
+	private ReviewCardService reviewCardService;
+	@Autowired
+	private ReviewExcerptBackfillService excerptBackfillService;
+
+	private Statistics stats;
+
+	@BeforeEach
+	void setUp() {
+		stats = emf.unwrap(SessionFactory.class).getStatistics();
+	}
+
+	@Test
+	void feedPageUsesFixedStatementCountRegardlessOfRows() {
+		seed(40);
+
+		long few = countStatements(() -> render(reviewCardService.toCards(
+				reviewRepository.findActiveCardRows(Limit.of(3)))));
+		long many = countStatements(() -> render(reviewCardService.toCards(
+				reviewRepository.findActiveCardRows(Limit.of(30)))));
+
+		// 一覧1回 + カテゴリ1回 + 評価集計1回
+		assertThat(few).isEqualTo(3);
+		assertThat(many).isEqualTo(few);
+	}
+
+	@Test
+	void categoryPageUsesFixedStatementCountRegardlessOfRows() {
+		Category shared = seed(25);
+
+		long count = countStatements(() -> render(reviewCardService.toCards(
+				reviewRepository.findActiveCardRowsByCategory(shared.getCategoryId()))));
+
+		assertThat(count).isEqualTo(3);
+	}
+
+	@Test
+	void cardsByIdsKeepOrderWithFixedStatementCount() {
+		seed(10);
+		List<Integer> ids = reviewRepository.findAll().stream()
+				.map(Review::getReviewId)
+				.sorted()
+				.toList();
+		List<Integer> wanted = List.of(ids.get(7), ids.get(2), ids.get(5));
+
+		AtomicReference<List<ReviewCard>> cards = new AtomicReference<>();
+		long count = countStatements(() -> cards.set(render(reviewCardService.findCardsByIds(wanted))));
+
+		assertThat(count).isEqualTo(3);
+		assertThat(cards.get()).extracting(ReviewCard::getReviewId).containsExactlyElementsOf(wanted);
+		assertThat(cards.get()).allSatisfy(c -> assertThat(c.getCategories()).hasSize(2));
+	}
+
+	@Test
+	void cardsByIdsSkipLogicallyDeletedReviews() {
+		seed(3);
+		List<Review> reviews = reviewRepository.findAll();
+		reviews.get(1).setActiveFlag(false);
+		em.flush();
+		em.clear();
+
+		List<Integer> ids = reviews.stream().map(Review::getReviewId).toList();
+		List<ReviewCard> cards = reviewCardService.findCardsByIds(ids);
+
+		assertThat(cards).extracting(ReviewCard::getReviewId)
+				.containsExactly(ids.get(0), ids.get(2));
+	}
+
+	@Test
+	void excerptIsMaintainedOnSaveAndShownOnCards() {
+		seed(1);
+		Review r = reviewRepository.findAll().get(0);
+		r.setReviewText("1行目\n\n" + "あ".repeat(ReviewExcerpt.MAX_CHARS));
+		em.flush();
+		em.clear();
+
+		List<ReviewCard> cards = reviewCardService.toCards(reviewRepository.findActiveCardRows(Limit.of(10)));
+
+		assertThat(cards).singleElement().extracting(ReviewCard::getReviewExcerpt)
+				.isEqualTo(ReviewExcerpt.of(r.getReviewText()))
+				.asString().startsWith("1行目 あ").endsWith("…");
+	}
+
+	@Test
+	void backfillFillsLegacyExcerpts() {
+		seed(3);
+		// 列追加前の状態を再現
+		em.getEntityManager().createNativeQuery("UPDATE review SET review_excerpt = NULL").executeUpdate();
+		em.clear();
+
+		excerptBackfillService.backfill();
+		em.clear();
+
+		assertThat(reviewRepository.findAll())
+				.allSatisfy(r -> assertThat(r.getReviewExcerpt()).isEqualTo(r.getReviewText()));
+	}
+
+	// テンプレートが参照する値をすべて読む（LAZY が残っていればここで SQL が増える）
+	private List<ReviewCard> render(List<ReviewCard> cards) {
+		for (ReviewCard c : cards) {
+			c.getUsername();
+			c.getReviewExcerpt();
+			c.getContentsTitle();
+			c.getThumbnail();
+			c.getContentsAverageRate();
+			c.getCategories().forEach(t -> t.getCategoryName());
+		}
+		return cards;
+	}
+
+	private long countStatements(Runnable action) {
+		em.clear();
+		stats.clear();
+		action.run();
+		return stats.getPrepareStatementCount();
+	}
+
+	// users / contents / カテゴリ2件ずつ付きのレビューを n 件作る。全レビュー共通のカテゴリを返す
+	private Category seed(int n) {
+		Category shared = category("Java");
+		Category other = category("SQL");
+		for (int i = 0; i < n; i++) {
+			User u = new User();
+			u.setUsername("user" + i);
+			u.setPassword("x");
+			em.persist(u);
+
+			Contents c = new Contents();
+			c.setContentsUrl("https://example.com/" + i);
+			c.setContentsTitle("contents " + i);
+			c.setContentsType(2);
+			em.persist(c);
+
+			Review r = new Review();
+			r.setUser(u);
+			r.setContents(c);
+			r.setRate(1 + i % 5);
+			r.setReviewTitle("title " + i);
+			r.setReviewText("text " + i);
+			r.getCategories().add(shared);
+			r.getCategories().add(other);
+			em.persist(r);
+		}
+		em.flush();
+		return shared;
+	}
+
+	private Category category(String name) {
+		Category c = new Category();
+		c.setCategoryName(name);
+		return em.persist(c);
+	}
+}
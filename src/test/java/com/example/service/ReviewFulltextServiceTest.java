@@ -0,0 +1,147 @@
+package com.example.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.entity.Review;
+import com.example.repository.ReviewRepository;
+import com.example.util.NgramTokenizer;
+
+/**
+ * FULLTEXT 用の文書・クエリの形と、search_ngrams を書くのが fulltext のときだけであることを確認する
+ * （MATCH ... AGAINST は MariaDB 専用なので、リポジトリはスタブにして呼び出しだけを見る）
+ */
+class ReviewFulltextServiceTest {
+
+	private final Map<Integer, String> written = new TreeMap<>();
+	private final List<String> transactions = new ArrayList<>();
+
+	@Test
+	void termsAreFixedWidthSoSingleCharactersCanBePrefixSearched() {
+		assertThat(NgramTokenizer.toFulltextTerm("入門")).isEqualTo("0g2t0tj4");
+		assertThat(NgramTokenizer.toFulltextTerm("図")).hasSize(4);
+		assertThat(NgramTokenizer.toFulltextTerm(new String(Character.toChars(0x10FFFF)) + "a")).hasSize(8);
+
+		String single = NgramTokenizer.toFulltextTerm("図");
+		assertThat(ReviewFulltextService.toBooleanQuery("図解"))
+				.isEqualTo("+" + NgramTokenizer.toFulltextTerm("図解"));
+		assertThat(ReviewFulltextService.toBooleanQuery("図 spring")).startsWith("+" + single + "* +");
+	}
+
+	@Test
+	void documentIsNineBytesPerGramWithTitleRepeated() {
+		String text = "コントローラとリポジトリの責務分担が分かりやすい";
+		int textGrams = NgramTokenizer.tokenize(text).size();
+		int titleGrams = NgramTokenizer.tokenize("入門").size();
+
+		String doc = ReviewFulltextService.toDocument("入門", text);
+
+		assertThat(doc.split(" ")).hasSize(3 * titleGrams + textGrams);
+		assertThat(doc.length()).isLessThanOrEqualTo(9 * (3 * titleGrams + textGrams));
+		assertThat(ReviewFulltextService.toDocument("", "")).isEmpty();
+	}
+
+	@Test
+	void savesDoNotTouchSearchNgramsUnlessFulltextModeIsOn() {
+		RepositoryStub<ReviewRepository> repository = RepositoryStub.of(ReviewRepository.class);
+		ReviewFulltextService service = service(repository, "index");
+
+		service.onReviewChanged(new ReviewChangedEvent(null, ReviewSnapshot.of(review(1, "題", "本文"))));
+		service.backfill();
+
+		assertThat(repository.calls()).isEmpty();
+	}
+
+	@Test
+	void savesRewriteSearchNgramsOnlyWhenTitleOrTextChanges() {
+		ReviewFulltextService service = service(stub(List.of()), "fulltext");
+		Review r = review(1, "題", "本文");
+		ReviewSnapshot before = ReviewSnapshot.of(r);
+		r.setRate(5);
+
+		service.onReviewChanged(new ReviewChangedEvent(before, ReviewSnapshot.of(r)));
+		assertThat(written).isEmpty();
+
+		r.setReviewText("新しい本文");
+		service.onReviewChanged(new ReviewChangedEvent(before, ReviewSnapshot.of(r)));
+		assertThat(written).containsEntry(1, ReviewFulltextService.toDocument("題", "新しい本文"));
+	}
+
+	@Test
+	void backfillCommitsEachKeysetChunkSeparately() {
+		List<Object[]> missing = new ArrayList<>();
+		for (int id = 1; id <= 5; id++) {
+			missing.add(new Object[] { id, "題" + id, "本文" });
+		}
+		ReviewFulltextService service = service(stub(missing), "fulltext");
+		ReflectionTestUtils.setField(service, "backfillChunkSize", 2);
+
+		service.backfill();
+
+		assertThat(written).containsOnlyKeys(1, 2, 3, 4, 5);
+		assertThat(transactions).containsExactly("commit", "commit", "commit");
+	}
+
+	// missing: search_ngrams が NULL の行 [review_id, title, text]（review_id 順）
+	private RepositoryStub<ReviewRepository> stub(List<Object[]> missing) {
+		return RepositoryStub.of(ReviewRepository.class)
+				.on("findMissingSearchNgrams", call -> {
+					int afterId = (Integer) call.args[0];
+					int limit = ((Limit) call.args[1]).max();
+					return missing.stream()
+							.filter(row -> (Integer) row[0] > afterId && !written.containsKey((Integer) row[0]))
+							.limit(limit)
+							.toList();
+				})
+				.on("updateSearchNgrams", call -> {
+					written.put((Integer) call.args[0], (String) call.args[1]);
+					return 1;
+				});
+	}
+
+	private ReviewFulltextService service(RepositoryStub<ReviewRepository> repository, String mode) {
+		PlatformTransactionManager tm = new PlatformTransactionManager() {
+			@Override
+			public TransactionStatus getTransaction(TransactionDefinition definition) {
+				return new SimpleTransactionStatus();
+			}
+
+			@Override
+			public void commit(TransactionStatus status) {
+				transactions.add("commit");
+			}
+
+			@Override
+			public void rollback(TransactionStatus status) {
+				transactions.add("rollback");
+			}
+		};
+		ReviewFulltextService service = new ReviewFulltextService(repository.proxy(), new TransactionTemplate(tm));
+		ReflectionTestUtils.setField(service, "mode", mode);
+		ReflectionTestUtils.setField(service, "backfillChunkSize", 500);
+		return service;
+	}
+
+	private static Review review(Integer id, String title, String text) {
+		Review r = new Review();
+		r.setReviewId(id);
+		r.setReviewTitle(title);
+		r.setReviewText(text);
+		r.setRate(3);
+		r.setActiveFlag(true);
+		return r;
+	}
+}
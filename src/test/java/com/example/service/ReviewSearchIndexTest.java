@@ -0,0 +1,113 @@
+package com.example.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.example.entity.Review;
+import com.example.repository.ReviewRepository;
+
+class ReviewSearchIndexTest {
+
+	private ReviewSearchIndex index;
+
+	@BeforeEach
+	void setUp() {
+		// 構築（DB 読み込み）は使わないので repository は不要
+		index = new ReviewSearchIndex(null);
+		index.put(1, "Spring Boot入門", "コントローラとリポジトリの責務分担が分かりやすい。");
+		index.put(2, "Jsoupでスクレイピング", "HTMLをパースしてOGPを取得する。");
+		index.put(3, "設計の話", "Spring の DI/IoC を図解で説明。");
+	}
+
+	@Test
+	void matchesJapaneseWithoutWordBoundaries() {
+		assertThat(index.search("責務", 0, 10).reviewIds).containsExactly(1);
+	}
+
+	@Test
+	void normalizesWidthCaseAndKana() {
+		// 全角英字・大文字・ひらがな表記でもヒットする
+		assertThat(index.search("ＪＳＯＵＰ", 0, 10).reviewIds).containsExactly(2);
+		assertThat(index.search("すくれいぴんぐ", 0, 10).reviewIds).containsExactly(2);
+	}
+
+	@Test
+	void ranksTitleMatchesFirstAndPaginates() {
+		ReviewSearchIndex.Hits first = index.search("spring", 0, 1);
+		assertThat(first.total).isEqualTo(2);
+		assertThat(first.reviewIds).containsExactly(1);
+		assertThat(index.search("spring", 1, 1).reviewIds).containsExactly(3);
+	}
+
+	@Test
+	void singleCharacterQueryUsesPrefixLookup() {
+		assertThat(index.search("図", 0, 10).reviewIds).containsExactly(3);
+	}
+
+	@Test
+	void singleCharacterInsideMultiTokenQueryUsesPrefixLookup() {
+		// 「図」は「図解」の先頭（ランの途中）にしか無い
+		assertThat(index.search("図 spring", 0, 10).reviewIds).containsExactly(3);
+		assertThat(index.search("spring 図", 0, 10).reviewIds).containsExactly(3);
+		assertThat(index.search("図 jsoup", 0, 10).total).isZero();
+	}
+
+	@Test
+	void reflectsEditsAndLogicalDeletes() {
+		index.put(2, "Jsoup入門", "セレクタの書き方。");
+		assertThat(index.search("スクレイピング", 0, 10).total).isZero();
+		assertThat(index.search("セレクタ", 0, 10).reviewIds).containsExactly(2);
+
+		index.remove(2);
+		assertThat(index.search("jsoup", 0, 10).total).isZero();
+	}
+
+	@Test
+	void eventsDuringBuildWinOverChunksReadBeforeThem() {
+		Review deleted = review(10, "消える予定", "古い本文", true);
+		Review edited = review(11, "書き換え前", "古い本文", true);
+		List<Object[]> chunk = List.of(
+				new Object[] { 10, "消える予定", "古い本文" },
+				new Object[] { 11, "書き換え前", "古い本文" });
+
+		// 1つ目のチャンクを読んだ直後（構築側が登録する前）に、削除・編集がコミットされた
+		ReviewSearchIndex[] holder = new ReviewSearchIndex[1];
+		RepositoryStub<ReviewRepository> repository = RepositoryStub.of(ReviewRepository.class)
+				.on("findSearchSourcesAfter", call -> {
+					if (!call.args[0].equals(0)) {
+						return List.of();
+					}
+					ReviewSnapshot before = ReviewSnapshot.of(deleted);
+					deleted.setActiveFlag(false);
+					holder[0].onReviewChanged(new ReviewChangedEvent(before, ReviewSnapshot.of(deleted)));
+					before = ReviewSnapshot.of(edited);
+					edited.setReviewTitle("書き換え後");
+					holder[0].onReviewChanged(new ReviewChangedEvent(before, ReviewSnapshot.of(edited)));
+					return chunk;
+				});
+		ReviewSearchIndex building = new ReviewSearchIndex(repository.proxy());
+		ReflectionTestUtils.setField(building, "mode", "index");
+		ReflectionTestUtils.setField(building, "buildChunkSize", 2);
+		holder[0] = building;
+
+		building.build();
+
+		assertThat(building.search("消える", 0, 10).total).isZero();
+		assertThat(building.search("書き換え前", 0, 10).total).isZero();
+		assertThat(building.search("書き換え後", 0, 10).reviewIds).containsExactly(11);
+	}
+
+	private static Review review(Integer id, String title, String text, boolean active) {
+		Review r = new Review();
+		r.setReviewId(id);
+		r.setReviewTitle(title);
+		r.setReviewText(text);
+		r.setActiveFlag(active);
+		return r;
+	}
+}
@@ -0,0 +1,207 @@
+package com.example.service;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.sql.DataSource;
+
+import org.hibernate.Session;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.example.entity.Category;
+import com.example.entity.Contents;
+import com.example.entity.Review;
+import com.example.entity.User;
+import com.example.repository.ReviewRepository;
+
+/**
+ * レビュー投稿（新しいコンテンツ + カテゴリ2件）の DB 往復回数の比較
+ * - 変更前相当: コンテンツ・レビューを1件ずつ即時 INSERT（IDENTITY 採番ではバッチにできなかった）
+ * - 変更後: シーケンス採番 + JDBC バッチで ReviewWriteService.createAll
+ * - 往復回数は JDBC の execute* / executeBatch の呼び出し回数（1回 = DB への1往復）
+ * - 通常のテストでは実行しない（クラス名が *Test ではない）。実行するときは
+ *   mvn test -Dtest=ReviewWriteBenchmark -Dsurefire.failIfNoSpecifiedTests=false
+ * - H2（インメモリ）上の計測なので、所要時間の差はネットワーク越しの MariaDB より小さく出る
+ */
+@DataJpaTest
+@ActiveProfiles("jpatest")
+@Import(ReviewWriteService.class)
+class ReviewWriteBenchmark {
+
+	private static final Logger log = LoggerFactory.getLogger(ReviewWriteBenchmark.class);
+
+	private static final int WARMUP = 200;
+	private static final int REVIEWS = 1_000;
+
+	private static final AtomicLong ROUND_TRIPS = new AtomicLong();
+
+	@Autowired
+	private TestEntityManager em;
+	@Autowired
+	private ReviewRepository reviewRepository;
+	@Autowired
+	private ReviewWriteService reviewWriteService;
+
+	/** DataSource を包み、文の実行（= DB への往復）を数える */
+	@TestConfiguration
+	static class CountingDataSourceConfig {
+
+		private static final Set<String> EXECUTES = Set.of("execute", "executeQuery", "executeUpdate",
+				"executeLargeUpdate", "executeBatch", "executeLargeBatch");
+
+		@Bean
+		static BeanPostProcessor countingDataSource() {
+			return new BeanPostProcessor() {
+				@Override
+				public Object postProcessAfterInitialization(Object bean, String beanName) {
+					if (!(bean instanceof DataSource ds)) {
+						return bean;
+					}
+					return wrap(ds, DataSource.class, (target, method, args) -> {
+						Object result = method.invoke(target, args);
+						return result instanceof Connection c ? wrapConnection(c) : result;
+					});
+				}
+			};
+		}
+
+		private static Connection wrapConnection(Connection connection) {
+			return wrap(connection, Connection.class, (target, method, args) -> {
+				Object result = method.invoke(target, args);
+				if (result instanceof CallableStatement s) {
+					return wrapStatement(s, CallableStatement.class);
+				}
+				if (result instanceof PreparedStatement s) {
+					return wrapStatement(s, PreparedStatement.class);
+				}
+				if (result instanceof Statement s) {
+					return wrapStatement(s, Statement.class);
+				}
+				return result;
+			});
+		}
+
+		private static <T extends Statement> T wrapStatement(T statement, Class<T> type) {
+			return wrap(statement, type, (target, method, args) -> {
+				if (EXECUTES.contains(method.getName())) {
+					ROUND_TRIPS.incrementAndGet();
+				}
+				return method.invoke(target, args);
+			});
+		}
+
+		private interface Call<T> {
+			Object invoke(T target, Method method, Object[] args) throws Exception;
+		}
+
+		@SuppressWarnings("unchecked")
+		private static <T> T wrap(T target, Class<T> type, Call<T> call) {
+			InvocationHandler handler = (proxy, method, args) -> {
+				try {
+					return call.invoke(target, method, args);
+				} catch (InvocationTargetException e) {
+					throw e.getCause();
+				}
+			};
+			return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, handler);
+		}
+	}
+
+	@Test
+	void compareOneByOneWithBatchedCreate() {
+		User user = new User();
+		user.setUsername("bench");
+		user.setPassword("x");
+		em.persist(user);
+		Category java = category("Java");
+		Category sql = category("SQL");
+		em.flush();
+
+		run("one-by-one (no batching)", 0, user, java, sql, WARMUP, true);
+		run("one-by-one (no batching)", 0, user, java, sql, REVIEWS, false);
+		run("createAll (batched)", null, user, java, sql, WARMUP, true);
+		run("createAll (batched)", null, user, java, sql, REVIEWS, false);
+	}
+
+	/**
+	 * @param batchSize このセッションの JDBC バッチ件数（0 = バッチなし、null = 設定値）
+	 */
+	private void run(String label, Integer batchSize, User user, Category java, Category sql, int n,
+			boolean warmup) {
+		Session session = em.getEntityManager().unwrap(Session.class);
+		session.setJdbcBatchSize(batchSize);
+		List<Review> reviews = new ArrayList<>(n);
+		for (int i = 0; i < n; i++) {
+			reviews.add(review(user, java, sql, label + "/" + warmup + "/" + i));
+		}
+
+		ROUND_TRIPS.set(0);
+		long t0 = System.nanoTime();
+		if (batchSize != null && batchSize == 0) {
+			// 変更前相当: コンテンツを保存してからレビューを保存（それぞれ INSERT を即時に送る）
+			// 投稿はリクエストごとに別セッションなので、1件ごとに永続化コンテキストを空にする
+			for (Review r : reviews) {
+				em.persist(r.getContents());
+				em.flush();
+				reviewRepository.save(r);
+				em.flush();
+				em.clear();
+			}
+		} else {
+			reviewWriteService.createAll(reviews);
+			em.flush();
+		}
+		long elapsed = System.nanoTime() - t0;
+		long roundTrips = ROUND_TRIPS.get();
+		em.clear();
+		session.setJdbcBatchSize(null);
+
+		if (!warmup) {
+			log.info(String.format("%-26s %5d reviews  round trips %6d (%5.2f / review)  total %7.1f ms",
+					label, n, roundTrips, (double) roundTrips / n, elapsed / 1_000_000.0));
+		}
+	}
+
+	private Review review(User user, Category java, Category sql, String key) {
+		Contents c = new Contents();
+		c.setContentsUrl("https://example.com/bench/" + key);
+		c.setContentsTitle("contents " + key);
+		c.setContentsType(2);
+
+		Review r = new Review();
+		r.setUser(em.getEntityManager().getReference(User.class, user.getId()));
+		r.setContents(c);
+		r.setRate(4);
+		r.setReviewTitle("title " + key);
+		r.setReviewText("text " + key);
+		r.getCategories().add(em.getEntityManager().getReference(Category.class, java.getCategoryId()));
+		r.getCategories().add(em.getEntityManager().getReference(Category.class, sql.getCategoryId()));
+		return r;
+	}
+
+	private Category category(String name) {
+		Category c = new Category();
+		c.setCategoryName(name);
+		return em.persist(c);
+	}
+}
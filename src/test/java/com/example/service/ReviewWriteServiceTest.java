@@ -0,0 +1,243 @@
+package com.example.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import com.example.entity.Category;
+import com.example.entity.Contents;
+import com.example.entity.Review;
+import com.example.entity.User;
+import com.example.repository.CategoryRepository;
+import com.example.repository.ReviewRepository;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * レビュー編集でカテゴリの付け外しが差分だけ書かれること、楽観ロックで古い編集が上書きしないことを確認する
+ * ★追加: 新規作成（コンテンツ・カテゴリ付き）の INSERT が件数に関係なくバッチにまとまることも確認する
+ */
+@DataJpaTest
+@ActiveProfiles("jpatest")
+@Import(ReviewWriteService.class)
+@TestPropertySource(properties =
+		"spring.jpa.properties.hibernate.session_factory.statement_inspector=com.example.service.ReviewWriteServiceTest$InsertCounter")
+class ReviewWriteServiceTest {
+
+	/** 準備された INSERT 文の数（バッチは1回の準備で複数行を送るので、バッチ数になる） */
+	public static class InsertCounter implements StatementInspector {
+		static final AtomicLong INSERTS = new AtomicLong();
+
+		@Override
+		public String inspect(String sql) {
+			if (sql.regionMatches(true, 0, "insert", 0, 6)) {
+				INSERTS.incrementAndGet();
+			}
+			return sql;
+		}
+	}
+
+	@Autowired
+	private TestEntityManager em;
+	@Autowired
+	private EntityManagerFactory emf;
+	@Autowired
+	private ReviewRepository reviewRepository;
+	@Autowired
+	private CategoryRepository categoryRepository;
+	@Autowired
+	private ReviewWriteService reviewWriteService;
+
+	private Statistics stats;
+	private Category java;
+	private Category sql;
+	private Category web;
+
+	@BeforeEach
+	void setUp() {
+		stats = emf.unwrap(SessionFactory.class).getStatistics();
+		java = category("Java");
+		sql = category("SQL");
+		web = category("Web");
+	}
+
+	@Test
+	void unchangedEditWritesNothing() {
+		Integer id = review(java, sql);
+
+		long count = countEditStatements(id, List.of(java.getCategoryId(), sql.getCategoryId()));
+
+		assertThat(count).isZero();
+		assertThat(categoryIdsOf(id)).containsExactlyInAnyOrder(java.getCategoryId(), sql.getCategoryId());
+		assertThat(reviewRepository.findById(id).orElseThrow().getVersion()).isZero();
+	}
+
+	@Test
+	void addingOneCategoryInsertsOneLink() {
+		Integer id = review(java, sql);
+
+		long count = countEditStatements(id, List.of(java.getCategoryId(), sql.getCategoryId(), web.getCategoryId()));
+
+		// review_category への INSERT 1件 + review のバージョン更新
+		assertThat(count).isEqualTo(2);
+		assertThat(categoryIdsOf(id)).containsExactlyInAnyOrder(
+				java.getCategoryId(), sql.getCategoryId(), web.getCategoryId());
+		assertThat(reviewRepository.findById(id).orElseThrow().getVersion()).isEqualTo(1);
+	}
+
+	@Test
+	void removingOneCategoryDeletesOneLink() {
+		Integer id = review(java, sql);
+
+		long count = countEditStatements(id, List.of(java.getCategoryId()));
+
+		// review_category からの DELETE 1件 + review のバージョン更新
+		assertThat(count).isEqualTo(2);
+		assertThat(categoryIdsOf(id)).containsExactly(java.getCategoryId());
+	}
+
+	@Test
+	void staleEditIsRejected() {
+		Integer id = review(java);
+		Review review = reviewRepository.findById(id).orElseThrow();
+		ReviewSnapshot before = ReviewSnapshot.of(review);
+		// 編集画面を開いている間に他の画面で更新された
+		em.getEntityManager().createNativeQuery("UPDATE review SET version = version + 1 WHERE review_id = :id")
+				.setParameter("id", id)
+				.executeUpdate();
+
+		review.setReviewTitle("stale edit");
+		reviewWriteService.update(review, before);
+
+		assertThatThrownBy(() -> reviewRepository.flush())
+				.isInstanceOf(ObjectOptimisticLockingFailureException.class);
+	}
+
+	@Test
+	void bulkCreateBatchesInsertsRegardlessOfCount() {
+		long few = countCreateInserts(3);
+		long many = countCreateInserts(30);
+
+		// contents / review / review_category の INSERT が各1バッチ
+		assertThat(few).isEqualTo(3);
+		assertThat(many).isEqualTo(few);
+		assertThat(reviewRepository.count()).isEqualTo(33);
+	}
+
+	@Test
+	void createPersistsNewContentsInSameTransaction() {
+		Review r = newReview(newUser("single"), newContents("https://example.com/new"), java, sql);
+
+		Review saved = reviewWriteService.create(r);
+		em.flush();
+		em.clear();
+
+		Review loaded = reviewRepository.findById(saved.getReviewId()).orElseThrow();
+		assertThat(loaded.getContents().getContentsId()).isNotNull();
+		assertThat(categoryIdsOf(saved.getReviewId()))
+				.containsExactlyInAnyOrder(java.getCategoryId(), sql.getCategoryId());
+	}
+
+	// n 件のレビュー（それぞれ新しいコンテンツ・カテゴリ2件付き）をまとめて作成し、flush までに送った INSERT の数
+	// （シーケンスの問い合わせは払い出し枠の残りによって前後するので数えない）
+	private long countCreateInserts(int n) {
+		User u = newUser("bulk" + n);
+		em.flush();
+		List<Review> reviews = new ArrayList<>();
+		for (int i = 0; i < n; i++) {
+			reviews.add(newReview(u, newContents("https://example.com/bulk/" + n + "/" + i),
+					categoryRepository.getReferenceById(java.getCategoryId()),
+					categoryRepository.getReferenceById(sql.getCategoryId())));
+		}
+		em.clear();
+		InsertCounter.INSERTS.set(0);
+		reviewWriteService.createAll(reviews);
+		em.flush();
+		long count = InsertCounter.INSERTS.get();
+		em.clear();
+		return count;
+	}
+
+	// 読み込み・変更前スナップショットの後から、保存（flush）までに出た SQL の数
+	private long countEditStatements(Integer reviewId, List<Integer> categoryIds) {
+		Review review = reviewRepository.findById(reviewId).orElseThrow();
+		ReviewSnapshot before = ReviewSnapshot.of(review); // ここでカテゴリの読み込みも済む
+		stats.clear();
+
+		review.setReviewTitle(review.getReviewTitle());
+		review.replaceCategories(categoryIds.stream()
+				.map(categoryRepository::getReferenceById)
+				.collect(Collectors.toSet()));
+		reviewWriteService.update(review, before);
+		em.flush();
+		long count = stats.getPrepareStatementCount();
+		em.clear();
+		return count;
+	}
+
+	private Set<Integer> categoryIdsOf(Integer reviewId) {
+		return reviewRepository.findById(reviewId).orElseThrow().getCategories().stream()
+				.map(Category::getCategoryId)
+				.collect(Collectors.toSet());
+	}
+
+	private Integer review(Category... categories) {
+		Contents c = newContents("https://example.com/write");
+		em.persist(c);
+		Review r = newReview(newUser("writer"), c, categories);
+		em.persist(r);
+		em.flush();
+		em.clear();
+		return r.getReviewId();
+	}
+
+	private User newUser(String name) {
+		User u = new User();
+		u.setUsername(name);
+		u.setPassword("x");
+		return em.persist(u);
+	}
+
+	private Contents newContents(String url) {
+		Contents c = new Contents();
+		c.setContentsUrl(url);
+		c.setContentsTitle("contents");
+		c.setContentsType(2);
+		return c;
+	}
+
+	private Review newReview(User u, Contents c, Category... categories) {
+		Review r = new Review();
+		r.setUser(u);
+		r.setContents(c);
+		r.setRate(3);
+		r.setReviewTitle("title");
+		r.setReviewText("text");
+		r.getCategories().addAll(List.of(categories));
+		return r;
+	}
+
+	private Category category(String name) {
+		Category c = new Category();
+		c.setCategoryName(name);
+		return em.persist(c);
+	}
+}
@@ -0,0 +1,191 @@
+package com.example.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.entity.Category;
+import com.example.entity.Contents;
+import com.example.entity.Review;
+import com.example.entity.User;
+import com.example.repository.CategoryRepository;
+import com.example.repository.ContentsRepository;
+import com.example.repository.ReviewRepository;
+import com.example.repository.UserRepository;
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.configuration.TypesafeConfigurator;
+import com.typesafe.config.ConfigFactory;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Category / Contents / User の2次キャッシュ
+ * - 2回目以降の読み込みで DB に行かないこと
+ * - リポジトリ経由の更新・削除で古い値が返らないこと
+ * - review へのネイティブ更新で他の領域が捨てられないこと
+ */
+@DataJpaTest
+@ActiveProfiles("jpatest")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SecondLevelCacheTest {
+
+	@Autowired
+	private EntityManagerFactory emf;
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+	@Autowired
+	private CategoryRepository categoryRepository;
+	@Autowired
+	private ContentsRepository contentsRepository;
+	@Autowired
+	private UserRepository userRepository;
+	@Autowired
+	private ReviewRepository reviewRepository;
+
+	private Statistics stats;
+	private Integer categoryId;
+	private Integer contentsId;
+	private Integer userId;
+
+	// 同じトランザクションで INSERT したエンティティはキャッシュに載らないので、
+	// 準備データはリポジトリ経由でコミットしておき、各読み込みもリクエストと同じく別々のトランザクションで行う
+	@BeforeEach
+	void setUp() {
+		stats = emf.unwrap(SessionFactory.class).getStatistics();
+		Category category = new Category();
+		category.setCategoryName("Java");
+		categoryId = categoryRepository.save(category).getCategoryId();
+		contentsId = contentsRepository.save(newContents()).getContentsId();
+		userId = userRepository.save(newUser()).getId();
+	}
+
+	@AfterEach
+	void tearDown() {
+		reviewRepository.deleteAll();
+		categoryRepository.deleteAll();
+		contentsRepository.deleteAll();
+		userRepository.deleteAll();
+	}
+
+	@Test
+	void secondReadIsServedFromCache() {
+		loadAll();
+		stats.clear();
+
+		loadAll();
+
+		assertThat(stats.getPrepareStatementCount()).isZero();
+		assertThat(stats.getSecondLevelCacheHitCount()).isEqualTo(3);
+	}
+
+	@Test
+	void reviewCategoriesAreServedFromCache() {
+		Integer reviewId = new TransactionTemplate(transactionManager).execute(status -> {
+			Review r = new Review();
+			r.setUser(userRepository.getReferenceById(userId));
+			r.setContents(contentsRepository.getReferenceById(contentsId));
+			r.setRate(4);
+			r.setReviewTitle("title");
+			r.setReviewText("text");
+			r.getCategories().add(categoryRepository.getReferenceById(categoryId));
+			return reviewRepository.save(r).getReviewId();
+		});
+		categoryNamesOf(reviewId);
+		stats.clear();
+
+		List<String> names = categoryNamesOf(reviewId);
+
+		assertThat(names).containsExactly("Java");
+		// review 本体の1件だけ（review_category と category は読まない）
+		assertThat(stats.getPrepareStatementCount()).isEqualTo(1);
+	}
+
+	@Test
+	void updateThroughRepositoryIsNotHiddenByCache() {
+		loadAll();
+
+		User user = userRepository.findById(userId).orElseThrow();
+		user.setUsername("renamed");
+		userRepository.save(user);
+		Contents contents = contentsRepository.findById(contentsId).orElseThrow();
+		contents.setContentsTitle("retitled");
+		contentsRepository.save(contents);
+		categoryRepository.deleteById(categoryId);
+
+		assertThat(userRepository.findById(userId).orElseThrow().getUsername()).isEqualTo("renamed");
+		assertThat(contentsRepository.findById(contentsId).orElseThrow().getContentsTitle()).isEqualTo("retitled");
+		assertThat(categoryRepository.findById(categoryId)).isEmpty();
+	}
+
+	@Test
+	void nativeReviewUpdateKeepsOtherRegions() {
+		loadAll();
+
+		new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+			reviewRepository.updateExcerpt(-1, "excerpt");
+			reviewRepository.moveToContents(-1, -2);
+		});
+		stats.clear();
+		loadAll();
+
+		assertThat(stats.getPrepareStatementCount()).isZero();
+	}
+
+	@Test
+	void everyCachedRegionHasItsOwnSettings() {
+		assertThat(stats.getSecondLevelCacheRegionNames()).containsExactlyInAnyOrder(
+				"com.example.entity.Category",
+				"com.example.entity.Contents",
+				"com.example.entity.User",
+				"com.example.entity.Review.categories");
+
+		// テストでは接頭辞付きの領域を既定設定で作るので、本番の領域名で application.conf を直接引く
+		for (String region : stats.getSecondLevelCacheRegionNames()) {
+			CaffeineConfiguration<Object, Object> config = TypesafeConfigurator
+					.from(ConfigFactory.load(), region).orElseThrow();
+			assertThat(config.getMaximumSize()).as(region).isPresent();
+			assertThat(config.getExpireAfterWrite()).as(region).isPresent();
+		}
+	}
+
+	private void loadAll() {
+		categoryRepository.findById(categoryId).orElseThrow();
+		contentsRepository.findById(contentsId).orElseThrow();
+		userRepository.findById(userId).orElseThrow();
+	}
+
+	private List<String> categoryNamesOf(Integer reviewId) {
+		return new TransactionTemplate(transactionManager).execute(status ->
+				reviewRepository.findById(reviewId).orElseThrow().getCategories().stream()
+						.map(Category::getCategoryName)
+						.toList());
+	}
+
+	private Contents newContents() {
+		Contents c = new Contents();
+		c.setContentsUrl("https://example.com/cache");
+		c.setContentsTitle("contents");
+		c.setContentsType(2);
+		return c;
+	}
+
+	private User newUser() {
+		User u = new User();
+		u.setUsername("cached");
+		u.setPassword("x");
+		return u;
+	}
+}
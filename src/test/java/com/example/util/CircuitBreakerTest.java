@@ -0,0 +1,69 @@
+package com.example.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+class CircuitBreakerTest {
+
+	private final AtomicLong now = new AtomicLong();
+	private final CircuitBreaker breaker = new CircuitBreaker(3, Duration.ofSeconds(30), now::get);
+
+	private void fail(int times) {
+		for (int i = 0; i < times; i++) {
+			assertThat(breaker.tryAcquirePermission()).isTrue();
+			breaker.onFailure();
+		}
+	}
+
+	@Test
+	void opensAfterConsecutiveFailures() {
+		fail(2);
+		breaker.onSuccess(); // 成功で連続回数はリセット
+		fail(2);
+		assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+
+		fail(1);
+		assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+		assertThat(breaker.tryAcquirePermission()).isFalse();
+	}
+
+	@Test
+	void halfOpenLetsOneProbeThrough() {
+		fail(3);
+		now.addAndGet(Duration.ofSeconds(30).toNanos());
+
+		assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+		assertThat(breaker.tryAcquirePermission()).isTrue();
+		assertThat(breaker.tryAcquirePermission()).isFalse(); // 試行中は1件だけ
+
+		breaker.onSuccess();
+		assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+	}
+
+	@Test
+	void failedProbeReopens() {
+		fail(3);
+		now.addAndGet(Duration.ofSeconds(30).toNanos());
+
+		assertThat(breaker.tryAcquirePermission()).isTrue();
+		breaker.onFailure();
+
+		assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+		now.addAndGet(Duration.ofSeconds(29).toNanos());
+		assertThat(breaker.tryAcquirePermission()).isFalse();
+	}
+
+	@Test
+	void ignoredProbeFreesTheSlot() {
+		fail(3);
+		now.addAndGet(Duration.ofSeconds(30).toNanos());
+
+		assertThat(breaker.tryAcquirePermission()).isTrue();
+		breaker.onIgnored();
+		assertThat(breaker.tryAcquirePermission()).isTrue();
+	}
+}
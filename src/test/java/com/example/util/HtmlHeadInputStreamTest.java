@@ -0,0 +1,45 @@
+package com.example.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+class HtmlHeadInputStreamTest {
+
+	private static String readAll(HtmlHeadInputStream in) throws IOException {
+		return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+	}
+
+	private static HtmlHeadInputStream stream(String html, long maxBytes) {
+		return new HtmlHeadInputStream(new ByteArrayInputStream(html.getBytes(StandardCharsets.UTF_8)), maxBytes);
+	}
+
+	@Test
+	void stopsAfterClosingHeadTag() throws IOException {
+		HtmlHeadInputStream in = stream("<html><HEAD><title>t</title></Head ><body>" + "x".repeat(10_000), 1 << 20);
+
+		assertThat(readAll(in)).isEqualTo("<html><HEAD><title>t</title></Head >");
+		assertThat(in.isHeadClosed()).isTrue();
+	}
+
+	@Test
+	void headerElementIsNotMistakenForHead() throws IOException {
+		String html = "<html><body><header>h</header><p>p</p></body></html>";
+		HtmlHeadInputStream in = stream(html, 1 << 20);
+
+		assertThat(readAll(in)).isEqualTo(html);
+		assertThat(in.isHeadClosed()).isFalse();
+	}
+
+	@Test
+	void stopsAtByteCapWithoutHead() throws IOException {
+		HtmlHeadInputStream in = stream("<html>" + "x".repeat(10_000), 100);
+
+		assertThat(in.readAllBytes()).hasSize(100);
+		assertThat(in.isHeadClosed()).isFalse();
+	}
+}
@@ -0,0 +1,35 @@
+package com.example.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class IsbnNormalizerTest {
+
+	@Test
+	void acceptsIsbn13WithHyphensAndFullWidthDigits() {
+		assertThat(IsbnNormalizer.toIsbn13("978-4-87311-565-8")).isEqualTo("9784873115658");
+		assertThat(IsbnNormalizer.toIsbn13("９７８４８７３１１５６５８")).isEqualTo("9784873115658");
+	}
+
+	@Test
+	void convertsIsbn10ToIsbn13() {
+		assertThat(IsbnNormalizer.toIsbn13("4-87311-565-X")).isNull(); // チェックディジット不一致
+		assertThat(IsbnNormalizer.toIsbn13("4873115655")).isEqualTo("9784873115658");
+		assertThat(IsbnNormalizer.toIsbn13("080442957X")).isEqualTo("9780804429573");
+	}
+
+	@Test
+	void numericFormMatchesIsbn13() {
+		assertThat(IsbnNormalizer.toIsbn13Number("4-87311-565-5")).isEqualTo(9784873115658L);
+		assertThat(IsbnNormalizer.toIsbn13Number("abc")).isNull();
+	}
+
+	@Test
+	void rejectsInvalidInput() {
+		assertThat(IsbnNormalizer.toIsbn13(null)).isNull();
+		assertThat(IsbnNormalizer.toIsbn13("")).isNull();
+		assertThat(IsbnNormalizer.toIsbn13("9784873115659")).isNull();
+		assertThat(IsbnNormalizer.toIsbn13("ISBN")).isNull();
+	}
+}
@@ -0,0 +1,41 @@
+package com.example.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class ReviewExcerptTest {
+
+	@Test
+	void shortTextIsKeptAsIs() {
+		assertThat(ReviewExcerpt.of("短いレビュー")).isEqualTo("短いレビュー");
+		assertThat(ReviewExcerpt.of(null)).isEmpty();
+		assertThat(ReviewExcerpt.of("")).isEmpty();
+	}
+
+	@Test
+	void collapsesLineBreaksAndSpaces() {
+		assertThat(ReviewExcerpt.of("  1行目\r\n\r\n2行目\t　3行目  ")).isEqualTo("1行目 2行目 3行目");
+	}
+
+	@Test
+	void truncatesLongTextWithEllipsis() {
+		String text = "あ".repeat(ReviewExcerpt.MAX_CHARS + 50);
+
+		String excerpt = ReviewExcerpt.of(text);
+
+		assertThat(excerpt).isEqualTo("あ".repeat(ReviewExcerpt.MAX_CHARS) + "…");
+		assertThat(excerpt.length()).isLessThanOrEqualTo(ReviewExcerpt.COLUMN_LENGTH);
+		assertThat(ReviewExcerpt.of("い".repeat(ReviewExcerpt.MAX_CHARS))).doesNotEndWith("…");
+	}
+
+	@Test
+	void doesNotSplitSurrogatePairs() {
+		String text = "😀".repeat(ReviewExcerpt.MAX_CHARS + 1);
+
+		String excerpt = ReviewExcerpt.of(text);
+
+		assertThat(excerpt.codePointCount(0, excerpt.length())).isEqualTo(ReviewExcerpt.MAX_CHARS + 1);
+		assertThat(excerpt).endsWith("😀…");
+	}
+}
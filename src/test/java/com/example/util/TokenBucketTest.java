@@ -0,0 +1,48 @@
+package com.example.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+class TokenBucketTest {
+
+	private final AtomicLong now = new AtomicLong();
+
+	@Test
+	void burstIsServedImmediatelyThenCallsAreSpacedOut() {
+		TokenBucket bucket = new TokenBucket(2, 2, now::get); // 500ms に1件、2件まで貯まる
+
+		assertThat(bucket.reserve(Duration.ofSeconds(5))).isZero();
+		assertThat(bucket.reserve(Duration.ofSeconds(5))).isZero();
+		assertThat(bucket.reserve(Duration.ofSeconds(5))).isEqualTo(Duration.ofMillis(500).toNanos());
+		assertThat(bucket.reserve(Duration.ofSeconds(5))).isEqualTo(Duration.ofMillis(1000).toNanos());
+	}
+
+	@Test
+	void refusesReservationsBeyondMaxWait() {
+		TokenBucket bucket = new TokenBucket(1, 1, now::get);
+
+		assertThat(bucket.reserve(Duration.ofMillis(100))).isZero();
+		assertThat(bucket.reserve(Duration.ofMillis(100))).isEqualTo(-1);
+
+		// 断られた分は予約されていないので、補充後はすぐ通る
+		now.addAndGet(Duration.ofSeconds(1).toNanos());
+		assertThat(bucket.reserve(Duration.ofMillis(100))).isZero();
+	}
+
+	@Test
+	void idleTimeRefillsUpToBurstOnly() {
+		TokenBucket bucket = new TokenBucket(1, 2, now::get);
+		bucket.reserve(Duration.ZERO);
+		bucket.reserve(Duration.ZERO);
+
+		now.addAndGet(Duration.ofSeconds(60).toNanos());
+
+		assertThat(bucket.reserve(Duration.ZERO)).isZero();
+		assertThat(bucket.reserve(Duration.ZERO)).isZero();
+		assertThat(bucket.reserve(Duration.ZERO)).isEqualTo(-1);
+	}
+}
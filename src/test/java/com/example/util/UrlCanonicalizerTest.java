@@ -0,0 +1,71 @@
+package com.example.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.net.URISyntaxException;
+
+import org.junit.jupiter.api.Test;
+
+class UrlCanonicalizerTest {
+
+	@Test
+	void trivialVariantsCollapseToOneForm() throws URISyntaxException {
+		String canonical = "https://example.com/articles/1?id=3&page=2";
+
+		assertThat(UrlCanonicalizer.canonicalize("example.com/articles/1?page=2&id=3")).isEqualTo(canonical);
+		assertThat(UrlCanonicalizer.canonicalize("HTTPS://Example.COM:443/articles/1/?id=3&page=2#comments"))
+				.isEqualTo(canonical);
+		assertThat(UrlCanonicalizer.canonicalize(
+				"https://example.com/articles/./x/../1?utm_source=tw&id=3&fbclid=abc&page=2&UTM_MEDIUM=s"))
+				.isEqualTo(canonical);
+	}
+
+	@Test
+	void normalizesRootPortsAndEscapes() throws URISyntaxException {
+		assertThat(UrlCanonicalizer.canonicalize("http://example.com")).isEqualTo("http://example.com/");
+		assertThat(UrlCanonicalizer.canonicalize("http://example.com:80/")).isEqualTo("http://example.com/");
+		assertThat(UrlCanonicalizer.canonicalize("http://example.com:8080/a")).isEqualTo("http://example.com:8080/a");
+		assertThat(UrlCanonicalizer.canonicalize("https://example.com/%7euser/%e3%81%82"))
+				.isEqualTo("https://example.com/~user/%E3%81%82");
+	}
+
+	@Test
+	void keepsMeaningfulDifferences() throws URISyntaxException {
+		// スキーム違い・値違い・パスの大文字小文字は別ページとして扱う
+		assertThat(UrlCanonicalizer.canonicalize("http://example.com/a"))
+				.isNotEqualTo(UrlCanonicalizer.canonicalize("https://example.com/a"));
+		assertThat(UrlCanonicalizer.canonicalize("https://example.com/a?id=1"))
+				.isNotEqualTo(UrlCanonicalizer.canonicalize("https://example.com/a?id=2"));
+		assertThat(UrlCanonicalizer.canonicalize("https://example.com/A"))
+				.isNotEqualTo(UrlCanonicalizer.canonicalize("https://example.com/a"));
+	}
+
+	@Test
+	void unicodeHostsAreConvertedToPunycode() throws URISyntaxException {
+		assertThat(UrlCanonicalizer.canonicalize("https://日本語.JP/記事/?utm_source=x"))
+				.isEqualTo("https://xn--wgv71a119e.jp/記事");
+		assertThat(UrlCanonicalizer.canonicalize("例え.テスト:8443/a"))
+				.isEqualTo("https://xn--r8jz45g.xn--zckzah:8443/a");
+		assertThat(UrlCanonicalizer.hash("https://日本語.jp/"))
+				.isEqualTo(UrlCanonicalizer.hash("https://xn--wgv71a119e.jp/"));
+	}
+
+	@Test
+	void requestUrlKeepsPathAndQueryAsEntered() throws URISyntaxException {
+		// 並べ替え・トラッキング用パラメータの削除・末尾の / の削除はしない（スキーム補完と IDN だけ）
+		assertThat(UrlCanonicalizer.toRequestUrl(" example.com/a/?b=2&a=1&utm_source=x&sig=AbC%2f "))
+				.isEqualTo("https://example.com/a/?b=2&a=1&utm_source=x&sig=AbC%2f");
+		assertThat(UrlCanonicalizer.toRequestUrl("https://日本語.jp/記事"))
+				.isEqualTo("https://xn--wgv71a119e.jp/%E8%A8%98%E4%BA%8B");
+		assertThat(UrlCanonicalizer.toRequestUrl("")).isEmpty();
+	}
+
+	@Test
+	void hashIsFixedWidthAndFollowsCanonicalForm() {
+		assertThat(UrlCanonicalizer.hash("https://example.com/a/")).hasSize(32)
+				.isEqualTo(UrlCanonicalizer.hash("example.com/a#x"));
+		assertThat(UrlCanonicalizer.hash("not a url")).hasSize(32);
+		assertThatThrownBy(() -> UrlCanonicalizer.canonicalize("not a url")).isInstanceOf(URISyntaxException.class);
+	}
+}